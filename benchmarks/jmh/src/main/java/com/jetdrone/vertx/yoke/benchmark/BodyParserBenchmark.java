@@ -0,0 +1,70 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.benchmark;
+
+import com.jetdrone.vertx.yoke.Middleware;
+import com.jetdrone.vertx.yoke.Yoke;
+import com.jetdrone.vertx.yoke.middleware.BodyParser;
+import com.jetdrone.vertx.yoke.middleware.YokeRequest;
+import com.jetdrone.vertx.yoke.test.Response;
+import org.openjdk.jmh.annotations.*;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.MultiMap;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.VertxFactory;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.http.CaseInsensitiveMultiMap;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * BodyParser decoding a JSON request body made of a number of small objects.
+ */
+@State(Scope.Benchmark)
+public class BodyParserBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int items;
+
+    private Vertx vertx;
+    private SyncYokeTester tester;
+    private Buffer body;
+    private MultiMap headers;
+
+    @Setup
+    public void setup() {
+        vertx = VertxFactory.newVertx();
+
+        final JsonArray json = new JsonArray();
+        for (int i = 0; i < items; i++) {
+            json.addObject(new JsonObject().putNumber("id", i).putString("name", "item" + i).putBoolean("active", i % 2 == 0));
+        }
+
+        body = new Buffer(json.encode());
+        headers = new CaseInsensitiveMultiMap();
+        headers.add("content-type", "application/json");
+        headers.add("content-length", Integer.toString(body.length()));
+
+        final Yoke yoke = new Yoke(vertx)
+                .use(new BodyParser())
+                .use(new Middleware() {
+                    @Override
+                    public void handle(YokeRequest request, Handler<Object> next) {
+                        request.response().end(Integer.toString(request.<JsonArray>body().size()));
+                    }
+                });
+
+        tester = new SyncYokeTester(yoke);
+    }
+
+    @TearDown
+    public void tearDown() {
+        vertx.stop();
+    }
+
+    @Benchmark
+    public Response json() {
+        return tester.request("POST", "/", headers, body);
+    }
+}
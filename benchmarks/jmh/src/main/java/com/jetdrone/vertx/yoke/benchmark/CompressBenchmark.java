@@ -0,0 +1,70 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.benchmark;
+
+import com.jetdrone.vertx.yoke.Middleware;
+import com.jetdrone.vertx.yoke.Yoke;
+import com.jetdrone.vertx.yoke.middleware.Compress;
+import com.jetdrone.vertx.yoke.middleware.YokeRequest;
+import com.jetdrone.vertx.yoke.test.Response;
+import org.openjdk.jmh.annotations.*;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.MultiMap;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.VertxFactory;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.http.CaseInsensitiveMultiMap;
+
+/**
+ * Compress filters applied to a text response of a given size.
+ */
+@State(Scope.Benchmark)
+public class CompressBenchmark {
+
+    @Param({"gzip", "deflate"})
+    public String encoding;
+
+    @Param({"1024", "65536"})
+    public int size;
+
+    private Vertx vertx;
+    private SyncYokeTester tester;
+    private MultiMap headers;
+
+    @Setup
+    public void setup() {
+        vertx = VertxFactory.newVertx();
+
+        final StringBuilder sb = new StringBuilder(size);
+        while (sb.length() < size) {
+            sb.append("Lorem ipsum dolor sit amet, consectetur adipiscing elit. ");
+        }
+        final String text = sb.substring(0, size);
+
+        headers = new CaseInsensitiveMultiMap();
+        headers.add("accept-encoding", encoding);
+
+        final Yoke yoke = new Yoke(vertx)
+                .use(new Compress())
+                .use(new Middleware() {
+                    @Override
+                    public void handle(YokeRequest request, Handler<Object> next) {
+                        request.response().putHeader("content-type", "text/plain");
+                        request.response().end(text);
+                    }
+                });
+
+        tester = new SyncYokeTester(yoke);
+    }
+
+    @TearDown
+    public void tearDown() {
+        vertx.stop();
+    }
+
+    @Benchmark
+    public Response compress() {
+        return tester.request("GET", "/", headers, new Buffer(0));
+    }
+}
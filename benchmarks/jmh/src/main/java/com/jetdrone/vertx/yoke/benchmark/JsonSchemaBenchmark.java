@@ -0,0 +1,61 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.benchmark;
+
+import com.jetdrone.vertx.yoke.json.JsonSchema;
+import com.jetdrone.vertx.yoke.json.JsonSchemaResolver;
+import org.openjdk.jmh.annotations.*;
+import org.vertx.java.core.json.JsonObject;
+
+import java.util.Map;
+
+/**
+ * JsonSchema validation of a product document against an inline draft-v4 schema.
+ */
+@State(Scope.Benchmark)
+public class JsonSchemaBenchmark {
+
+    private static final String SCHEMA = "{" +
+            "\"$schema\": \"http://json-schema.org/draft-04/schema#\"," +
+            "\"type\": \"object\"," +
+            "\"properties\": {" +
+            "  \"id\": {\"type\": \"integer\"}," +
+            "  \"name\": {\"type\": \"string\", \"minLength\": 1}," +
+            "  \"price\": {\"type\": \"number\", \"minimum\": 0, \"exclusiveMinimum\": true}," +
+            "  \"tags\": {\"type\": \"array\", \"items\": {\"type\": \"string\"}, \"minItems\": 1, \"uniqueItems\": true}," +
+            "  \"dimensions\": {" +
+            "    \"type\": \"object\"," +
+            "    \"properties\": {" +
+            "      \"length\": {\"type\": \"number\"}," +
+            "      \"width\": {\"type\": \"number\"}," +
+            "      \"height\": {\"type\": \"number\"}" +
+            "    }," +
+            "    \"required\": [\"length\", \"width\", \"height\"]" +
+            "  }" +
+            "}," +
+            "\"required\": [\"id\", \"name\", \"price\"]" +
+            "}";
+
+    private static final String INSTANCE = "{" +
+            "\"id\": 2," +
+            "\"name\": \"An ice sculpture\"," +
+            "\"price\": 12.50," +
+            "\"tags\": [\"cold\", \"ice\"]," +
+            "\"dimensions\": {\"length\": 7.0, \"width\": 12.0, \"height\": 9.5}" +
+            "}";
+
+    private JsonSchemaResolver.Schema schema;
+    private Map<String, Object> instance;
+
+    @Setup
+    public void setup() {
+        schema = JsonSchemaResolver.resolveSchema(new JsonObject(SCHEMA).toMap());
+        instance = new JsonObject(INSTANCE).toMap();
+    }
+
+    @Benchmark
+    public boolean conformsSchema() {
+        return JsonSchema.conformsSchema(instance, schema);
+    }
+}
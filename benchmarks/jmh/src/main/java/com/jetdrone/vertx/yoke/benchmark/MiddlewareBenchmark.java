@@ -0,0 +1,61 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.benchmark;
+
+import com.jetdrone.vertx.yoke.Middleware;
+import com.jetdrone.vertx.yoke.Yoke;
+import com.jetdrone.vertx.yoke.middleware.YokeRequest;
+import com.jetdrone.vertx.yoke.test.Response;
+import org.openjdk.jmh.annotations.*;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.VertxFactory;
+
+/**
+ * Cost of walking the middleware chain, half of the middleware is mounted on a path that does not match the request.
+ */
+@State(Scope.Benchmark)
+public class MiddlewareBenchmark {
+
+    @Param({"1", "20", "50"})
+    public int middleware;
+
+    private Vertx vertx;
+    private SyncYokeTester tester;
+
+    @Setup
+    public void setup() {
+        vertx = VertxFactory.newVertx();
+
+        final Yoke yoke = new Yoke(vertx);
+
+        for (int i = 0; i < middleware; i++) {
+            yoke.use(i % 2 == 0 ? "/" : "/skipped", new Middleware() {
+                @Override
+                public void handle(YokeRequest request, Handler<Object> next) {
+                    next.handle(null);
+                }
+            });
+        }
+
+        yoke.use(new Middleware() {
+            @Override
+            public void handle(YokeRequest request, Handler<Object> next) {
+                request.response().end("OK");
+            }
+        });
+
+        tester = new SyncYokeTester(yoke);
+    }
+
+    @TearDown
+    public void tearDown() {
+        vertx.stop();
+    }
+
+    @Benchmark
+    public Response dispatch() {
+        return tester.request("GET", "/");
+    }
+}
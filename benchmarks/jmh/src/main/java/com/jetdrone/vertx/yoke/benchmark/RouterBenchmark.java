@@ -0,0 +1,68 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.benchmark;
+
+import com.jetdrone.vertx.yoke.Middleware;
+import com.jetdrone.vertx.yoke.Yoke;
+import com.jetdrone.vertx.yoke.middleware.Router;
+import com.jetdrone.vertx.yoke.middleware.YokeRequest;
+import com.jetdrone.vertx.yoke.test.Response;
+import org.openjdk.jmh.annotations.*;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.VertxFactory;
+
+/**
+ * Router matching with a growing number of REST style routes, for a request hitting the last route and for a miss.
+ */
+@State(Scope.Benchmark)
+public class RouterBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int routes;
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    private Vertx vertx;
+    private SyncYokeTester tester;
+    private String last;
+
+    @Setup
+    public void setup() {
+        vertx = VertxFactory.newVertx();
+
+        final Middleware ok = new Middleware() {
+            @Override
+            public void handle(YokeRequest request, Handler<Object> next) {
+                request.response().end(request.getParameter("id"));
+            }
+        };
+
+        final Router router = new Router().indexed(indexed);
+
+        for (int i = 0; i < routes; i++) {
+            router.get("/api/v1/resource" + i + "/:id", ok);
+        }
+
+        last = "/api/v1/resource" + (routes - 1) + "/42";
+
+        tester = new SyncYokeTester(new Yoke(vertx).use(router));
+    }
+
+    @TearDown
+    public void tearDown() {
+        vertx.stop();
+    }
+
+    @Benchmark
+    public Response hit() {
+        return tester.request("GET", last);
+    }
+
+    @Benchmark
+    public Response miss() {
+        return tester.request("GET", "/api/v2/unknown/42");
+    }
+}
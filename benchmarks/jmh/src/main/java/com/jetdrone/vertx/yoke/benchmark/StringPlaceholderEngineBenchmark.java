@@ -0,0 +1,87 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.benchmark;
+
+import com.jetdrone.vertx.yoke.Middleware;
+import com.jetdrone.vertx.yoke.Yoke;
+import com.jetdrone.vertx.yoke.engine.Function;
+import com.jetdrone.vertx.yoke.engine.StringPlaceholderEngine;
+import com.jetdrone.vertx.yoke.middleware.YokeRequest;
+import com.jetdrone.vertx.yoke.test.Response;
+import org.openjdk.jmh.annotations.*;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.VertxFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+/**
+ * StringPlaceholderEngine rendering a page with a number of placeholders and function calls.
+ */
+@State(Scope.Benchmark)
+public class StringPlaceholderEngineBenchmark {
+
+    @Param({"10", "100"})
+    public int placeholders;
+
+    private Vertx vertx;
+    private SyncYokeTester tester;
+    private File views;
+
+    @Setup
+    public void setup() throws IOException {
+        vertx = VertxFactory.newVertx();
+
+        views = Files.createTempDirectory("yoke-views").toFile();
+
+        final StringBuilder template = new StringBuilder("<html><body>\n");
+        for (int i = 0; i < placeholders; i++) {
+            template.append("<p>${title} ${value").append(i).append("} ${upper('").append(i).append("')}</p>\n");
+        }
+        template.append("</body></html>\n");
+
+        Files.write(new File(views, "page.shtml").toPath(), template.toString().getBytes(StandardCharsets.UTF_8));
+
+        final StringPlaceholderEngine engine = new StringPlaceholderEngine(views.getAbsolutePath());
+
+        final Yoke yoke = new Yoke(vertx)
+                .engine(engine)
+                .set("upper", new Function() {
+                    @Override
+                    public String exec(Map<String, Object> context, Object... args) {
+                        return ((String) args[0]).toUpperCase();
+                    }
+                })
+                .use(new Middleware() {
+                    @Override
+                    public void handle(YokeRequest request, Handler<Object> next) {
+                        request.put("title", "Yoke");
+                        for (int i = 0; i < placeholders; i++) {
+                            request.put("value" + i, i);
+                        }
+                        request.response().render("page.shtml", next);
+                    }
+                });
+
+        tester = new SyncYokeTester(yoke);
+    }
+
+    @TearDown
+    public void tearDown() {
+        vertx.stop();
+        for (File f : views.listFiles()) {
+            f.delete();
+        }
+        views.delete();
+    }
+
+    @Benchmark
+    public Response render() {
+        return tester.request("GET", "/");
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.benchmark;
+
+import com.jetdrone.vertx.yoke.Yoke;
+import com.jetdrone.vertx.yoke.test.Response;
+import com.jetdrone.vertx.yoke.test.YokeTester;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.MultiMap;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.http.CaseInsensitiveMultiMap;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * # SyncYokeTester
+ *
+ * Blocking facade over the YokeTester fake server so a benchmark thread can send a request and wait for the response.
+ * No sockets are involved which keeps the results reproducible offline.
+ */
+public final class SyncYokeTester {
+
+    private final YokeTester tester;
+
+    public SyncYokeTester(Yoke yoke) {
+        tester = new YokeTester(yoke);
+    }
+
+    public Response request(String method, String url) {
+        return request(method, url, new CaseInsensitiveMultiMap(), new Buffer(0));
+    }
+
+    public Response request(String method, String url, MultiMap headers, Buffer body) {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Response[] response = new Response[1];
+
+        tester.request(method, url, headers, body, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                response[0] = resp;
+                latch.countDown();
+            }
+        });
+
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("No response for " + method + " " + url);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+
+        return response[0];
+    }
+}
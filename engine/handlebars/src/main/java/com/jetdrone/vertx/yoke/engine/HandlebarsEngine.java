@@ -19,14 +19,16 @@ import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.Template;
 import com.github.jknack.handlebars.io.TemplateLoader;
 import com.github.jknack.handlebars.io.TemplateSource;
-import com.jetdrone.vertx.yoke.core.YokeAsyncResult;
+import com.jetdrone.vertx.yoke.middleware.ResponseWriter;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.buffer.Buffer;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 public class HandlebarsEngine extends AbstractEngineSync<Template> {
 
@@ -98,6 +100,16 @@ public class HandlebarsEngine extends AbstractEngineSync<Template> {
         return extension;
     }
 
+    @Override
+    protected String views() {
+        return prefix;
+    }
+
+    @Override
+    protected void precompile(final String template) throws Exception {
+        putTemplateToCache(resolve(template), handlebars.compile(template));
+    }
+
     private String resolve(String location) {
         String normalized = normalize(location);
         if (normalized.endsWith(extension)) {
@@ -113,22 +125,46 @@ public class HandlebarsEngine extends AbstractEngineSync<Template> {
         return location;
     }
 
+    private Template template(final String filename) throws IOException {
+        Template template = getTemplateFromCache(resolve(filename));
+
+        if (template == null) {
+            // real compile
+            template = handlebars.compile(filename);
+            putTemplateToCache(resolve(filename), template);
+        }
+
+        return template;
+    }
+
     @Override
     public void render(final String filename, final Map<String, Object> context, final Handler<AsyncResult<Buffer>> next) {
-        try {
-            Template template = getTemplateFromCache(resolve(filename));
-
-            if (template == null) {
-                // real compile
-                template = handlebars.compile(filename);
-                putTemplateToCache(resolve(filename), template);
+        execute(new Callable<Buffer>() {
+            @Override
+            public Buffer call() throws Exception {
+                try {
+                    return new Buffer(template(filename).apply(context));
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    throw ex;
+                }
             }
+        }, next);
+    }
 
-            next.handle(new YokeAsyncResult<>(new Buffer(template.apply(context))));
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            next.handle(new YokeAsyncResult<Buffer>(ex));
-        }
+    @Override
+    public void render(final String filename, final Map<String, Object> context, final ResponseWriter writer, final Handler<AsyncResult<Void>> next) {
+        execute(writer, new StreamingTask() {
+            @Override
+            public void render(Writer out) throws Exception {
+                try {
+                    template(filename).apply(context, out);
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    throw ex;
+                }
+            }
+        }, next);
     }
 
     public final Handlebars getHandlebars() {
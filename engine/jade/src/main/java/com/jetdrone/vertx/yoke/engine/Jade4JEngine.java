@@ -15,10 +15,10 @@
  */
 package com.jetdrone.vertx.yoke.engine;
 
-import com.jetdrone.vertx.yoke.core.YokeAsyncResult;
 import de.neuland.jade4j.JadeConfiguration;
 import de.neuland.jade4j.template.JadeTemplate;
 import de.neuland.jade4j.template.TemplateLoader;
+import com.jetdrone.vertx.yoke.middleware.ResponseWriter;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.buffer.Buffer;
@@ -26,7 +26,9 @@ import org.vertx.java.core.buffer.Buffer;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.Writer;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 public class Jade4JEngine extends AbstractEngineSync<JadeTemplate> {
 
@@ -81,20 +83,54 @@ public class Jade4JEngine extends AbstractEngineSync<JadeTemplate> {
     }
 
     @Override
-    public void render(final String filename, final Map<String, Object> context, final Handler<AsyncResult<Buffer>> next) {
-        try {
-            JadeTemplate template = getTemplateFromCache(resolve(filename));
+    protected String views() {
+        return prefix;
+    }
 
-            if (template == null) {
-                // real compile
-                template = config.getTemplate(filename);
-                putTemplateToCache(resolve(filename), template);
-            }
+    @Override
+    protected void precompile(final String template) throws Exception {
+        putTemplateToCache(resolve(template), config.getTemplate(template));
+    }
 
-            next.handle(new YokeAsyncResult<>(new Buffer(config.renderTemplate(template, context))));
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            next.handle(new YokeAsyncResult<Buffer>(ex));
+    private JadeTemplate template(final String filename) throws IOException {
+        JadeTemplate template = getTemplateFromCache(resolve(filename));
+
+        if (template == null) {
+            // real compile
+            template = config.getTemplate(filename);
+            putTemplateToCache(resolve(filename), template);
         }
+
+        return template;
+    }
+
+    @Override
+    public void render(final String filename, final Map<String, Object> context, final Handler<AsyncResult<Buffer>> next) {
+        execute(new Callable<Buffer>() {
+            @Override
+            public Buffer call() throws Exception {
+                try {
+                    return new Buffer(config.renderTemplate(template(filename), context));
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    throw ex;
+                }
+            }
+        }, next);
+    }
+
+    @Override
+    public void render(final String filename, final Map<String, Object> context, final ResponseWriter writer, final Handler<AsyncResult<Void>> next) {
+        execute(writer, new StreamingTask() {
+            @Override
+            public void render(Writer out) throws Exception {
+                try {
+                    config.renderTemplate(template(filename), context, out);
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    throw ex;
+                }
+            }
+        }, next);
     }
 }
@@ -51,6 +51,16 @@ public class MVELEngine extends AbstractEngine<CompiledTemplate> {
         return extension;
     }
 
+    @Override
+    protected String views() {
+        return prefix;
+    }
+
+    @Override
+    protected void precompile(final String template) throws Exception {
+        compile(prefix + template, readSync(prefix + template));
+    }
+
     @Override
     public void render(final String filename, final Map<String, Object> context, final Handler<AsyncResult<Buffer>> next) {
         read(prefix + filename, new AsyncResultHandler<String>() {
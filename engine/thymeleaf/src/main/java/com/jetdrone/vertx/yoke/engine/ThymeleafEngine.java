@@ -16,7 +16,9 @@
 package com.jetdrone.vertx.yoke.engine;
 
 import com.jetdrone.vertx.yoke.Engine;
+import com.jetdrone.vertx.yoke.core.WorkerPool;
 import com.jetdrone.vertx.yoke.core.YokeAsyncResult;
+import com.jetdrone.vertx.yoke.jmx.WorkerPoolMBean;
 import org.thymeleaf.Arguments;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.TemplateProcessingParameters;
@@ -32,11 +34,14 @@ import org.vertx.java.core.Vertx;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.file.FileSystem;
 
+import javax.management.*;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Writer;
+import java.lang.management.ManagementFactory;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 public class ThymeleafEngine implements Engine {
 
@@ -45,6 +50,9 @@ public class ThymeleafEngine implements Engine {
 
     private final String extension;
 
+    private Vertx vertx;
+    private WorkerPool workers;
+
     public ThymeleafEngine(final String views) {
         this(views, ".html");
     }
@@ -65,8 +73,33 @@ public class ThymeleafEngine implements Engine {
         templateResolver.setPrefix(prefix);
     }
 
+    /**
+     * Resolve and render templates on a worker pool instead of the event loop, since the resource resolver reads the
+     * file system synchronously.
+     *
+     * @param concurrency maximum number of templates rendered at the same time
+     * @param maxQueue    maximum number of renders waiting for a worker, further renders fail with 503
+     */
+    public ThymeleafEngine workers(final int concurrency, final int maxQueue) {
+        if (workers != null) {
+            throw new IllegalStateException("Workers already configured");
+        }
+
+        workers = new WorkerPool(getClass().getSimpleName(), concurrency, maxQueue);
+
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            mbs.registerMBean(new WorkerPoolMBean(workers), new ObjectName("com.jetdrone.yoke:type=WorkerPool@" + hashCode() + ",engine=" + getClass().getSimpleName()));
+        } catch (MalformedObjectNameException | InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException e) {
+            throw new RuntimeException(e);
+        }
+
+        return this;
+    }
+
     @Override
     public void setVertx(Vertx vertx) {
+        this.vertx = vertx;
         final FileSystem fs = vertx.fileSystem();
 
         templateResolver.setResourceResolver(new IResourceResolver() {
@@ -141,6 +174,24 @@ public class ThymeleafEngine implements Engine {
 
     @Override
     public void render(final String filename, final Map<String, Object> context, final Handler<AsyncResult<Buffer>> next) {
+        if (workers != null) {
+            workers.execute(vertx, new Callable<Buffer>() {
+                @Override
+                public Buffer call() throws Exception {
+                    return process(filename, context);
+                }
+            }, next);
+            return;
+        }
+
+        try {
+            next.handle(new YokeAsyncResult<>(process(filename, context)));
+        } catch (Exception ex) {
+            next.handle(new YokeAsyncResult<Buffer>(ex));
+        }
+    }
+
+    private Buffer process(final String filename, final Map<String, Object> context) {
 
         final Buffer buffer = new Buffer();
 
@@ -158,10 +209,10 @@ public class ThymeleafEngine implements Engine {
                 public void close() throws IOException {}
             });
 
-            next.handle(new YokeAsyncResult<>(buffer));
-        } catch (Exception ex) {
+            return buffer;
+        } catch (RuntimeException ex) {
             ex.printStackTrace();
-            next.handle(new YokeAsyncResult<Buffer>(ex));
+            throw ex;
         }
     }
 
@@ -0,0 +1,91 @@
+package com.jetdrone.vertx.bench;
+
+import com.jetdrone.vertx.yoke.Middleware;
+import com.jetdrone.vertx.yoke.Yoke;
+import com.jetdrone.vertx.yoke.middleware.Router;
+import com.jetdrone.vertx.yoke.middleware.YokeRequest;
+import com.jetdrone.vertx.yoke.test.Response;
+import com.jetdrone.vertx.yoke.test.YokeTester;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.java.platform.Verticle;
+
+/**
+ * Compares the default Router dispatch (every route middleware and param processor is scheduled with runOnContext)
+ * against the synchronous fast path enabled with Router.syncDepth. Requests are sent through the YokeTester fake server
+ * so no network client is needed:
+ *
+ *     vertx run com.jetdrone.vertx.bench.RouterModeBench -cp target/classes -conf '{"requests": 200000}'
+ */
+public class RouterModeBench extends Verticle {
+
+    private static final int WARMUP = 20000;
+
+    @Override
+    public void start() {
+        final int requests = container.config().getInteger("requests", 100000);
+
+        run("runOnContext", 0, WARMUP, new Handler<Void>() {
+            @Override
+            public void handle(Void event) {
+                run("syncDepth(8)", 8, WARMUP, new Handler<Void>() {
+                    @Override
+                    public void handle(Void event) {
+                        run("runOnContext", 0, requests, new Handler<Void>() {
+                            @Override
+                            public void handle(Void event) {
+                                run("syncDepth(8)", 8, requests, new Handler<Void>() {
+                                    @Override
+                                    public void handle(Void event) {
+                                        container.exit();
+                                    }
+                                });
+                            }
+                        });
+                    }
+                });
+            }
+        });
+    }
+
+    private void run(final String name, final int syncDepth, final int requests, final Handler<Void> done) {
+
+        final Middleware passThrough = new Middleware() {
+            @Override
+            public void handle(YokeRequest request, Handler<Object> next) {
+                next.handle(null);
+            }
+        };
+
+        final Yoke yoke = new Yoke(this);
+
+        yoke.use(new Router()
+                .syncDepth(syncDepth)
+                .param("id", passThrough)
+                .param("item", passThrough)
+                .get("/api/:id/:item", passThrough, passThrough, new Middleware() {
+                    @Override
+                    public void handle(YokeRequest request, Handler<Object> next) {
+                        request.response().end(new JsonObject().putString("id", request.getParameter("id")));
+                    }
+                }));
+
+        final YokeTester tester = new YokeTester(yoke);
+        final long start = System.nanoTime();
+
+        new Handler<Response>() {
+            int count = 0;
+
+            @Override
+            public void handle(Response response) {
+                if (count++ < requests) {
+                    tester.request("GET", "/api/1/2", this);
+                } else {
+                    final long elapsed = System.nanoTime() - start;
+                    container.logger().info(String.format("%-14s %8d requests in %6d ms (%.0f req/s)", name, requests, elapsed / 1000000, requests * 1e9 / elapsed));
+                    done.handle(null);
+                }
+            }
+        }.handle(null);
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke;
+
+import com.jetdrone.vertx.yoke.middleware.ResponseWriter;
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+
+import java.util.Map;
+
+/**
+ * # StreamingEngine
+ *
+ * Optional contract for engines that can write their output while rendering instead of producing a complete Buffer.
+ * When the engine registered for a template implements it, ```YokeResponse.render``` passes a writer backed by the
+ * response. Small outputs are still sent with a content length, larger ones are sent chunked as soon as they are
+ * produced so the first byte does not wait for the whole page.
+ */
+public interface StreamingEngine extends Engine {
+
+    /**
+     * Renders the template into the writer. The writer must be used from the calling context, engines rendering on
+     * other threads must hand the output back to it (see ```AbstractEngineSync```). The handler is called once the
+     * whole template was written or on error, the response is then completed by Yoke.
+     *
+     * @param filename String representing the file path to the template
+     * @param context  Map with key values that might get substituted in the template
+     * @param writer   The response writer
+     * @param handler  Completion handler
+     */
+    void render(final String filename, final Map<String, Object> context, final ResponseWriter writer, final Handler<AsyncResult<Void>> handler);
+}
@@ -4,6 +4,7 @@
 package com.jetdrone.vertx.yoke;
 
 import com.jetdrone.vertx.yoke.core.Context;
+import com.jetdrone.vertx.yoke.core.LatencyStats;
 import com.jetdrone.vertx.yoke.core.MountedMiddleware;
 import com.jetdrone.vertx.yoke.core.RequestWrapper;
 import com.jetdrone.vertx.yoke.core.impl.DefaultRequestWrapper;
@@ -206,6 +207,11 @@ public class Yoke {
      */
     private final List<MountedMiddleware> middlewareList = new ArrayList<>();
 
+    /**
+     * Frozen copy of the middleware list used to dispatch requests, rebuilt lazily when the list changes
+     */
+    private Chain chain;
+
     /**
      * Special middleware used for error handling
      */
@@ -236,6 +242,7 @@ public class Yoke {
                 } else {
                     MountedMiddleware mm = new MountedMiddleware(route, m);
                     middlewareList.add(mm);
+                    chain = null;
 
                     // register on JMX
                     try {
@@ -250,6 +257,7 @@ public class Yoke {
             } else {
                 MountedMiddleware mm = new MountedMiddleware(route, m);
                 middlewareList.add(mm);
+                chain = null;
 
                 // register on JMX
                 try {
@@ -298,6 +306,7 @@ public class Yoke {
                 handler.handle(request);
             }
         }));
+        chain = null;
         return this;
     }
 
@@ -493,6 +502,8 @@ public class Yoke {
     public Yoke listen(final @NotNull HttpServer server) {
         // is this server HTTPS?
         final boolean secure = server.isSSL();
+        // freeze the middleware chain before the first request arrives
+        chain();
 
         server.requestHandler(new Handler<HttpServerRequest>() {
             @Override
@@ -506,76 +517,164 @@ public class Yoke {
                     request.response().putHeader("x-powered-by", "yoke");
                 }
 
-                new Handler<Object>() {
-                    int currentMiddleware = -1;
-
-                    @Override
-                    public void handle(Object error) {
-                        if (error == null) {
-                            currentMiddleware++;
-                            if (currentMiddleware < middlewareList.size()) {
-                                final MountedMiddleware mountedMiddleware = middlewareList.get(currentMiddleware);
-
-                                if (!mountedMiddleware.enabled) {
-                                    // the middleware is disabled
-                                    handle(null);
-                                } else {
-                                    if (request.path().startsWith(mountedMiddleware.mount)) {
-                                        mountedMiddleware.middleware.handle(request, this);
-                                    } else {
-                                        // the middleware was not mounted on this uri, skip to the next entry
-                                        handle(null);
-                                    }
-                                }
-                            } else {
-                                HttpServerResponse response = request.response();
-                                // reached the end and no handler was able to answer the request
-                                response.setStatusCode(404);
-                                response.setStatusMessage(HttpResponseStatus.valueOf(404).reasonPhrase());
-                                if (errorHandler != null) {
-                                    errorHandler.handle(request, null);
-                                } else {
-                                    response.end(HttpResponseStatus.valueOf(404).reasonPhrase());
-                                }
-                            }
+                new Dispatcher(request, chain()).handle(null);
+            }
+        });
+        return this;
+    }
+
+    private Chain chain() {
+        if (chain == null) {
+            chain = new Chain(middlewareList);
+        }
+        return chain;
+    }
+
+    /**
+     * Array based snapshot of the middleware list. Mount points are deduplicated so that the prefix check for a group
+     * of middleware sharing the same mount is only performed once per request.
+     */
+    private static final class Chain {
+        private final MountedMiddleware[] middleware;
+        private final String[] mounts;
+        private final int[] mountIndex;
+
+        private Chain(List<MountedMiddleware> middlewareList) {
+            middleware = middlewareList.toArray(new MountedMiddleware[middlewareList.size()]);
+            mountIndex = new int[middleware.length];
+
+            final List<String> distinct = new ArrayList<>();
+
+            for (int i = 0; i < middleware.length; i++) {
+                int idx = distinct.indexOf(middleware[i].mount);
+                if (idx == -1) {
+                    idx = distinct.size();
+                    distinct.add(middleware[i].mount);
+                }
+                mountIndex[i] = idx;
+            }
+
+            mounts = distinct.toArray(new String[distinct.size()]);
+        }
+    }
+
+    /**
+     * Per request cursor over the middleware chain, it is also the next handler passed to every middleware. Skipped
+     * entries (disabled or not mounted on the request path) are iterated over instead of recursing.
+     */
+    private final class Dispatcher implements Handler<Object>, LatencyStats.Probe {
+
+        private final YokeRequest request;
+        private final Chain chain;
+        private int currentMiddleware = -1;
+
+        // memoized prefix checks for the first 64 mount points
+        private long checkedMounts;
+        private long matchedMounts;
+
+        // middleware currently being timed and when it was called
+        private MountedMiddleware running;
+        private long started;
+
+        private Dispatcher(final YokeRequest request, Chain chain) {
+            this.request = request;
+            this.chain = chain;
+
+            // a middleware that answers the request without calling next is timed until the response ends
+            request.response().latencyProbe(this);
+        }
+
+        @Override
+        public void ended(boolean error) {
+            complete(error);
+        }
+
+        private void complete(boolean error) {
+            if (running != null) {
+                running.stats.record(System.nanoTime() - started, error);
+                running = null;
+            }
+        }
+
+        private boolean isMounted(int idx) {
+            if (idx >= 64) {
+                return request.path().startsWith(chain.mounts[idx]);
+            }
+
+            final long bit = 1L << idx;
+
+            if ((checkedMounts & bit) == 0) {
+                checkedMounts |= bit;
+                if (request.path().startsWith(chain.mounts[idx])) {
+                    matchedMounts |= bit;
+                }
+            }
+
+            return (matchedMounts & bit) != 0;
+        }
+
+        @Override
+        public void handle(Object error) {
+            complete(error != null);
+
+            if (error == null) {
+                final MountedMiddleware[] middleware = chain.middleware;
+
+                while (++currentMiddleware < middleware.length) {
+                    final MountedMiddleware mountedMiddleware = middleware[currentMiddleware];
+
+                    // skip disabled middleware and middleware not mounted on this uri
+                    if (mountedMiddleware.enabled && isMounted(chain.mountIndex[currentMiddleware])) {
+                        running = mountedMiddleware;
+                        started = System.nanoTime();
+                        mountedMiddleware.middleware.handle(request, this);
+                        return;
+                    }
+                }
+
+                HttpServerResponse response = request.response();
+                // reached the end and no handler was able to answer the request
+                response.setStatusCode(404);
+                response.setStatusMessage(HttpResponseStatus.valueOf(404).reasonPhrase());
+                if (errorHandler != null) {
+                    errorHandler.handle(request, null);
+                } else {
+                    response.end(HttpResponseStatus.valueOf(404).reasonPhrase());
+                }
+            } else {
+                request.put("error", error);
+                if (errorHandler != null) {
+                    errorHandler.handle(request, null);
+                } else {
+                    HttpServerResponse response = request.response();
+
+                    int errorCode;
+                    // if the error was set on the response use it
+                    if (response.getStatusCode() >= 400) {
+                        errorCode = response.getStatusCode();
+                    } else {
+                        // if it was set as the error object use it
+                        if (error instanceof Number) {
+                            errorCode = ((Number) error).intValue();
+                        } else if (error instanceof YokeException) {
+                            errorCode = ((YokeException) error).getErrorCode().intValue();
+                        } else if (error instanceof JsonObject) {
+                            errorCode = ((JsonObject) error).getInteger("errorCode", 500);
+                        } else if (error instanceof Map) {
+                            Integer tmp = (Integer) ((Map) error).get("errorCode");
+                            errorCode = tmp != null ? tmp : 500;
                         } else {
-                            request.put("error", error);
-                            if (errorHandler != null) {
-                                errorHandler.handle(request, null);
-                            } else {
-                                HttpServerResponse response = request.response();
-
-                                int errorCode;
-                                // if the error was set on the response use it
-                                if (response.getStatusCode() >= 400) {
-                                    errorCode = response.getStatusCode();
-                                } else {
-                                    // if it was set as the error object use it
-                                    if (error instanceof Number) {
-                                        errorCode = ((Number) error).intValue();
-                                    } else if (error instanceof YokeException) {
-                                        errorCode = ((YokeException) error).getErrorCode().intValue();
-                                    } else if (error instanceof JsonObject) {
-                                        errorCode = ((JsonObject) error).getInteger("errorCode", 500);
-                                    } else if (error instanceof Map) {
-                                        Integer tmp = (Integer) ((Map) error).get("errorCode");
-                                        errorCode = tmp != null ? tmp : 500;
-                                    } else {
-                                        // default error code
-                                        errorCode = 500;
-                                    }
-                                }
-
-                                response.setStatusCode(errorCode);
-                                response.setStatusMessage(HttpResponseStatus.valueOf(errorCode).reasonPhrase());
-                                response.end(HttpResponseStatus.valueOf(errorCode).reasonPhrase());
-                            }
+                            // default error code
+                            errorCode = 500;
                         }
                     }
-                }.handle(null);
+
+                    response.setStatusCode(errorCode);
+                    response.setStatusMessage(HttpResponseStatus.valueOf(errorCode).reasonPhrase());
+                    response.end(HttpResponseStatus.valueOf(errorCode).reasonPhrase());
+                }
             }
-        });
-        return this;
+        }
     }
 
     /**
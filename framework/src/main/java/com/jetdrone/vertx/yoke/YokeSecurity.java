@@ -1,5 +1,7 @@
 package com.jetdrone.vertx.yoke;
 
+import com.jetdrone.vertx.yoke.security.MacPool;
+import com.jetdrone.vertx.yoke.security.SignaturePool;
 import com.jetdrone.vertx.yoke.util.Utils;
 import org.jetbrains.annotations.NotNull;
 
@@ -20,6 +22,24 @@ public abstract class YokeSecurity {
 
     public abstract Signature getSignature(final @NotNull String alias);
 
+    /**
+     * Creates a Mac that can be shared by all threads without locking
+     * @param alias algorithm to use e.g.: HmacSHA256
+     * @return per thread Mac instances
+     */
+    public MacPool getMacPool(final @NotNull String alias) {
+        return new MacPool(getMac(alias));
+    }
+
+    /**
+     * Creates a Signature that can be shared by all threads
+     * @param alias algorithm or key alias
+     * @return per thread Signature instances
+     */
+    public SignaturePool getSignaturePool(final @NotNull String alias) {
+        return new SignaturePool(getSignature(alias));
+    }
+
     /**
      * Creates a new Crypto KEY
      * @return Key implementation
@@ -47,6 +67,13 @@ public abstract class YokeSecurity {
         return val + "." + Utils.base64(mac.doFinal(val.getBytes()));
     }
 
+    /**
+     * Signs a String value with a given MAC pool
+     */
+    public static String sign(@NotNull String val, @NotNull MacPool mac) {
+        return val + "." + Utils.base64(mac.doFinal(val.getBytes()));
+    }
+
     /**
      * Returns the original value is the signature is correct. Null otherwise.
      */
@@ -58,7 +85,25 @@ public abstract class YokeSecurity {
         }
 
         String str = val.substring(0, idx);
-        if (val.equals(sign(str, mac))) {
+        if (MessageDigest.isEqual(val.getBytes(), sign(str, mac).getBytes())) {
+            return str;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the original value is the signature is correct. Null otherwise.
+     */
+    public static String unsign(@NotNull String val, @NotNull MacPool mac) {
+        int idx = val.lastIndexOf('.');
+
+        if (idx == -1) {
+            return null;
+        }
+
+        String str = val.substring(0, idx);
+        // constant time so the time taken does not reveal how much of the signature was right
+        if (MessageDigest.isEqual(val.getBytes(), sign(str, mac).getBytes())) {
             return str;
         }
         return null;
@@ -0,0 +1,37 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.core;
+
+/**
+ * # CacheStats
+ *
+ * Counters shared by the caches, exposed on JMX by ```CacheMBean```.
+ */
+public interface CacheStats {
+
+    /**
+     * @return number of cached entries
+     */
+    int size();
+
+    /**
+     * @return number of lookups that found an entry
+     */
+    long hits();
+
+    /**
+     * @return number of lookups that found no entry
+     */
+    long misses();
+
+    /**
+     * @return number of entries dropped to make room
+     */
+    long evictions();
+
+    /**
+     * Drops all cached entries.
+     */
+    void clear();
+}
@@ -0,0 +1,191 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.core;
+
+import com.jetdrone.vertx.yoke.core.impl.ConcurrentLRUCache;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.file.FileProps;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * # FileCache
+ *
+ * Bounded LRU cache of file metadata used by the Static middleware. Entries expire after a fixed time to live so
+ * changes on disk are picked up, missing files are cached as well so requests that fall through to the next middleware
+ * do not hit the file system either.
+ *
+ * Files smaller than a configured size also keep their content in an off heap buffer, so they can be sent without any
+ * file system access.
+ */
+public final class FileCache implements CacheStats {
+
+    // marks a variant that does not exist
+    private static final Object ABSENT = new Object();
+
+    public static final class Entry {
+        /**
+         * file properties, null if the file does not exist
+         */
+        public final FileProps props;
+        public final String etag;
+        public final String lastModified;
+
+        private final ByteBuf content;
+        private final long expires;
+
+        // precompressed siblings (.br, .gz), null until looked up, ABSENT when there is none
+        private volatile Object br;
+        private volatile Object gz;
+
+        private Entry(FileProps props, String etag, String lastModified, ByteBuf content, long expires) {
+            this.props = props;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.content = content;
+            this.expires = expires;
+        }
+
+        public boolean exists() {
+            return props != null;
+        }
+
+        /**
+         * @param encoding "br" or "gzip"
+         * @return true if the precompressed variant was already looked up
+         */
+        public boolean knowsVariant(@NotNull final String encoding) {
+            return ("br".equals(encoding) ? br : gz) != null;
+        }
+
+        /**
+         * @param encoding "br" or "gzip"
+         * @return the properties of the precompressed variant, null if there is none or it was not looked up yet
+         */
+        public FileProps variant(@NotNull final String encoding) {
+            final Object props = "br".equals(encoding) ? br : gz;
+            return props instanceof FileProps ? (FileProps) props : null;
+        }
+
+        /**
+         * Remembers the precompressed variant of the file, until the entry expires.
+         *
+         * @param encoding "br" or "gzip"
+         * @param props    the variant properties, null if there is none
+         */
+        public void variant(@NotNull final String encoding, @Nullable final FileProps props) {
+            final Object value = props == null ? ABSENT : props;
+            if ("br".equals(encoding)) {
+                br = value;
+            } else {
+                gz = value;
+            }
+        }
+
+        /**
+         * @return the file content or null if the file is not kept in memory
+         */
+        public Buffer content() {
+            // each response gets its own indexes over the shared memory
+            return content == null ? null : new Buffer(content.duplicate());
+        }
+    }
+
+    private final long ttl;
+    private final long maxFileSize;
+
+    private final ConcurrentLRUCache<String, Entry> entries;
+
+    // expired entries count as misses, so hits and misses are not taken from the underlying cache
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    /**
+     * @param ttl         time in milliseconds an entry is trusted before looking again at the file system
+     * @param maxEntries  maximum number of entries
+     * @param maxFileSize files up to this size (in bytes) are kept in memory, 0 disables content caching
+     */
+    public FileCache(final long ttl, final int maxEntries, final long maxFileSize) {
+        this.ttl = ttl;
+        this.maxFileSize = maxFileSize;
+        this.entries = new ConcurrentLRUCache<>(maxEntries);
+    }
+
+    /**
+     * Returns a fresh entry, expired entries are removed.
+     */
+    public Entry get(@NotNull final String path) {
+        final Entry entry = entries.get(path);
+
+        if (entry != null && entry.expires < System.currentTimeMillis()) {
+            if (entries.remove(path, entry)) {
+                expirations.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+
+        if (entry == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+
+        return entry;
+    }
+
+    /**
+     * @return true if the content of a file with these properties would be kept in memory
+     */
+    public boolean holdsContent(@NotNull final FileProps props) {
+        return props.isRegularFile() && props.size() <= maxFileSize;
+    }
+
+    public Entry put(@NotNull final String path, @Nullable final FileProps props, @Nullable final String etag, @Nullable final String lastModified, @Nullable final Buffer content) {
+        ByteBuf data = null;
+
+        if (content != null) {
+            final ByteBuf direct = Unpooled.directBuffer(content.length(), content.length());
+            direct.writeBytes(content.getByteBuf());
+            // the buffer outlives the responses that write it, so netty must not release it
+            data = Unpooled.unreleasableBuffer(direct);
+        }
+
+        final Entry entry = new Entry(props, etag, lastModified, data, System.currentTimeMillis() + ttl);
+
+        entries.put(path, entry);
+
+        return entry;
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public long hits() {
+        return hits.get();
+    }
+
+    @Override
+    public long misses() {
+        return misses.get();
+    }
+
+    @Override
+    public long evictions() {
+        return entries.evictions() + expirations.get();
+    }
+}
@@ -159,4 +159,45 @@ public final class JSON {
             throw new DecodeException(e.getMessage());
         }
     }
+
+    @SuppressWarnings("unchecked")
+    public static <R> R decode(byte[] source) {
+        if (source == null) {
+            return null;
+        }
+
+        try {
+            // Untyped List/Map
+            return (R) MAPPER.readValue(source, Object.class);
+        } catch (IOException | RuntimeException e) {
+            throw new DecodeException(e.getMessage());
+        }
+    }
+
+    public static <R> R decode(byte[] source, Class<R> clazz) {
+        if (source == null) {
+            return null;
+        }
+
+        try {
+            return MAPPER.readValue(source, clazz);
+        } catch (IOException | RuntimeException e) {
+            throw new DecodeException(e.getMessage());
+        }
+    }
+
+    /**
+     * Binds an already decoded List/Map structure to a type without going through a String.
+     */
+    public static <R> R convert(Object source, Class<R> clazz) {
+        if (source == null) {
+            return null;
+        }
+
+        try {
+            return MAPPER.convertValue(source, clazz);
+        } catch (IllegalArgumentException e) {
+            throw new DecodeException(e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * # LatencyStats
+ *
+ * Invocation and error counters plus a latency histogram for a middleware or a route.
+ *
+ * Counters are striped per thread so event loops do not contend on the same cache line. The histogram uses log-linear
+ * buckets (16 linear sub buckets per power of two) in the same spirit as HdrHistogram, which keeps the error of any
+ * reported percentile under 7% with a fixed memory footprint. Values are recorded in nanoseconds and capped to about
+ * 18 minutes.
+ */
+public final class LatencyStats {
+
+    /**
+     * Notified when the response ends, so a middleware or route that answers the request without calling next is
+     * timed until then. The response holds a single probe so the dispatch path registers no extra handler.
+     */
+    public interface Probe {
+        void ended(boolean error);
+    }
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // largest recorded exponent, 2^40 ns ~ 18 minutes
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    // each stripe takes a full cache line (8 longs), slot 0 counts invocations, slot 1 counts errors
+    private static final int PADDING = 8;
+    private static final int STRIPES = stripes();
+
+    private final AtomicLongArray counters = new AtomicLongArray(STRIPES * PADDING);
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    private static int stripes() {
+        int n = 1;
+        while (n < Runtime.getRuntime().availableProcessors()) {
+            n <<= 1;
+        }
+        return n;
+    }
+
+    /**
+     * Records one invocation.
+     *
+     * @param nanos elapsed time in nanoseconds
+     * @param error true if the invocation ended with an error
+     */
+    public void record(long nanos, boolean error) {
+        final long value = nanos < 0 ? 0 : (nanos > MAX_VALUE ? MAX_VALUE : nanos);
+        final int stripe = ((int) Thread.currentThread().getId() & (STRIPES - 1)) * PADDING;
+
+        counters.incrementAndGet(stripe);
+        if (error) {
+            counters.incrementAndGet(stripe + 1);
+        }
+
+        buckets.incrementAndGet(bucketOf(value));
+
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public long invocations() {
+        return sum(0);
+    }
+
+    public long errors() {
+        return sum(1);
+    }
+
+    /**
+     * Maximum recorded value in nanoseconds.
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Value at the given percentile in nanoseconds, reported as the upper bound of the bucket it falls in.
+     *
+     * @param percentile a value between 0 and 100
+     */
+    public long percentile(double percentile) {
+        final long[] snapshot = new long[BUCKETS];
+        long total = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                // never report more than what was actually observed
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+
+        return max.get();
+    }
+
+    /**
+     * Clears all counters and the histogram.
+     */
+    public void reset() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        max.set(0);
+    }
+
+    private long sum(int slot) {
+        long total = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            total += counters.get(i * PADDING + slot);
+        }
+        return total;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long mantissa = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
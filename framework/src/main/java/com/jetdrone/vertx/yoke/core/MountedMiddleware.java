@@ -10,6 +10,7 @@ public final class MountedMiddleware {
     public final String mount;
     public final IMiddleware middleware;
     public boolean enabled = true;
+    public final LatencyStats stats = new LatencyStats();
 
     /**
      * Constructs a new Mounted Middleware
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Context;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * # WorkerPool
+ *
+ * Bounded pool of threads to run blocking tasks (such as synchronous template rendering) away from the event loop.
+ * The result is delivered back on the Vert.x context that submitted the task. At most ```concurrency``` tasks run at
+ * the same time and at most ```maxQueue``` wait (0 for no waiting at all), further tasks fail straight away with a 503
+ * error.
+ *
+ * Execution times and failures are recorded in a LatencyStats instance.
+ */
+public final class WorkerPool {
+
+    private final ThreadPoolExecutor executor;
+    private final int concurrency;
+
+    private final AtomicLong rejected = new AtomicLong();
+    public final LatencyStats stats = new LatencyStats();
+
+    public WorkerPool(@NotNull final String name, final int concurrency, final int maxQueue) {
+        this.concurrency = concurrency;
+
+        executor = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS,
+                maxQueue > 0 ? new LinkedBlockingQueue<Runnable>(maxQueue) : new SynchronousQueue<Runnable>(), new ThreadFactory() {
+
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(@NotNull Runnable r) {
+                final Thread thread = new Thread(r, "yoke-" + name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        // idle threads do not need to be kept around
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs the task on the pool, the handler is called on the context of the caller.
+     *
+     * @param vertx   Vertx instance used to find the calling context
+     * @param task    blocking task
+     * @param handler result handler
+     */
+    public <T> void execute(@NotNull final Vertx vertx, @NotNull final Callable<T> task, @NotNull final Handler<AsyncResult<T>> handler) {
+        final Context context = vertx.currentContext();
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final long start = System.nanoTime();
+                    AsyncResult<T> result;
+
+                    try {
+                        result = new YokeAsyncResult<T>(task.call());
+                    } catch (Throwable t) {
+                        // errors such as StackOverflowError must reach the caller too, otherwise it waits forever
+                        result = new YokeAsyncResult<T>(t);
+                    }
+
+                    stats.record(System.nanoTime() - start, result.failed());
+                    complete(context, handler, result);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            handler.handle(new YokeAsyncResult<T>(new YokeException(503, "Worker pool queue is full", e)));
+        }
+    }
+
+    private static <T> void complete(final Context context, final Handler<AsyncResult<T>> handler, final AsyncResult<T> result) {
+        if (context == null) {
+            handler.handle(result);
+        } else {
+            context.runOnContext(new Handler<Void>() {
+                @Override
+                public void handle(Void event) {
+                    handler.handle(result);
+                }
+            });
+        }
+    }
+
+    public int concurrency() {
+        return concurrency;
+    }
+
+    /**
+     * @return number of tasks waiting for a thread
+     */
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return number of tasks being executed
+     */
+    public int active() {
+        return executor.getActiveCount();
+    }
+
+    public long completed() {
+        return executor.getCompletedTaskCount();
+    }
+
+    /**
+     * @return number of tasks refused because the queue was full
+     */
+    public long rejected() {
+        return rejected.get();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
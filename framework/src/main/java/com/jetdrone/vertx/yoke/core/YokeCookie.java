@@ -4,6 +4,7 @@
 package com.jetdrone.vertx.yoke.core;
 
 import com.jetdrone.vertx.yoke.YokeSecurity;
+import com.jetdrone.vertx.yoke.security.MacPool;
 import io.netty.handler.codec.http.Cookie;
 import io.netty.handler.codec.http.DefaultCookie;
 import org.jetbrains.annotations.NotNull;
@@ -17,11 +18,15 @@ import java.util.Set;
 public class YokeCookie implements Cookie {
 
     private final Cookie nettyCookie;
-    private final Mac mac;
+    private final MacPool mac;
     private String value;
     private boolean signed;
 
     public YokeCookie(@NotNull final Cookie nettyCookie, final Mac mac) {
+        this(nettyCookie, mac == null ? null : new MacPool(mac));
+    }
+
+    public YokeCookie(@NotNull final Cookie nettyCookie, final MacPool mac) {
         this.nettyCookie = nettyCookie;
         this.mac = mac;
 
@@ -44,8 +49,12 @@ public class YokeCookie implements Cookie {
         this(new DefaultCookie(name, ""), mac);
     }
 
+    public YokeCookie(@NotNull final String name, final MacPool mac) {
+        this(new DefaultCookie(name, ""), mac);
+    }
+
     public YokeCookie(@NotNull final String name, @NotNull final String value) {
-        this(new DefaultCookie(name, value), null);
+        this(new DefaultCookie(name, value), (MacPool) null);
     }
 
     // extensions
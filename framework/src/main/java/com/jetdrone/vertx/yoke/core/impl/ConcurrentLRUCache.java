@@ -0,0 +1,307 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.core.impl;
+
+import com.jetdrone.vertx.yoke.core.CacheStats;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * # ConcurrentLRUCache
+ *
+ * Thread safe LRU cache split in lock striped segments. Each key hashes to one segment, an access ordered map guarded
+ * by its own lock, so threads working on different keys rarely contend. Eviction is approximate: each segment evicts
+ * its own least recently used entries once it goes over its share of the capacity.
+ *
+ * Capacity is either a number of entries or, when a ```Weigher``` is given, a total weight (for example bytes). Hits,
+ * misses and evictions are counted per segment under the segment lock.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class ConcurrentLRUCache<K, V> implements CacheStats {
+
+    /**
+     * Computes the weight of a value, weights must not change while the value is in the cache.
+     */
+    public interface Weigher<V> {
+        int weigh(V value);
+    }
+
+    // smallest capacity a segment is given, small caches end up with a single segment and exact LRU order
+    private static final int MIN_SEGMENT_CAPACITY = 32;
+    private static final int MAX_SEGMENTS = 64;
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1l;
+
+        private final long capacity;
+
+        long weight;
+        long hits;
+        long misses;
+        long evictions;
+
+        Segment(long capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+    }
+
+    private final Segment<K, V>[] segments;
+    private final int mask;
+    private final Weigher<V> weigher;
+
+    /**
+     * @param maxEntries maximum number of entries
+     */
+    public ConcurrentLRUCache(final int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    /**
+     * @param maxWeight maximum total weight, or number of entries when no weigher is given
+     * @param weigher   value weigher, null counts each entry as 1
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLRUCache(final long maxWeight, final Weigher<V> weigher) {
+        final int concurrency = Runtime.getRuntime().availableProcessors() * 2;
+
+        int n = 1;
+        while (n < concurrency && n < MAX_SEGMENTS && maxWeight / (n * 2) >= MIN_SEGMENT_CAPACITY) {
+            n <<= 1;
+        }
+
+        this.segments = new Segment[n];
+        this.mask = n - 1;
+        this.weigher = weigher;
+
+        for (int i = 0; i < n; i++) {
+            // spread the remainder so the total capacity is exactly maxWeight
+            segments[i] = new Segment<>(maxWeight / n + (i < maxWeight % n ? 1 : 0));
+        }
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        int h = key.hashCode();
+        // spread the hash so keys that only differ on the high bits do not end on the same segment
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return segments[h & mask];
+    }
+
+    private long weigh(V value) {
+        return weigher == null ? 1 : weigher.weigh(value);
+    }
+
+    public V get(K key) {
+        final Segment<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            final V value = segment.get(key);
+            if (value == null) {
+                segment.misses++;
+            } else {
+                segment.hits++;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Adds or replaces an entry, evicting the least recently used entries of the segment if needed.
+     *
+     * @return the previous value or null
+     */
+    public V put(K key, V value) {
+        final Segment<K, V> segment = segmentFor(key);
+        final long weight = weigh(value);
+
+        synchronized (segment) {
+            return insert(segment, key, value, weight);
+        }
+    }
+
+    /**
+     * Adds an entry only if the key is not mapped yet.
+     *
+     * @return the current value, or null if the entry was added
+     */
+    public V putIfAbsent(K key, V value) {
+        final Segment<K, V> segment = segmentFor(key);
+        final long weight = weigh(value);
+
+        synchronized (segment) {
+            final V current = segment.get(key);
+            if (current != null) {
+                return current;
+            }
+            return insert(segment, key, value, weight);
+        }
+    }
+
+    // must hold the segment lock
+    private V insert(Segment<K, V> segment, K key, V value, long weight) {
+        final V previous = segment.put(key, value);
+        if (previous != null) {
+            segment.weight -= weigh(previous);
+        }
+        segment.weight += weight;
+
+        final Iterator<Map.Entry<K, V>> it = segment.entrySet().iterator();
+        // the new entry is the most recent one, it is only evicted if it alone exceeds the capacity
+        while (segment.weight > segment.capacity && it.hasNext()) {
+            final Map.Entry<K, V> eldest = it.next();
+            segment.weight -= weigh(eldest.getValue());
+            it.remove();
+            segment.evictions++;
+            evicted(eldest.getKey(), eldest.getValue());
+        }
+
+        return previous;
+    }
+
+    /**
+     * Called after an entry was evicted to make room, while holding the segment lock. Subclasses holding resources in
+     * the values release them here.
+     */
+    protected void evicted(K key, V value) {
+    }
+
+    public V remove(K key) {
+        final Segment<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            final V previous = segment.remove(key);
+            if (previous != null) {
+                segment.weight -= weigh(previous);
+            }
+            return previous;
+        }
+    }
+
+    /**
+     * Removes an entry only if it is still mapped to the given value.
+     *
+     * @return true if removed
+     */
+    public boolean remove(K key, V value) {
+        final Segment<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            if (segment.get(key) == value) {
+                segment.remove(key);
+                segment.weight -= weigh(value);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Replaces an entry only if it is still mapped to the expected (non null) value, the weight is updated but nothing
+     * is evicted.
+     *
+     * @return true if replaced
+     */
+    public boolean replace(K key, V expected, V value) {
+        final Segment<K, V> segment = segmentFor(key);
+        final long weight = weigh(value);
+
+        synchronized (segment) {
+            if (segment.get(key) != expected) {
+                return false;
+            }
+            segment.put(key, value);
+            segment.weight += weight - weigh(expected);
+            return true;
+        }
+    }
+
+    /**
+     * @return a snapshot of the values, the access order is not changed
+     */
+    public List<V> values() {
+        final List<V> values = new ArrayList<>();
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                values.addAll(segment.values());
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+                segment.weight = 0;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the total weight, equal to size when there is no weigher
+     */
+    public long weight() {
+        long weight = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    @Override
+    public long hits() {
+        long hits = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                hits += segment.hits;
+            }
+        }
+        return hits;
+    }
+
+    @Override
+    public long misses() {
+        long misses = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                misses += segment.misses;
+            }
+        }
+        return misses;
+    }
+
+    @Override
+    public long evictions() {
+        long evictions = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                evictions += segment.evictions;
+            }
+        }
+        return evictions;
+    }
+}
@@ -0,0 +1,529 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.core.impl;
+
+import io.netty.buffer.ByteBuf;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.json.DecodeException;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * # JSONStreamParser
+ *
+ * Push based JSON parser. Data is fed in chunks as it arrives from the network and the untyped Map/List tree is built
+ * as tokens complete, so the raw document never needs to be held in memory as a whole. The produced tree uses the
+ * same types as ```JSON.decode``` (LinkedHashMap, ArrayList, Integer/Long/BigInteger, Double, String, Boolean).
+ *
+ * When an element handler is given and the document is an array, each top level element is passed to the handler as
+ * soon as it is complete and is not retained by the parser.
+ *
+ * C style comments are accepted, the same as ```JSON.decode```.
+ */
+public final class JSONStreamParser {
+
+    private static final Pattern NUMBER = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+
+    // expecting a value
+    private static final int VALUE = 0;
+    // after [ expecting a value or ]
+    private static final int ARRAY_FIRST = 1;
+    // after { expecting a key or }
+    private static final int OBJECT_FIRST = 2;
+    // after , in an object
+    private static final int KEY = 3;
+    private static final int COLON = 4;
+    // after a value in a container expecting , or the closing token
+    private static final int AFTER_VALUE = 5;
+    // the top level value is complete
+    private static final int DONE = 6;
+    private static final int STRING = 7;
+    private static final int ESCAPE = 8;
+    private static final int UNICODE = 9;
+    private static final int NUMBER_TOKEN = 10;
+    private static final int LITERAL = 11;
+    private static final int COMMENT_START = 12;
+    private static final int LINE_COMMENT = 13;
+    private static final int BLOCK_COMMENT = 14;
+    private static final int BLOCK_COMMENT_STAR = 15;
+
+    private final Handler<Object> elementHandler;
+
+    // open containers and, for objects, the pending field name
+    private final List<Object> containers = new ArrayList<>();
+    private final List<String> keys = new ArrayList<>();
+
+    private int state = VALUE;
+    private int commentReturn;
+    private Object result;
+
+    // string token, kept as UTF-8 until complete so multi byte sequences may span chunks
+    private byte[] text = new byte[64];
+    private int textLength;
+    private boolean textIsKey;
+    private int unicode;
+    private int unicodeDigits;
+    private char highSurrogate;
+
+    private final StringBuilder number = new StringBuilder();
+
+    private String literal;
+    private Object literalValue;
+    private int literalPosition;
+
+    private long position;
+
+    public JSONStreamParser(@Nullable Handler<Object> elementHandler) {
+        this.elementHandler = elementHandler;
+    }
+
+    public JSONStreamParser() {
+        this(null);
+    }
+
+    /**
+     * Feeds the next chunk of the document.
+     *
+     * @throws DecodeException if the data is not valid JSON
+     */
+    public void feed(@NotNull Buffer buffer) {
+        final ByteBuf buf = buffer.getByteBuf();
+
+        if (buf.hasArray()) {
+            feed(buf.array(), buf.arrayOffset() + buf.readerIndex(), buf.readableBytes());
+        } else {
+            final byte[] bytes = buffer.getBytes();
+            feed(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Feeds the next chunk of the document.
+     *
+     * @throws DecodeException if the data is not valid JSON
+     */
+    public void feed(@NotNull byte[] b, int off, int len) {
+        final int end = off + len;
+        int i = off;
+
+        while (i < end) {
+            final int c = b[i] & 0xff;
+
+            switch (state) {
+                case STRING: {
+                    // copy the run of plain bytes at once
+                    int j = i;
+                    while (j < end) {
+                        final int d = b[j] & 0xff;
+                        if (d == '"' || d == '\\') {
+                            break;
+                        }
+                        if (d < 0x20) {
+                            throw error("Illegal control character in string");
+                        }
+                        j++;
+                    }
+                    append(b, i, j - i);
+                    if (j < end) {
+                        if (b[j] == '"') {
+                            endString();
+                        } else {
+                            state = ESCAPE;
+                        }
+                        j++;
+                    }
+                    position += j - i;
+                    i = j;
+                    continue;
+                }
+                case ESCAPE:
+                    escape(c);
+                    i++;
+                    position++;
+                    continue;
+                case UNICODE: {
+                    final int digit = Character.digit(c, 16);
+                    if (digit == -1) {
+                        throw error("Illegal unicode escape");
+                    }
+                    unicode = (unicode << 4) | digit;
+                    if (++unicodeDigits == 4) {
+                        append((char) unicode);
+                        state = STRING;
+                    }
+                    i++;
+                    position++;
+                    continue;
+                }
+                case NUMBER_TOKEN:
+                    if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                        number.append((char) c);
+                        i++;
+                        position++;
+                    } else {
+                        // the current byte belongs to the next token
+                        endNumber();
+                    }
+                    continue;
+                case LITERAL:
+                    if (c != literal.charAt(literalPosition)) {
+                        throw error("Unrecognized token");
+                    }
+                    if (++literalPosition == literal.length()) {
+                        value(literalValue);
+                    }
+                    i++;
+                    position++;
+                    continue;
+                case COMMENT_START:
+                    if (c == '/') {
+                        state = LINE_COMMENT;
+                    } else if (c == '*') {
+                        state = BLOCK_COMMENT;
+                    } else {
+                        throw error("Unexpected character '/'");
+                    }
+                    i++;
+                    position++;
+                    continue;
+                case LINE_COMMENT:
+                    if (c == '\n' || c == '\r') {
+                        state = commentReturn;
+                    }
+                    i++;
+                    position++;
+                    continue;
+                case BLOCK_COMMENT:
+                    if (c == '*') {
+                        state = BLOCK_COMMENT_STAR;
+                    }
+                    i++;
+                    position++;
+                    continue;
+                case BLOCK_COMMENT_STAR:
+                    if (c == '/') {
+                        state = commentReturn;
+                    } else if (c != '*') {
+                        state = BLOCK_COMMENT;
+                    }
+                    i++;
+                    position++;
+                    continue;
+                default:
+                    break;
+            }
+
+            // structural tokens
+            i++;
+            position++;
+
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                continue;
+            }
+
+            if (c == '/') {
+                commentReturn = state;
+                state = COMMENT_START;
+                continue;
+            }
+
+            switch (state) {
+                case ARRAY_FIRST:
+                    if (c == ']') {
+                        endContainer();
+                        break;
+                    }
+                    startValue(c);
+                    break;
+                case VALUE:
+                    startValue(c);
+                    break;
+                case OBJECT_FIRST:
+                    if (c == '}') {
+                        endContainer();
+                        break;
+                    }
+                    startKey(c);
+                    break;
+                case KEY:
+                    startKey(c);
+                    break;
+                case COLON:
+                    if (c != ':') {
+                        throw error("Expected ':'");
+                    }
+                    state = VALUE;
+                    break;
+                case AFTER_VALUE: {
+                    final boolean object = containers.get(containers.size() - 1) instanceof Map;
+                    if (c == ',') {
+                        state = object ? KEY : VALUE;
+                    } else if ((object && c == '}') || (!object && c == ']')) {
+                        endContainer();
+                    } else {
+                        throw error("Unexpected character '" + (char) c + "'");
+                    }
+                    break;
+                }
+                case DONE:
+                    throw error("Unexpected data after the end of the document");
+                default:
+                    throw error("Illegal parser state");
+            }
+        }
+    }
+
+    /**
+     * Signals the end of the document.
+     *
+     * @return the parsed document, when top level elements were streamed to the handler an empty list
+     * @throws DecodeException if the document is incomplete
+     */
+    public <R> R end() {
+        if (state == NUMBER_TOKEN) {
+            endNumber();
+        }
+
+        if (state == LINE_COMMENT && commentReturn == DONE) {
+            state = DONE;
+        }
+
+        if (state != DONE) {
+            throw error("Unexpected end of input");
+        }
+
+        return (R) result;
+    }
+
+    /**
+     * @return the number of bytes consumed so far
+     */
+    public long position() {
+        return position;
+    }
+
+    private void startKey(int c) {
+        if (c != '"') {
+            throw error("Expected a field name");
+        }
+        textIsKey = true;
+        textLength = 0;
+        state = STRING;
+    }
+
+    private void startValue(int c) {
+        switch (c) {
+            case '{':
+                containers.add(new LinkedHashMap<String, Object>());
+                keys.add(null);
+                state = OBJECT_FIRST;
+                break;
+            case '[':
+                containers.add(new ArrayList<>());
+                keys.add(null);
+                state = ARRAY_FIRST;
+                break;
+            case '"':
+                textIsKey = false;
+                textLength = 0;
+                state = STRING;
+                break;
+            case 't':
+                literal("true", Boolean.TRUE);
+                break;
+            case 'f':
+                literal("false", Boolean.FALSE);
+                break;
+            case 'n':
+                literal("null", null);
+                break;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    number.setLength(0);
+                    number.append((char) c);
+                    state = NUMBER_TOKEN;
+                } else {
+                    throw error("Unexpected character '" + (char) c + "'");
+                }
+        }
+    }
+
+    private void literal(String literal, Object value) {
+        this.literal = literal;
+        this.literalValue = value;
+        // the first character has been matched already
+        this.literalPosition = 1;
+        state = LITERAL;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void value(Object value) {
+        if (containers.isEmpty()) {
+            result = value;
+            state = DONE;
+            return;
+        }
+
+        final int top = containers.size() - 1;
+        final Object container = containers.get(top);
+
+        if (container instanceof Map) {
+            ((Map<String, Object>) container).put(keys.get(top), value);
+        } else if (top == 0 && elementHandler != null) {
+            elementHandler.handle(value);
+        } else {
+            ((List<Object>) container).add(value);
+        }
+
+        state = AFTER_VALUE;
+    }
+
+    private void endContainer() {
+        final int top = containers.size() - 1;
+        keys.remove(top);
+        value(containers.remove(top));
+    }
+
+    private void endString() {
+        if (highSurrogate != 0) {
+            // lone high surrogate
+            appendCodePoint(highSurrogate);
+            highSurrogate = 0;
+        }
+
+        final String s = new String(text, 0, textLength, StandardCharsets.UTF_8);
+
+        if (textIsKey) {
+            keys.set(keys.size() - 1, s);
+            state = COLON;
+        } else {
+            value(s);
+        }
+    }
+
+    private void endNumber() {
+        final String n = number.toString();
+
+        if (!NUMBER.matcher(n).matches()) {
+            throw error("Invalid number '" + n + "'");
+        }
+
+        if (n.indexOf('.') != -1 || n.indexOf('e') != -1 || n.indexOf('E') != -1) {
+            value(Double.parseDouble(n));
+        } else if (n.length() < 10) {
+            value(Integer.parseInt(n));
+        } else {
+            final BigInteger big = new BigInteger(n);
+            if (big.bitLength() < 32) {
+                value(big.intValue());
+            } else if (big.bitLength() < 64) {
+                value(big.longValue());
+            } else {
+                value(big);
+            }
+        }
+    }
+
+    private void escape(int c) {
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                append((char) c);
+                break;
+            case 'b':
+                append('\b');
+                break;
+            case 'f':
+                append('\f');
+                break;
+            case 'n':
+                append('\n');
+                break;
+            case 'r':
+                append('\r');
+                break;
+            case 't':
+                append('\t');
+                break;
+            case 'u':
+                unicode = 0;
+                unicodeDigits = 0;
+                state = UNICODE;
+                return;
+            default:
+                throw error("Unrecognized character escape '" + (char) c + "'");
+        }
+        state = STRING;
+    }
+
+    private void append(byte[] b, int off, int len) {
+        if (len == 0) {
+            return;
+        }
+        if (highSurrogate != 0) {
+            appendCodePoint(highSurrogate);
+            highSurrogate = 0;
+        }
+        ensureCapacity(len);
+        System.arraycopy(b, off, text, textLength, len);
+        textLength += len;
+    }
+
+    private void append(char c) {
+        if (highSurrogate != 0) {
+            final char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                appendCodePoint(Character.toCodePoint(high, c));
+                return;
+            }
+            appendCodePoint(high);
+        }
+
+        if (Character.isHighSurrogate(c)) {
+            // wait for the low surrogate
+            highSurrogate = c;
+            return;
+        }
+
+        appendCodePoint(c);
+    }
+
+    private void appendCodePoint(int cp) {
+        ensureCapacity(4);
+
+        if (cp < 0x80) {
+            text[textLength++] = (byte) cp;
+        } else if (cp < 0x800) {
+            text[textLength++] = (byte) (0xc0 | (cp >> 6));
+            text[textLength++] = (byte) (0x80 | (cp & 0x3f));
+        } else if (cp < 0x10000) {
+            text[textLength++] = (byte) (0xe0 | (cp >> 12));
+            text[textLength++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+            text[textLength++] = (byte) (0x80 | (cp & 0x3f));
+        } else {
+            text[textLength++] = (byte) (0xf0 | (cp >> 18));
+            text[textLength++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+            text[textLength++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+            text[textLength++] = (byte) (0x80 | (cp & 0x3f));
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (textLength + extra > text.length) {
+            text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + extra));
+        }
+    }
+
+    private DecodeException error(String message) {
+        return new DecodeException(message + " at byte " + position);
+    }
+}
@@ -4,17 +4,13 @@
 package com.jetdrone.vertx.yoke.core.impl;
 
 import java.util.Date;
-import java.util.LinkedHashMap;
-import java.util.Map;
 
 /**
- * Double entry LRUCache
+ * Double entry LRUCache, safe to share between event loops and worker threads.
  * @param <R> Raw value (raw value is immutable)
  * @param <C> Compiled value
  */
-public class LRUCache<R, C> extends LinkedHashMap<String, LRUCache.CacheEntry<R, C>> {
-
-    private static final long serialVersionUID = 1l;
+public class LRUCache<R, C> extends ConcurrentLRUCache<String, LRUCache.CacheEntry<R, C>> {
 
     /**
      * Generic cache entry.
@@ -23,7 +19,9 @@ public class LRUCache<R, C> extends LinkedHashMap<String, LRUCache.CacheEntry<R,
 
         public final long lastModified;
         public final R raw;
-        public C compiled;
+        public volatile C compiled;
+        // last time the entry was verified against the file system
+        public volatile long checked = System.currentTimeMillis();
 
         public CacheEntry(Date lastModified, R raw, C compiled) {
             this.lastModified = lastModified.getTime();
@@ -40,20 +38,15 @@ public class LRUCache<R, C> extends LinkedHashMap<String, LRUCache.CacheEntry<R,
         }
     }
 
-    private final int maxEntries;
-
     public LRUCache(final int maxEntries) {
-        super(maxEntries + 1, 1.0f, true);
-        this.maxEntries = maxEntries;
-    }
-
-    @Override
-    protected boolean removeEldestEntry(final Map.Entry<String, CacheEntry<R, C>> eldest) {
-        return super.size() > maxEntries;
+        super(maxEntries);
     }
 
     public void putCompiled(String key, C compiled) {
         CacheEntry<R, C> original = get(key);
-        original.compiled = compiled;
+        // the entry may have been evicted meanwhile, the template is then compiled again on next use
+        if (original != null) {
+            original.compiled = compiled;
+        }
     }
 }
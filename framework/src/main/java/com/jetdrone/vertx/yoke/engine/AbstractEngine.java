@@ -3,11 +3,13 @@
  */
 package com.jetdrone.vertx.yoke.engine;
 
-import com.jetdrone.vertx.yoke.Engine;
+import com.jetdrone.vertx.yoke.StreamingEngine;
 import com.jetdrone.vertx.yoke.core.impl.LRUCache;
 import com.jetdrone.vertx.yoke.core.YokeAsyncResult;
+import com.jetdrone.vertx.yoke.middleware.ResponseWriter;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.AsyncResultHandler;
+import org.vertx.java.core.Context;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.Vertx;
 import org.vertx.java.core.buffer.Buffer;
@@ -23,16 +25,135 @@ import java.util.Map;
  * Engine represents a Template Engine that can be registered with Yoke. Any template engine just needs to
  * extend this abstract class. The class provides access to the Vertx object so the engine might do I/O
  * operations in the context of the module.
+ *
+ * By default every template read is verified against the file system. ```checkInterval``` and ```watch``` reduce those
+ * checks and ```production``` loads all templates once, when the engine is registered with Yoke.
+ *
+ * Engines that can only render to a Buffer get a streaming adapter that writes the whole output at once, engines able
+ * to write while rendering should override the streaming ```render```.
  */
-public abstract class AbstractEngine<T> implements Engine {
+public abstract class AbstractEngine<T> implements StreamingEngine {
 
     protected Vertx vertx;
 
+    // thread safe, engines may be shared by verticles running on different event loops
     private final LRUCache<String, T> cache = new LRUCache<>(1024);
 
+    private final TemplateCachePolicy policy = new TemplateCachePolicy(getClass().getSimpleName());
+
     @Override
-    public void setVertx(Vertx vertx) {
+    public void setVertx(final Vertx vertx) {
         this.vertx = vertx;
+
+        final Context context = vertx.currentContext();
+
+        policy.start(vertx, new Handler<String>() {
+            @Override
+            public void handle(final String filename) {
+                if (context == null) {
+                    cache.remove(filename);
+                    return;
+                }
+                // evict on the engine context so it does not interleave with a read in progress
+                context.runOnContext(new Handler<Void>() {
+                    @Override
+                    public void handle(Void event) {
+                        cache.remove(filename);
+                    }
+                });
+            }
+        });
+
+        if (policy.isProduction()) {
+            policy.preload(views(), extension(), new TemplateCachePolicy.Precompiler() {
+                @Override
+                public void precompile(String template) throws Exception {
+                    AbstractEngine.this.precompile(template);
+                }
+            });
+        }
+    }
+
+    /**
+     * Streaming adapter, renders the template into a Buffer and hands it to the writer, which sends it without copying
+     * when nothing was written before.
+     */
+    @Override
+    public void render(final String filename, final Map<String, Object> context, final ResponseWriter writer, final Handler<AsyncResult<Void>> handler) {
+        render(filename, context, new AsyncResultHandler<Buffer>() {
+            @Override
+            public void handle(AsyncResult<Buffer> asyncResult) {
+                if (asyncResult.failed()) {
+                    handler.handle(new YokeAsyncResult<Void>(asyncResult.cause()));
+                } else {
+                    writer.write(asyncResult.result());
+                    handler.handle(new YokeAsyncResult<Void>(null, null));
+                }
+            }
+        });
+    }
+
+    /**
+     * Trust a cached template for some time before checking the file system again.
+     *
+     * @param millis time between file system checks
+     */
+    public AbstractEngine<T> checkInterval(final long millis) {
+        policy.checkInterval(millis);
+        return this;
+    }
+
+    /**
+     * Watch the directories of the loaded templates and evict templates as soon as they change instead of checking the
+     * file system on every render. Templates on directories that cannot be watched are still checked. When the engine
+     * is already registered with Yoke the watcher starts right away.
+     */
+    public AbstractEngine<T> watch() {
+        policy.watch();
+        return this;
+    }
+
+    /**
+     * Production mode, all templates under the views directory are loaded and compiled when the engine is registered
+     * with Yoke and the file system is never checked again. Loading is synchronous since it happens at startup.
+     */
+    public AbstractEngine<T> production() {
+        policy.production();
+        return this;
+    }
+
+    /**
+     * Directory scanned in production mode, engines must override it to support preloading.
+     *
+     * @return the views directory or null
+     */
+    protected String views() {
+        return null;
+    }
+
+    /**
+     * Loads a template into the cache in production mode. Engines should override it to also cache the compiled
+     * template.
+     *
+     * @param template template name relative to the views directory including the extension
+     */
+    protected void precompile(final String template) throws Exception {
+        readSync(views() + template);
+    }
+
+    /**
+     * Loads a resource from the filesystem into the cache, blocking. Only meant to be used at startup.
+     *
+     * @param filename File to read
+     * @return the file content
+     */
+    protected String readSync(final String filename) {
+        final FileSystem fileSystem = vertx.fileSystem();
+        final Date lastModified = fileSystem.propsSync(filename).lastModifiedTime();
+        final String result = fileSystem.readFileSync(filename).toString(contentEncoding());
+
+        cache.put(filename, new LRUCache.CacheEntry<String, T>(lastModified, result));
+        return result;
     }
 
     @Override
@@ -53,6 +174,16 @@ public abstract class AbstractEngine<T> implements Engine {
      */
     public void isFresh(final String filename, final Handler<Boolean> next) {
         final FileSystem fileSystem = vertx.fileSystem();
+        final LRUCache.CacheEntry<String, T> cacheEntry = cache.get(filename);
+
+        if (cacheEntry == null) {
+            next.handle(false);
+            return;
+        }
+        if (policy.isTrusted(filename, cacheEntry)) {
+            next.handle(true);
+            return;
+        }
 
         fileSystem.props(filename, new AsyncResultHandler<FileProps>() {
             @Override
@@ -60,33 +191,35 @@ public abstract class AbstractEngine<T> implements Engine {
                 if (asyncResult.failed()) {
                     next.handle(false);
                 } else {
-                    LRUCache.CacheEntry<String, T> cacheEntry = cache.get(filename);
                     final Date lastModified = asyncResult.result().lastModifiedTime();
 
-                    if (cacheEntry == null) {
-                        next.handle(false);
+                    if (cacheEntry.isFresh(lastModified)) {
+                        cacheEntry.checked = System.currentTimeMillis();
+                        next.handle(true);
                     } else {
-                        if (cacheEntry.isFresh(lastModified)) {
-                            next.handle(true);
-                        } else {
-                            // not fresh anymore, purge it
-                            cache.remove(filename);
-                            next.handle(false);
-                        }
+                        // not fresh anymore, purge it unless it was reloaded meanwhile
+                        cache.remove(filename, cacheEntry);
+                        next.handle(false);
                     }
                 }
             }
         });
     }
 
-    private void loadToCache(final String filename, final Handler<Throwable> next) {
+    /**
+     * Loads a file into the cache, the handler gets the loaded content so an eviction in between cannot lose it.
+     */
+    private void loadToCache(final String filename, final AsyncResultHandler<String> next) {
         final FileSystem fileSystem = vertx.fileSystem();
 
+        // watch before reading so a change while reading is not lost
+        policy.watching(filename);
+
         fileSystem.props(filename, new AsyncResultHandler<FileProps>() {
             @Override
             public void handle(AsyncResult<FileProps> asyncResult) {
                 if (asyncResult.failed()) {
-                    next.handle(asyncResult.cause());
+                    next.handle(new YokeAsyncResult<String>(asyncResult.cause()));
                 } else {
                     final Date lastModified = asyncResult.result().lastModifiedTime();
                     // load from the file system
@@ -94,12 +227,12 @@ public abstract class AbstractEngine<T> implements Engine {
                         @Override
                         public void handle(AsyncResult<Buffer> asyncResult) {
                             if (asyncResult.failed()) {
-                                next.handle(asyncResult.cause());
+                                next.handle(new YokeAsyncResult<String>(asyncResult.cause()));
                             } else {
                                 // cache the result
                                 String result = asyncResult.result().toString(contentEncoding());
                                 cache.put(filename, new LRUCache.CacheEntry<String, T>(lastModified, result));
-                                next.handle(null);
+                                next.handle(new YokeAsyncResult<>(result));
                             }
                         }
                     });
@@ -130,17 +263,7 @@ public abstract class AbstractEngine<T> implements Engine {
                     }
                 }
                 // either fresh is false or cachedValue is null
-                loadToCache(filename, new Handler<Throwable>() {
-                    @Override
-                    public void handle(Throwable error) {
-                        if (error != null) {
-                            handler.handle(new YokeAsyncResult<String>(error, null));
-                            return;
-                        }
-                        // no error
-                        handler.handle(new YokeAsyncResult<>(null, getFileFromCache(filename)));
-                    }
-                });
+                loadToCache(filename, handler);
             }
         });
     }
@@ -153,6 +276,9 @@ public abstract class AbstractEngine<T> implements Engine {
      */
     public long lastModified(final String filename) {
         LRUCache.CacheEntry<String, T> cacheEntry = cache.get(filename);
+        if (cacheEntry == null) {
+            return -1;
+        }
         return cacheEntry.lastModified;
     }
 
@@ -160,7 +286,13 @@ public abstract class AbstractEngine<T> implements Engine {
      * Gets the content of the file from cache this is a synchronous operation since there is no blocking or I/O
      */
     private String getFileFromCache(String filename) {
-        return cache.get(filename).raw;
+        LRUCache.CacheEntry<String, T> cachedTemplate = cache.get(filename);
+
+        if (cachedTemplate == null) {
+            return null;
+        }
+
+        return cachedTemplate.raw;
     }
 
     /**
@@ -183,6 +315,13 @@ public abstract class AbstractEngine<T> implements Engine {
         cache.putCompiled(filename, template);
     }
     
+    /**
+     * @return the template cache, with its size and hit, miss and eviction counters
+     */
+    public LRUCache<String, T> cache() {
+        return cache;
+    }
+
     /**
      * Removes an entry from cache
      */
@@ -3,14 +3,29 @@
  */
 package com.jetdrone.vertx.yoke.engine;
 
-import com.jetdrone.vertx.yoke.Engine;
+import com.jetdrone.vertx.yoke.StreamingEngine;
+import com.jetdrone.vertx.yoke.core.WorkerPool;
+import com.jetdrone.vertx.yoke.core.YokeAsyncResult;
 import com.jetdrone.vertx.yoke.core.impl.LRUCache;
+import com.jetdrone.vertx.yoke.jmx.WorkerPoolMBean;
+import com.jetdrone.vertx.yoke.middleware.ResponseWriter;
+import org.jetbrains.annotations.NotNull;
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Context;
+import org.vertx.java.core.Handler;
 import org.vertx.java.core.Vertx;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.file.FileProps;
 import org.vertx.java.core.file.FileSystem;
 
+import javax.management.*;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 /**
  * # AbstractEngineSync
@@ -18,16 +33,46 @@ import java.util.Date;
  * Engine represents a Template Engine that can be registered with Yoke. Any template engine just needs to
  * extend this abstract class. The class provides access to the Vertx object so the engine might do I/O
  * operations in the context of the module.
+ *
+ * Since the file system is accessed synchronously, engines can be configured with ```workers``` to resolve and render
+ * templates on a bounded worker pool instead of the event loop. Subclasses render through ```execute``` so both modes
+ * are supported. Engines able to write while rendering override the streaming ```render``` with a ```StreamingTask```,
+ * when rendering on workers the output is handed to the event loop a chunk at a time, respecting back-pressure.
+ *
+ * By default every template read is verified against the file system. ```checkInterval``` and ```watch``` reduce those
+ * checks and ```production``` loads all templates once, when the engine is registered with Yoke.
  */
-public abstract class AbstractEngineSync<T> implements Engine {
+public abstract class AbstractEngineSync<T> implements StreamingEngine {
 
     protected Vertx vertx;
 
+    // thread safe, templates may be rendered from worker threads
     private final LRUCache<String, T> cache = new LRUCache<>(1024);
 
+    private WorkerPool workers;
+
+    private final TemplateCachePolicy policy = new TemplateCachePolicy(getClass().getSimpleName());
+
     @Override
     public void setVertx(Vertx vertx) {
         this.vertx = vertx;
+
+        // reads do not span callbacks here, evicting from the watcher thread is safe
+        policy.start(vertx, new Handler<String>() {
+            @Override
+            public void handle(String filename) {
+                removeFromCache(filename);
+            }
+        });
+
+        if (policy.isProduction()) {
+            policy.preload(views(), extension(), new TemplateCachePolicy.Precompiler() {
+                @Override
+                public void precompile(String template) throws Exception {
+                    AbstractEngineSync.this.precompile(template);
+                }
+            });
+        }
     }
 
     @Override
@@ -40,6 +85,267 @@ public abstract class AbstractEngineSync<T> implements Engine {
         return "UTF-8";
     }
 
+    /**
+     * Render templates on a worker pool instead of the event loop. The pool is registered on JMX with its queue depth,
+     * number of running and rejected renders and the render latency.
+     *
+     * @param concurrency maximum number of templates rendered at the same time
+     * @param maxQueue    maximum number of renders waiting for a worker, further renders fail with 503
+     */
+    public AbstractEngineSync<T> workers(final int concurrency, final int maxQueue) {
+        if (workers != null) {
+            throw new IllegalStateException("Workers already configured");
+        }
+
+        workers = new WorkerPool(getClass().getSimpleName(), concurrency, maxQueue);
+
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            mbs.registerMBean(new WorkerPoolMBean(workers), new ObjectName("com.jetdrone.yoke:type=WorkerPool@" + hashCode() + ",engine=" + getClass().getSimpleName()));
+        } catch (MalformedObjectNameException | InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException e) {
+            throw new RuntimeException(e);
+        }
+
+        return this;
+    }
+
+    /**
+     * Trust a cached template for some time before checking the file system again.
+     *
+     * @param millis time between file system checks
+     */
+    public AbstractEngineSync<T> checkInterval(final long millis) {
+        policy.checkInterval(millis);
+        return this;
+    }
+
+    /**
+     * Watch the directories of the loaded templates and evict templates as soon as they change instead of checking the
+     * file system on every render. Templates on directories that cannot be watched are still checked. When the engine
+     * is already registered with Yoke the watcher starts right away.
+     */
+    public AbstractEngineSync<T> watch() {
+        policy.watch();
+        return this;
+    }
+
+    /**
+     * Production mode, all templates under the views directory are loaded and compiled when the engine is registered
+     * with Yoke and the file system is never checked again.
+     */
+    public AbstractEngineSync<T> production() {
+        policy.production();
+        return this;
+    }
+
+    /**
+     * Directory scanned in production mode, engines must override it to support preloading.
+     *
+     * @return the views directory or null
+     */
+    protected String views() {
+        return null;
+    }
+
+    /**
+     * Loads a template into the cache in production mode. Engines should override it to also cache the compiled
+     * template.
+     *
+     * @param template template name relative to the views directory including the extension
+     */
+    protected void precompile(final String template) throws Exception {
+        read(views() + template);
+    }
+
+    /**
+     * @return the worker pool or null if rendering happens on the event loop
+     */
+    public WorkerPool workers() {
+        return workers;
+    }
+
+    /**
+     * Runs a blocking rendering task, on the worker pool if one is configured or else inline. The handler is always
+     * called on the caller context.
+     *
+     * @param task    the rendering task
+     * @param handler result handler
+     */
+    protected void execute(@NotNull final Callable<Buffer> task, @NotNull final Handler<AsyncResult<Buffer>> handler) {
+        if (workers != null) {
+            workers.execute(vertx, task, handler);
+            return;
+        }
+
+        final Buffer result;
+
+        try {
+            result = task.call();
+        } catch (Exception e) {
+            handler.handle(new YokeAsyncResult<Buffer>(e));
+            return;
+        }
+
+        handler.handle(new YokeAsyncResult<>(result));
+    }
+
+    /**
+     * Streaming adapter, renders the template into a Buffer and hands it to the writer, which sends it without copying
+     * when nothing was written before.
+     */
+    @Override
+    public void render(final String filename, final Map<String, Object> context, final ResponseWriter writer, final Handler<AsyncResult<Void>> handler) {
+        render(filename, context, new Handler<AsyncResult<Buffer>>() {
+            @Override
+            public void handle(AsyncResult<Buffer> asyncResult) {
+                if (asyncResult.failed()) {
+                    handler.handle(new YokeAsyncResult<Void>(asyncResult.cause()));
+                } else {
+                    writer.write(asyncResult.result());
+                    handler.handle(new YokeAsyncResult<Void>(null, null));
+                }
+            }
+        });
+    }
+
+    /**
+     * A blocking rendering task that writes its output while rendering.
+     */
+    protected interface StreamingTask {
+        void render(Writer out) throws Exception;
+    }
+
+    /**
+     * Runs a blocking streaming render, on the worker pool if one is configured or else inline. On the worker pool the
+     * output is handed to the event loop a chunk at a time and the worker waits while the response write queue is
+     * full, so a slow client does not make the whole page pile up in memory. The handler is always called on the
+     * caller context.
+     *
+     * @param writer  the response writer
+     * @param task    the rendering task
+     * @param handler completion handler
+     */
+    protected void execute(@NotNull final ResponseWriter writer, @NotNull final StreamingTask task, @NotNull final Handler<AsyncResult<Void>> handler) {
+        final Context context = vertx.currentContext();
+
+        if (workers == null || context == null) {
+            try {
+                task.render(writer);
+            } catch (Exception e) {
+                handler.handle(new YokeAsyncResult<Void>(e));
+                return;
+            }
+
+            handler.handle(new YokeAsyncResult<Void>(null, null));
+            return;
+        }
+
+        final WorkerWriter out = new WorkerWriter(context, writer);
+
+        workers.execute(vertx, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                task.render(out);
+                out.flush();
+                return null;
+            }
+        }, handler);
+    }
+
+    /**
+     * Writer used on worker threads, chunks are written to the response on its event loop.
+     */
+    private static final class WorkerWriter extends Writer {
+
+        // chunks handed to the event loop and not written yet
+        private static final int MAX_PENDING = 2;
+        // a client that does not read for this long fails the render
+        private static final long DRAIN_TIMEOUT = 30000;
+
+        private final Context context;
+        private final ResponseWriter writer;
+        private final StringBuilder buffer = new StringBuilder();
+
+        // guarded by this
+        private int pending;
+        private boolean paused;
+
+        WorkerWriter(Context context, ResponseWriter writer) {
+            this.context = context;
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(@NotNull char[] cbuf, int off, int len) throws IOException {
+            buffer.append(cbuf, off, len);
+            if (buffer.length() >= ResponseWriter.DEFAULT_BUFFER_SIZE) {
+                flush();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (buffer.length() == 0) {
+                return;
+            }
+
+            final String chunk = buffer.toString();
+            buffer.setLength(0);
+
+            synchronized (this) {
+                final long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT;
+
+                while (paused || pending >= MAX_PENDING) {
+                    final long timeout = deadline - System.currentTimeMillis();
+                    if (timeout <= 0) {
+                        throw new IOException("Timed out waiting for the response to drain");
+                    }
+                    try {
+                        wait(timeout);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    }
+                }
+
+                pending++;
+            }
+
+            context.runOnContext(new Handler<Void>() {
+                @Override
+                public void handle(Void event) {
+                    // the response writer decides when the output is big enough to be sent
+                    writer.write(chunk);
+
+                    final boolean full = writer.writeQueueFull();
+
+                    if (full) {
+                        writer.drainHandler(new Handler<Void>() {
+                            @Override
+                            public void handle(Void event) {
+                                synchronized (WorkerWriter.this) {
+                                    paused = false;
+                                    WorkerWriter.this.notifyAll();
+                                }
+                            }
+                        });
+                    }
+
+                    synchronized (WorkerWriter.this) {
+                        pending--;
+                        paused = full;
+                        WorkerWriter.this.notifyAll();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
     /**
      * Verifies if a file in the filesystem is still fresh against the cache. Errors are treated as not fresh.
      *
@@ -48,19 +354,25 @@ public abstract class AbstractEngineSync<T> implements Engine {
     public boolean isFresh(final String filename) {
         final FileSystem fileSystem = vertx.fileSystem();
 
+        final LRUCache.CacheEntry<String, T> cacheEntry = cache.get(filename);
+
+        if (cacheEntry == null) {
+            return false;
+        }
+        if (policy.isTrusted(filename, cacheEntry)) {
+            return true;
+        }
+
         try {
             FileProps fileProps = fileSystem.propsSync(filename);
-            LRUCache.CacheEntry<String, T> cacheEntry = cache.get(filename);
             final Date lastModified = fileProps.lastModifiedTime();
 
-            if (cacheEntry == null) {
-                return false;
-            }
             if (cacheEntry.isFresh(lastModified)) {
+                cacheEntry.checked = System.currentTimeMillis();
                 return true;
             }
-            // not fresh anymore, purge it
-            cache.remove(filename);
+            // not fresh anymore, purge it unless another thread already reloaded it
+            cache.remove(filename, cacheEntry);
             return false;
         } catch (RuntimeException e) {
             return false;
@@ -80,17 +392,26 @@ public abstract class AbstractEngineSync<T> implements Engine {
         return cacheEntry.lastModified;
     }
 
-    private void loadToCache(final String filename) {
+    /**
+     * Loads a file into the cache and returns its content, so an eviction from the watcher cannot lose it. Returns
+     * null if the file does not exist.
+     */
+    private String loadToCache(final String filename) {
         final FileSystem fileSystem = vertx.fileSystem();
 
-        if (fileSystem.existsSync(filename)) {
-            FileProps fileProps = fileSystem.propsSync(filename);
-            final Date lastModified = fileProps.lastModifiedTime();
-            // load from the file system
-            Buffer content = fileSystem.readFileSync(filename);
-            // cache the result
-            cache.put(filename, new LRUCache.CacheEntry<String, T>(lastModified, content.toString(contentEncoding())));
+        if (!fileSystem.existsSync(filename)) {
+            return null;
         }
+
+        // watch before reading so a change while reading is not lost
+        policy.watching(filename);
+        FileProps fileProps = fileSystem.propsSync(filename);
+        final Date lastModified = fileProps.lastModifiedTime();
+        // load from the file system
+        final String content = fileSystem.readFileSync(filename).toString(contentEncoding());
+        // cache the result
+        cache.put(filename, new LRUCache.CacheEntry<String, T>(lastModified, content));
+        return content;
     }
 
     /**
@@ -108,8 +429,7 @@ public abstract class AbstractEngineSync<T> implements Engine {
             }
         }
         // either fresh is false or cachedValue is null
-        loadToCache(filename);
-        return getFileFromCache(filename);
+        return loadToCache(filename);
     }
 
     /**
@@ -122,14 +442,13 @@ public abstract class AbstractEngineSync<T> implements Engine {
             return null;
         }
 
-        return cache.get(filename).raw;
+        return cachedTemplate.raw;
     }
 
     /**
      * Gets the compiled value from cache this is a synchronous operation since there is no blocking or I/O
      */
     public T getTemplateFromCache(String filename) {
-
         LRUCache.CacheEntry<String, T> cachedTemplate = cache.get(filename);
 
         // this is to avoid null pointer exception in case of the layout composite template
@@ -147,6 +466,13 @@ public abstract class AbstractEngineSync<T> implements Engine {
         cache.putCompiled(filename, template);
     }
 
+    /**
+     * @return the template cache, with its size and hit, miss and eviction counters
+     */
+    public LRUCache<String, T> cache() {
+        return cache;
+    }
+
     /**
      * Removes an entry from cache
      */
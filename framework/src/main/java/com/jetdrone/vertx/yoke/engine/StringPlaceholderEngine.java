@@ -4,6 +4,7 @@
 package com.jetdrone.vertx.yoke.engine;
 
 import com.jetdrone.vertx.yoke.core.YokeAsyncResult;
+import com.jetdrone.vertx.yoke.middleware.ResponseWriter;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.AsyncResultHandler;
 import org.vertx.java.core.Handler;
@@ -16,11 +17,10 @@ import java.util.regex.Pattern;
 /**
  * # StringPlaceholderEngine
  */
-public class StringPlaceholderEngine extends AbstractEngine<String> {
+public class StringPlaceholderEngine extends AbstractEngine<StringPlaceholderEngine.Template> {
 
     private static final String placeholderPrefix = "${";
     private static final String placeholderSuffix = "}";
-    private static final boolean ignoreUnresolvablePlaceholders = true;
 
     private static final String funcName = "([a-zA-Z0-9]+)";
     private static final String arguments = "\\((.*)\\)";
@@ -53,6 +53,11 @@ public class StringPlaceholderEngine extends AbstractEngine<String> {
         return extension;
     }
 
+    @Override
+    protected String views() {
+        return prefix;
+    }
+
     /**
      * An interpreter for strings with named placeholders.
      *
@@ -71,15 +76,18 @@ public class StringPlaceholderEngine extends AbstractEngine<String> {
      */
     @Override
     public void render(final String file, final Map<String, Object> context, final Handler<AsyncResult<Buffer>> handler) {
+        final String filename = prefix + file;
         // verify if the file is still fresh in the cache
-        read(prefix + file, new AsyncResultHandler<String>() {
+        read(filename, new AsyncResultHandler<String>() {
             @Override
             public void handle(AsyncResult<String> asyncResult) {
                 if (asyncResult.failed()) {
                     handler.handle(new YokeAsyncResult<Buffer>(asyncResult.cause()));
                 } else {
+                    final Template template = template(filename, asyncResult.result());
+
                     try {
-                        handler.handle(new YokeAsyncResult<>(parseStringValue(asyncResult.result(), context, new HashSet<String>())));
+                        handler.handle(new YokeAsyncResult<>(new Buffer(template.render(context))));
                     } catch (IllegalArgumentException iae) {
                         handler.handle(new YokeAsyncResult<Buffer>(iae));
                     }
@@ -87,78 +95,237 @@ public class StringPlaceholderEngine extends AbstractEngine<String> {
             }
         });
     }
-    
-    private Buffer parseStringValue(String template, Map<String, Object> context, Set<String> visitedPlaceholders) {
-        StringBuilder buf = new StringBuilder(template);
 
-        int startIndex = template.indexOf(placeholderPrefix);
-        while (startIndex != -1) {
-            int endIndex = findPlaceholderEndIndex(buf, startIndex);
-            if (endIndex != -1) {
-                String placeholder = buf.substring(startIndex + placeholderPrefix.length(), endIndex);
-                if (!visitedPlaceholders.add(placeholder)) {
-                    throw new IllegalArgumentException(
-                            "Circular placeholder reference '" + placeholder + "' in property definitions");
+    /**
+     * Streams the template, literal text is written as is and each placeholder as soon as it is resolved.
+     */
+    @Override
+    public void render(final String file, final Map<String, Object> context, final ResponseWriter writer, final Handler<AsyncResult<Void>> handler) {
+        final String filename = prefix + file;
+        // verify if the file is still fresh in the cache
+        read(filename, new AsyncResultHandler<String>() {
+            @Override
+            public void handle(AsyncResult<String> asyncResult) {
+                if (asyncResult.failed()) {
+                    handler.handle(new YokeAsyncResult<Void>(asyncResult.cause()));
+                } else {
+                    try {
+                        template(filename, asyncResult.result()).render(context, writer);
+                    } catch (IllegalArgumentException iae) {
+                        handler.handle(new YokeAsyncResult<Void>(iae));
+                        return;
+                    }
+
+                    handler.handle(new YokeAsyncResult<Void>(null, null));
+                }
+            }
+        });
+    }
+
+    private Template template(final String filename, final String source) {
+        Template template = getTemplateFromCache(filename);
+
+        if (template == null) {
+            // real compile
+            template = compile(source);
+            putTemplateToCache(filename, template);
+        }
+
+        return template;
+    }
+
+    @Override
+    protected void precompile(final String template) throws Exception {
+        putTemplateToCache(prefix + template, compile(readSync(prefix + template)));
+    }
+
+    /**
+     * A template parsed into literal text and placeholders. Rendering only appends segments to the output, values are
+     * only parsed when they contain placeholders themselves.
+     */
+    static final class Template {
+
+        // either String (literal text) or Placeholder
+        private final Object[] segments;
+        // size of the last render, used to size the output
+        private volatile int sizeHint;
+
+        private Template(Object[] segments, int sizeHint) {
+            this.segments = segments;
+            this.sizeHint = sizeHint;
+        }
+
+        String render(Map<String, Object> context) {
+            final StringBuilder out = new StringBuilder(sizeHint);
+            render(context, null, out);
+            sizeHint = out.length();
+            return out.toString();
+        }
+
+        void render(Map<String, Object> context, ResponseWriter writer) {
+            final StringBuilder value = new StringBuilder();
+
+            for (Object segment : segments) {
+                if (segment instanceof String) {
+                    writer.write((String) segment);
+                } else {
+                    value.setLength(0);
+                    ((Placeholder) segment).render(context, null, value);
+                    writer.write(value.toString());
+                }
+            }
+        }
+
+        private void render(Map<String, Object> context, Set<String> visited, StringBuilder out) {
+            for (Object segment : segments) {
+                if (segment instanceof String) {
+                    out.append((String) segment);
+                } else {
+                    ((Placeholder) segment).render(context, visited, out);
                 }
-                // Recursive invocation, parsing placeholders contained in the placeholder key.
-                placeholder = parseStringValue(placeholder, context, visitedPlaceholders).toString(contentEncoding());
+            }
+        }
+    }
+
+    private static final class Placeholder {
+        // the text between the delimiters, used to detect circular references
+        private final String key;
+        // the full placeholder text, kept in the output when the value cannot be resolved
+        private final String source;
+        // compiled name when the name contains placeholders, null otherwise
+        private final Template dynamicName;
+        // function name and arguments when the name is static and uses the function syntax
+        private final String function;
+        private final Object[] functionArgs;
 
-                // Now obtain the value for the fully resolved key...
-                Object propVal;
-                boolean isFn = false;
+        private Placeholder(String key, String source) {
+            this.key = key;
+            this.source = source;
 
-                Matcher fn = FUNCTION.matcher(placeholder);
+            if (key.contains(placeholderPrefix)) {
+                dynamicName = compile(key);
+                function = null;
+                functionArgs = null;
+            } else {
+                dynamicName = null;
+                Matcher fn = FUNCTION.matcher(key);
                 if (fn.find()) {
-                    // function syntax used, get the object from context with the proper name
-                    propVal = context.get(fn.group(1));
-                    isFn = true;
+                    function = fn.group(1);
+                    functionArgs = parseArguments(fn.group(2));
                 } else {
-                    propVal = context.get(placeholder);
+                    function = null;
+                    functionArgs = null;
                 }
+            }
+        }
+
+        private void render(Map<String, Object> context, Set<String> visited, StringBuilder out) {
+            if (visited != null && !visited.add(key)) {
+                throw new IllegalArgumentException("Circular placeholder reference '" + key + "' in property definitions");
+            }
 
-                if (propVal != null) {
-                    // Recursive invocation, parsing placeholders contained in the
-                    // previously resolved placeholder value.
-                    String propValStr;
-                    if (isFn && propVal instanceof Function) {
-                        Matcher arg = ARG.matcher(fn.group(2));
-                        List<Object> args = null;
-
-                        while (arg.find()) {
-                            if (args == null) {
-                                args = new ArrayList<>();
-                            }
-                            args.add(arg.group(1));
-                        }
-                        if (args == null) {
-                            propValStr = ((Function) propVal).exec(context);
-                        } else {
-                            propValStr = ((Function) propVal).exec(context, args.toArray());
-                        }
+            // placeholders are only tracked once there is recursion
+            Set<String> chain = visited;
+
+            String name = key;
+            String fnName = function;
+            Object[] args = functionArgs;
+
+            if (dynamicName != null) {
+                if (chain == null) {
+                    chain = new HashSet<>();
+                    chain.add(key);
+                }
+                // resolve the placeholders contained in the placeholder name
+                final StringBuilder buf = new StringBuilder();
+                dynamicName.render(context, chain, buf);
+                name = buf.toString();
+
+                Matcher fn = FUNCTION.matcher(name);
+                if (fn.find()) {
+                    fnName = fn.group(1);
+                    args = parseArguments(fn.group(2));
+                }
+            }
+
+            final Object propVal = context.get(fnName != null ? fnName : name);
+
+            if (propVal == null) {
+                // proceed with unprocessed value
+                out.append(source);
+            } else {
+                final String propValStr;
+
+                if (fnName != null && propVal instanceof Function) {
+                    if (args == null) {
+                        propValStr = ((Function) propVal).exec(context);
                     } else {
-                        propValStr = propVal.toString();
+                        propValStr = ((Function) propVal).exec(context, args);
                     }
-                    propValStr = parseStringValue(propValStr, context, visitedPlaceholders).toString(contentEncoding());
-                    buf.replace(startIndex, endIndex + placeholderSuffix.length(), propValStr);
-
-                    startIndex = buf.indexOf(placeholderPrefix, startIndex + propValStr.length());
+                } else {
+                    propValStr = propVal.toString();
                 }
-                else if (ignoreUnresolvablePlaceholders) {
-                    // Proceed with unprocessed value.
-                    startIndex = buf.indexOf(placeholderPrefix, endIndex + placeholderSuffix.length());
+
+                if (propValStr.contains(placeholderPrefix)) {
+                    if (chain == null) {
+                        chain = new HashSet<>();
+                        chain.add(key);
+                    }
+                    // values are dynamic, they are parsed on every render
+                    compile(propValStr).render(context, chain, out);
+                } else {
+                    out.append(propValStr);
                 }
-                else {
-                    throw new IllegalArgumentException("Could not resolve placeholder '" + placeholder + "'");
+            }
+
+            if (visited != null) {
+                visited.remove(key);
+            }
+        }
+
+        private static Object[] parseArguments(String text) {
+            Matcher arg = ARG.matcher(text);
+            List<Object> args = null;
+
+            while (arg.find()) {
+                if (args == null) {
+                    args = new ArrayList<>();
                 }
+                args.add(arg.group(1));
+            }
+
+            return args == null ? null : args.toArray();
+        }
+    }
+
+    /**
+     * Parses a template into segments, placeholders without a matching end are kept as literal text.
+     */
+    static Template compile(String template) {
+        final List<Object> segments = new ArrayList<>();
+        int literalStart = 0;
 
-                visitedPlaceholders.remove(placeholder);
+        int startIndex = template.indexOf(placeholderPrefix);
+        while (startIndex != -1) {
+            int endIndex = findPlaceholderEndIndex(template, startIndex);
+            if (endIndex == -1) {
+                break;
             }
-            else {
-                startIndex = -1;
+
+            if (startIndex > literalStart) {
+                segments.add(template.substring(literalStart, startIndex));
             }
+
+            literalStart = endIndex + placeholderSuffix.length();
+            segments.add(new Placeholder(template.substring(startIndex + placeholderPrefix.length(), endIndex), template.substring(startIndex, literalStart)));
+            startIndex = template.indexOf(placeholderPrefix, literalStart);
+        }
+
+        if (literalStart < template.length()) {
+            segments.add(template.substring(literalStart));
         }
 
-        return new Buffer(buf.toString());
+        return new Template(segments.toArray(), template.length() + 16);
     }
 
     private static int findPlaceholderEndIndex(CharSequence buf, int startIndex) {
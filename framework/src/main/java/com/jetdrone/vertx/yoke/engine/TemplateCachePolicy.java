@@ -0,0 +1,116 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.engine;
+
+import com.jetdrone.vertx.yoke.core.impl.LRUCache;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+
+/**
+ * Decides when a cached template can be trusted without checking the file system, shared by the asynchronous and
+ * synchronous engines. A template is trusted in production mode, while its directory is watched or during
+ * ```checkInterval``` milliseconds after its last check.
+ */
+final class TemplateCachePolicy {
+
+    /**
+     * Loads one template when preloading in production mode.
+     */
+    interface Precompiler {
+        void precompile(String template) throws Exception;
+    }
+
+    private final String name;
+
+    private volatile long checkInterval;
+    private volatile boolean watch;
+    private volatile boolean production;
+
+    private Vertx vertx;
+    private Handler<String> onChange;
+    private volatile TemplateWatcher watcher;
+
+    TemplateCachePolicy(String name) {
+        this.name = name;
+    }
+
+    void checkInterval(long millis) {
+        checkInterval = millis;
+    }
+
+    /**
+     * Enables watching, if the engine is already registered the watcher starts right away.
+     */
+    synchronized void watch() {
+        watch = true;
+
+        if (onChange != null && watcher == null) {
+            watcher = new TemplateWatcher(name, onChange);
+        }
+    }
+
+    void production() {
+        production = true;
+    }
+
+    boolean isProduction() {
+        return production;
+    }
+
+    /**
+     * Called when the engine is registered with Yoke.
+     *
+     * @param vertx    the Vertx instance
+     * @param onChange called with the cache key of a template that changed, from the watcher thread
+     */
+    synchronized void start(Vertx vertx, Handler<String> onChange) {
+        this.vertx = vertx;
+        this.onChange = onChange;
+
+        if (watch && watcher == null) {
+            watcher = new TemplateWatcher(name, onChange);
+        }
+    }
+
+    /**
+     * Starts watching a template about to be loaded, does nothing if watching is not enabled.
+     */
+    void watching(String filename) {
+        final TemplateWatcher watcher = this.watcher;
+
+        if (watcher != null) {
+            watcher.watch(vertx, filename);
+        }
+    }
+
+    boolean isTrusted(String filename, LRUCache.CacheEntry<?, ?> cacheEntry) {
+        if (production) {
+            return true;
+        }
+
+        final TemplateWatcher watcher = this.watcher;
+
+        if (watcher != null && watcher.watching(filename)) {
+            return true;
+        }
+        return checkInterval > 0 && System.currentTimeMillis() - cacheEntry.checked < checkInterval;
+    }
+
+    /**
+     * Loads all templates under the views directory, nothing happens when views is null.
+     */
+    void preload(String views, String extension, Precompiler precompiler) {
+        if (views == null) {
+            return;
+        }
+
+        try {
+            for (String template : TemplateFiles.list(vertx, views, extension)) {
+                precompiler.precompile(template);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to preload templates from " + views, e);
+        }
+    }
+}
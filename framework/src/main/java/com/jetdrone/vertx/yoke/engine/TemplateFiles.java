@@ -0,0 +1,61 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.engine;
+
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.file.impl.PathAdjuster;
+import org.vertx.java.core.impl.VertxInternal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * File system helpers shared by the template engines to locate templates the same way Vert.x file system does.
+ */
+final class TemplateFiles {
+
+    private TemplateFiles() {
+    }
+
+    /**
+     * Resolves a path the same way the Vert.x file system does, relative to the module directory.
+     */
+    static Path resolve(Vertx vertx, String filename) {
+        Path path = Paths.get(filename);
+        if (vertx instanceof VertxInternal) {
+            path = PathAdjuster.adjust((VertxInternal) vertx, path);
+        }
+        return path.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Lists all templates under a views directory.
+     *
+     * @return template names relative to the views directory, always using / as separator
+     */
+    static List<String> list(Vertx vertx, String views, final String extension) throws IOException {
+        final Path root = resolve(vertx, "".equals(views) ? "." : views);
+        final List<String> templates = new ArrayList<>();
+
+        if (!Files.isDirectory(root)) {
+            return templates;
+        }
+
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && file.getFileName().toString().endsWith(extension)) {
+                    templates.add(root.relativize(file).toString().replace(File.separatorChar, '/'));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        return templates;
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.engine;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the directories of the loaded templates and reports the cache keys of the templates that changed, so engines
+ * do not need to stat the template on every render.
+ *
+ * The watch runs on a daemon thread, the handler is called from that thread. When events are lost (overflow) all known
+ * templates are reported.
+ */
+final class TemplateWatcher implements Runnable {
+
+    private final WatchService watchService;
+    private final Handler<String> onChange;
+
+    // absolute path -> cache key
+    private final Map<Path, String> keys = new ConcurrentHashMap<>();
+    private final Set<String> watched = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final Set<Path> directories = new HashSet<>();
+
+    TemplateWatcher(String name, Handler<String> onChange) {
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.onChange = onChange;
+
+        Thread thread = new Thread(this, "yoke-watch-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Starts watching a template, calling it twice has no effect.
+     *
+     * @param key the cache key, it is also the path of the template as used on the Vert.x file system
+     */
+    void watch(Vertx vertx, String key) {
+        if (watched.contains(key)) {
+            return;
+        }
+
+        final Path path = TemplateFiles.resolve(vertx, key);
+        final Path dir = path.getParent();
+
+        if (dir == null) {
+            return;
+        }
+
+        synchronized (directories) {
+            if (!directories.contains(dir)) {
+                try {
+                    dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                } catch (IOException e) {
+                    // cannot watch, the template keeps being checked on every render
+                    return;
+                }
+                directories.add(dir);
+            }
+            keys.put(path, key);
+            watched.add(key);
+        }
+    }
+
+    /**
+     * @return true if changes to the template are being watched so the cached entry can be trusted
+     */
+    boolean watching(String key) {
+        return watched.contains(key);
+    }
+
+    @Override
+    public void run() {
+        for (;;) {
+            final WatchKey watchKey;
+
+            try {
+                watchKey = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            final Path dir = (Path) watchKey.watchable();
+
+            for (WatchEvent<?> event : watchKey.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    for (String key : keys.values()) {
+                        onChange.handle(key);
+                    }
+                    continue;
+                }
+
+                final String key = keys.get(dir.resolve((Path) event.context()));
+                if (key != null) {
+                    onChange.handle(key);
+                }
+            }
+
+            if (!watchKey.reset()) {
+                // the directory is gone, its templates go back to be checked on every render
+                synchronized (directories) {
+                    directories.remove(dir);
+                    for (Map.Entry<Path, String> entry : keys.entrySet()) {
+                        if (dir.equals(entry.getKey().getParent())) {
+                            watched.remove(entry.getValue());
+                            keys.remove(entry.getKey());
+                            onChange.handle(entry.getValue());
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.jetdrone.vertx.yoke.jmx;
+
+import com.jetdrone.vertx.yoke.core.CacheStats;
+
+import javax.management.*;
+
+public final class CacheMBean implements DynamicMBean {
+
+    private static final String CLEAR = "clear";
+
+    private final CacheStats cache;
+    private final String description;
+
+    public CacheMBean(CacheStats cache, String description) {
+        this.cache = cache;
+        this.description = description;
+    }
+
+    @Override
+    public Object getAttribute(String name) throws AttributeNotFoundException {
+        switch (name) {
+            case "size":
+                return cache.size();
+            case "hits":
+                return cache.hits();
+            case "misses":
+                return cache.misses();
+            case "hitRatio":
+                final long hits = cache.hits();
+                final long total = hits + cache.misses();
+                return total == 0 ? 0.0 : (double) hits / total;
+            case "evictions":
+                return cache.evictions();
+            default:
+                throw new AttributeNotFoundException("No such property: " + name);
+        }
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException, InvalidAttributeValueException, MBeanException, ReflectionException {
+        throw new MBeanException(new UnsupportedOperationException());
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] names) {
+        AttributeList list = new AttributeList();
+        for (String name : names) {
+            try {
+                list.add(new Attribute(name, getAttribute(name)));
+            } catch (AttributeNotFoundException e) {
+                // ignore
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList list) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String name, Object[] args, String[] sig) throws MBeanException, ReflectionException {
+        if (CLEAR.equals(name)) {
+            cache.clear();
+            return null;
+        }
+        throw new ReflectionException(new NoSuchMethodException(name));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        return new MBeanInfo(
+                this.getClass().getName(),
+                description,
+                new MBeanAttributeInfo[] {
+                        new MBeanAttributeInfo("size", "java.lang.Integer", "Number of cached entries", true, false, false),
+                        new MBeanAttributeInfo("hits", "java.lang.Long", "Number of lookups that found an entry", true, false, false),
+                        new MBeanAttributeInfo("misses", "java.lang.Long", "Number of lookups that found no entry", true, false, false),
+                        new MBeanAttributeInfo("hitRatio", "java.lang.Double", "Hits over total lookups", true, false, false),
+                        new MBeanAttributeInfo("evictions", "java.lang.Long", "Number of entries dropped to make room", true, false, false)
+                },
+                null,   // constructors
+                new MBeanOperationInfo[] {
+                        new MBeanOperationInfo(CLEAR, "Drops all cached entries", new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION)
+                },
+                null);  // notifications
+    }
+}
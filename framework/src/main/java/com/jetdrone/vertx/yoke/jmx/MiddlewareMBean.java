@@ -22,6 +22,9 @@ public final class MiddlewareMBean implements DynamicMBean {
             case "enabled":
                 return middleware.enabled;
             default:
+                if (StatsAttributes.contains(name)) {
+                    return StatsAttributes.get(middleware.stats, name);
+                }
                 throw new AttributeNotFoundException("No such property: " + name);
         }
     }
@@ -56,6 +59,11 @@ public final class MiddlewareMBean implements DynamicMBean {
                     case "enabled":
                         list.add(new Attribute("enabled", getAttribute(name)));
                         break;
+                    default:
+                        if (StatsAttributes.contains(name)) {
+                            list.add(new Attribute(name, getAttribute(name)));
+                        }
+                        break;
                 }
             }catch (AttributeNotFoundException e) {
                 // ignore
@@ -71,12 +79,16 @@ public final class MiddlewareMBean implements DynamicMBean {
 
     @Override
     public Object invoke(String name, Object[] args, String[] sig) throws MBeanException, ReflectionException {
+        if (StatsAttributes.RESET.equals(name)) {
+            middleware.stats.reset();
+            return null;
+        }
         throw new ReflectionException(new NoSuchMethodException(name));
     }
 
     @Override
     public synchronized MBeanInfo getMBeanInfo() {
-        MBeanAttributeInfo[] attrs = {
+        MBeanAttributeInfo[] base = {
                 new MBeanAttributeInfo(
                         "mount",
                         "java.lang.String",
@@ -100,12 +112,17 @@ public final class MiddlewareMBean implements DynamicMBean {
                         true), // isIs
         };
 
+        MBeanAttributeInfo[] stats = StatsAttributes.attributes();
+        MBeanAttributeInfo[] attrs = new MBeanAttributeInfo[base.length + stats.length];
+        System.arraycopy(base, 0, attrs, 0, base.length);
+        System.arraycopy(stats, 0, attrs, base.length, stats.length);
+
         return new MBeanInfo(
                 this.getClass().getName(),
                 "Middleware Manager MBean",
                 attrs,
                 null,   // constructors
-                null,   // operations
+                StatsAttributes.operations(),
                 null);  // notifications
     }
 }
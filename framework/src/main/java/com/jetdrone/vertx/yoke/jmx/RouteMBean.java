@@ -1,7 +1,7 @@
 package com.jetdrone.vertx.yoke.jmx;
 
 import com.jetdrone.vertx.yoke.IMiddleware;
-import com.jetdrone.vertx.yoke.Middleware;
+import com.jetdrone.vertx.yoke.core.LatencyStats;
 
 import javax.management.*;
 import java.util.List;
@@ -11,11 +11,13 @@ import java.util.regex.Pattern;
 public final class RouteMBean implements DynamicMBean {
 
     private final List<IMiddleware> middleware;
+    private final LatencyStats stats;
 
     private final Pattern middlewarePattern = Pattern.compile("middleware\\[(\\d+)\\]");
 
-    public RouteMBean(List<IMiddleware> middleware) {
+    public RouteMBean(List<IMiddleware> middleware, LatencyStats stats) {
         this.middleware = middleware;
+        this.stats = stats;
     }
 
     @Override
@@ -25,6 +27,10 @@ public final class RouteMBean implements DynamicMBean {
             return middleware.get(Integer.parseInt(m.group(1))).getClass().getName();
         }
 
+        if (StatsAttributes.contains(name)) {
+            return StatsAttributes.get(stats, name);
+        }
+
         throw new AttributeNotFoundException("No such property: " + name);
     }
 
@@ -53,6 +59,10 @@ public final class RouteMBean implements DynamicMBean {
 
     @Override
     public Object invoke(String actionName, Object[] params, String[] signature) throws MBeanException, ReflectionException {
+        if (StatsAttributes.RESET.equals(actionName)) {
+            stats.reset();
+            return null;
+        }
         throw new MBeanException(new UnsupportedOperationException());
     }
 
@@ -63,14 +73,17 @@ public final class RouteMBean implements DynamicMBean {
                 "Pattern Binding Manager MBean",
                 getAttributes(),    // attributes
                 null,               // constructors
-                null,               // operations
+                StatsAttributes.operations(),
                 null);              // notifications
 
     }
 
     private MBeanAttributeInfo[] getAttributes() {
 
-        MBeanAttributeInfo[] attrs = new MBeanAttributeInfo[middleware.size()];
+        MBeanAttributeInfo[] stats = StatsAttributes.attributes();
+        MBeanAttributeInfo[] attrs = new MBeanAttributeInfo[middleware.size() + stats.length];
+
+        System.arraycopy(stats, 0, attrs, middleware.size(), stats.length);
 
         for (int i = 0; i < middleware.size(); i++) {
             attrs[i] = new MBeanAttributeInfo(
@@ -0,0 +1,66 @@
+package com.jetdrone.vertx.yoke.jmx;
+
+import com.jetdrone.vertx.yoke.core.LatencyStats;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+
+/**
+ * Shared attribute and operation definitions for MBeans exposing LatencyStats. Latencies are reported in microseconds.
+ */
+final class StatsAttributes {
+
+    static final String RESET = "resetStats";
+
+    private static final String[] NAMES = {"invocations", "errors", "latencyP50", "latencyP90", "latencyP99", "latencyMax"};
+
+    private StatsAttributes() {
+    }
+
+    static boolean contains(String name) {
+        for (String n : NAMES) {
+            if (n.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Object get(LatencyStats stats, String name) throws AttributeNotFoundException {
+        switch (name) {
+            case "invocations":
+                return stats.invocations();
+            case "errors":
+                return stats.errors();
+            case "latencyP50":
+                return stats.percentile(50) / 1000;
+            case "latencyP90":
+                return stats.percentile(90) / 1000;
+            case "latencyP99":
+                return stats.percentile(99) / 1000;
+            case "latencyMax":
+                return stats.max() / 1000;
+            default:
+                throw new AttributeNotFoundException("No such property: " + name);
+        }
+    }
+
+    static MBeanAttributeInfo[] attributes() {
+        return new MBeanAttributeInfo[] {
+                new MBeanAttributeInfo("invocations", "java.lang.Long", "Number of invocations", true, false, false),
+                new MBeanAttributeInfo("errors", "java.lang.Long", "Number of invocations ending with an error", true, false, false),
+                new MBeanAttributeInfo("latencyP50", "java.lang.Long", "50th percentile latency in microseconds", true, false, false),
+                new MBeanAttributeInfo("latencyP90", "java.lang.Long", "90th percentile latency in microseconds", true, false, false),
+                new MBeanAttributeInfo("latencyP99", "java.lang.Long", "99th percentile latency in microseconds", true, false, false),
+                new MBeanAttributeInfo("latencyMax", "java.lang.Long", "Maximum latency in microseconds", true, false, false)
+        };
+    }
+
+    static MBeanOperationInfo[] operations() {
+        return new MBeanOperationInfo[] {
+                new MBeanOperationInfo(RESET, "Resets the invocation counters and latency histogram", new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION)
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package com.jetdrone.vertx.yoke.jmx;
+
+import com.jetdrone.vertx.yoke.core.WorkerPool;
+
+import javax.management.*;
+
+public final class WorkerPoolMBean implements DynamicMBean {
+
+    private final WorkerPool pool;
+
+    public WorkerPoolMBean(WorkerPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public Object getAttribute(String name) throws AttributeNotFoundException {
+        switch (name) {
+            case "concurrency":
+                return pool.concurrency();
+            case "queueDepth":
+                return pool.queueDepth();
+            case "active":
+                return pool.active();
+            case "completed":
+                return pool.completed();
+            case "rejected":
+                return pool.rejected();
+            default:
+                if (StatsAttributes.contains(name)) {
+                    return StatsAttributes.get(pool.stats, name);
+                }
+                throw new AttributeNotFoundException("No such property: " + name);
+        }
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException, InvalidAttributeValueException, MBeanException, ReflectionException {
+        throw new MBeanException(new UnsupportedOperationException());
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] names) {
+        AttributeList list = new AttributeList();
+        for (String name : names) {
+            try {
+                list.add(new Attribute(name, getAttribute(name)));
+            } catch (AttributeNotFoundException e) {
+                // ignore
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList list) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String name, Object[] args, String[] sig) throws MBeanException, ReflectionException {
+        if (StatsAttributes.RESET.equals(name)) {
+            pool.stats.reset();
+            return null;
+        }
+        throw new ReflectionException(new NoSuchMethodException(name));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        MBeanAttributeInfo[] base = {
+                new MBeanAttributeInfo("concurrency", "java.lang.Integer", "Maximum number of concurrent tasks", true, false, false),
+                new MBeanAttributeInfo("queueDepth", "java.lang.Integer", "Number of tasks waiting for a thread", true, false, false),
+                new MBeanAttributeInfo("active", "java.lang.Integer", "Number of tasks running", true, false, false),
+                new MBeanAttributeInfo("completed", "java.lang.Long", "Number of completed tasks", true, false, false),
+                new MBeanAttributeInfo("rejected", "java.lang.Long", "Number of tasks refused because the queue was full", true, false, false)
+        };
+
+        MBeanAttributeInfo[] stats = StatsAttributes.attributes();
+        MBeanAttributeInfo[] attrs = new MBeanAttributeInfo[base.length + stats.length];
+        System.arraycopy(base, 0, attrs, 0, base.length);
+        System.arraycopy(stats, 0, attrs, base.length, stats.length);
+
+        return new MBeanInfo(
+                this.getClass().getName(),
+                "Worker Pool MBean",
+                attrs,
+                null,   // constructors
+                StatsAttributes.operations(),
+                null);  // notifications
+    }
+}
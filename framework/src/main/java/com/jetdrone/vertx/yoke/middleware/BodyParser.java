@@ -6,7 +6,9 @@ package com.jetdrone.vertx.yoke.middleware;
 import com.jetdrone.vertx.yoke.Middleware;
 import com.jetdrone.vertx.yoke.core.JSON;
 import com.jetdrone.vertx.yoke.core.YokeFileUpload;
+import com.jetdrone.vertx.yoke.core.impl.JSONStreamParser;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.http.HttpServerFileUpload;
@@ -23,6 +25,10 @@ import java.util.HashMap;
  * If the content type was *multipart/form-data* and there were uploaded files the files are ```files()``` returns
  * `Map&lt;String, HttpServerFileUpload&gt;`.
  *
+ * JSON bodies are by default buffered and decoded once complete. With ```streaming(true)``` the body is parsed as it
+ * arrives, so only the resulting tree is kept in memory, and with a ```JsonElementHandler``` the elements of a top level
+ * JSON array are handed over one by one without being kept at all.
+ *
  * ### Limitations
  *
  * Currently when parsing *multipart/form-data* if there are several files uploaded under the same name, only the last
@@ -35,6 +41,27 @@ public class BodyParser extends Middleware {
      */
     private final String uploadDir;
 
+    /**
+     * Callback receiving the elements of a top level JSON array while the body is being parsed.
+     */
+    public interface JsonElementHandler {
+        /**
+         * @param request the request being parsed
+         * @param element a complete element of the top level array (Map, List, String, Number, Boolean or null)
+         */
+        void handle(@NotNull YokeRequest request, @Nullable Object element);
+    }
+
+    /**
+     * Parse JSON incrementally as data arrives.
+     */
+    private boolean streaming;
+
+    /**
+     * Receives top level array elements, implies streaming.
+     */
+    private JsonElementHandler elementHandler;
+
     /** Instantiates a Body parser with a configurable upload directory.
      *
      * <pre>
@@ -59,6 +86,40 @@ public class BodyParser extends Middleware {
         this(System.getProperty("java.io.tmpdir"));
     }
 
+    /** Parse JSON bodies incrementally as each chunk arrives instead of buffering the whole body.
+     *
+     * <pre>
+     *      yoke.use(new BodyParser().streaming(true));
+     * </pre>
+     *
+     * @param streaming enable incremental parsing
+     * @return self
+     */
+    public BodyParser streaming(boolean streaming) {
+        this.streaming = streaming;
+        return this;
+    }
+
+    /** Stream the elements of top level JSON arrays to a handler as soon as they are parsed. Elements are not kept,
+     * the request body is an empty array once the whole body has been read.
+     *
+     * <pre>
+     *      yoke.use(new BodyParser().jsonElementHandler(new BodyParser.JsonElementHandler() {
+     *          public void handle(YokeRequest request, Object element) {
+     *              // store the element
+     *          }
+     *      }));
+     * </pre>
+     *
+     * @param handler element handler
+     * @return self
+     */
+    public BodyParser jsonElementHandler(@NotNull JsonElementHandler handler) {
+        this.elementHandler = handler;
+        this.streaming = true;
+        return this;
+    }
+
     /** Handler for the parser. When the request method is GET or HEAD this is a Noop middleware.
      * If not the middleware verifies if there is a body and according to its headers tries to
      * parse it as JSON, form data or multi part upload.
@@ -80,7 +141,8 @@ public class BodyParser extends Middleware {
             final boolean isJSON = contentType != null && contentType.contains("application/json");
             final boolean isMULTIPART = contentType != null && contentType.contains("multipart/form-data");
             final boolean isURLENCODEC = contentType != null && contentType.contains("application/x-www-form-urlencoded");
-            final Buffer buffer = (!isMULTIPART && !isURLENCODEC) ? new Buffer(0) : null;
+            final JSONStreamParser parser = (isJSON && streaming) ? createParser(request) : null;
+            final Buffer buffer = (!isMULTIPART && !isURLENCODEC && parser == null) ? new Buffer(0) : null;
 
             // enable the parsing at Vert.x level
             request.expectMultiPart(true);
@@ -128,32 +190,59 @@ public class BodyParser extends Middleware {
                     if (limit != -1) {
                         size += event.length();
                         if (size < limit) {
-                            if (!isMULTIPART && !isURLENCODEC) {
-                                buffer.appendBuffer(event);
-                            }
+                            append(event);
                         } else {
-                            request.dataHandler(null);
-                            request.endHandler(null);
-
-                            request.put("canceled", true);
-                            next.handle(413);
+                            cancel(413);
                         }
                     } else {
-                        if (!isMULTIPART && !isURLENCODEC) {
-                            buffer.appendBuffer(event);
+                        append(event);
+                    }
+                }
+
+                private void append(Buffer event) {
+                    if (parser != null) {
+                        try {
+                            parser.feed(event);
+                        } catch (DecodeException e) {
+                            cancel(400);
+                        } catch (RuntimeException e) {
+                            // the element handler failed, the rest of the body is not read
+                            cancel(e);
                         }
+                    } else if (buffer != null) {
+                        buffer.appendBuffer(event);
                     }
                 }
+
+                private void cancel(Object error) {
+                    request.dataHandler(null);
+                    request.endHandler(null);
+
+                    request.put("canceled", true);
+                    next.handle(error);
+                }
             });
 
             request.endHandler(new Handler<Void>() {
                 @Override
                 public void handle(Void _void) {
                     if (isJSON) {
-                        if (buffer != null && buffer.length() > 0) {
+                        if (parser != null && parser.position() > 0) {
+                            try {
+                                request.setBody(parser.end());
+                            } catch (DecodeException e) {
+                                next.handle(400);
+                                return;
+                            } catch (RuntimeException e) {
+                                next.handle(e);
+                                return;
+                            }
+                            if (!request.get("canceled", false)) {
+                                next.handle(null);
+                            }
+                        } else if (buffer != null && buffer.length() > 0) {
                             try {
-                                String content = buffer.toString();
-                                request.setBody(JSON.decode(content));
+                                request.setBody(JSON.decode(buffer.getBytes()));
                             } catch (DecodeException e) {
                                 next.handle(400);
                                 return;
@@ -161,7 +250,7 @@ public class BodyParser extends Middleware {
                             if (!request.get("canceled", false)) {
                                 next.handle(null);
                             }
-                        } else if (buffer != null && buffer.length() == 0) {
+                        } else {
                             // special case for IE and Safari than even for 0 content length, send content type header
                             if (request.contentLength() == 0) {
                                 request.setBody(null);
@@ -172,8 +261,6 @@ public class BodyParser extends Middleware {
                             } else {
                                 next.handle(400);
                             }
-                        } else {
-                            next.handle(400);
                         }
                     } else {
                         if (buffer != null) {
@@ -187,4 +274,17 @@ public class BodyParser extends Middleware {
             });
         }
     }
+
+    private JSONStreamParser createParser(final YokeRequest request) {
+        if (elementHandler == null) {
+            return new JSONStreamParser();
+        }
+
+        return new JSONStreamParser(new Handler<Object>() {
+            @Override
+            public void handle(Object element) {
+                elementHandler.handle(request, element);
+            }
+        });
+    }
 }
@@ -4,13 +4,12 @@
 package com.jetdrone.vertx.yoke.middleware;
 
 import com.jetdrone.vertx.yoke.Middleware;
-import com.jetdrone.vertx.yoke.middleware.filters.DeflateWriterFilter;
-import com.jetdrone.vertx.yoke.middleware.filters.GZipWriterFilter;
+import com.jetdrone.vertx.yoke.middleware.filters.DeflaterWriterFilter;
 import org.jetbrains.annotations.NotNull;
 import org.vertx.java.core.Handler;
 
-import java.io.IOException;
 import java.util.regex.Pattern;
+import java.util.zip.Deflater;
 
 /**
  * # Compress
@@ -21,6 +20,10 @@ import java.util.regex.Pattern;
  *
  * You can specify which content types are compressable and by default json/text/javascript
  * are enabled.
+ *
+ * Compression is streamed: compressed chunks are written to the response as they are produced using pooled
+ * `Deflater` instances, so large bodies are never buffered in full. Responses smaller than `minSize` bytes are sent
+ * uncompressed.
  */
 public class Compress extends Middleware {
 
@@ -29,13 +32,37 @@ public class Compress extends Middleware {
      */
     private final Pattern filter;
 
+    /**
+     * Compression level from 0 to 9, or -1 for the Deflater default
+     */
+    private final int level;
+
+    /**
+     * Bodies smaller than this are not compressed
+     */
+    private final int minSize;
+
+    /**
+     * Creates a new Compression Middleware given a regular expression of allowed mime types, the compression level and
+     * the minimum body size worth compressing
+     *
+     * @param filter Regular expression to specify which mime types are allowed to be compressed
+     * @param level compression level (0-9) or -1 for the default
+     * @param minSize minimum body size in bytes
+     */
+    public Compress(@NotNull final Pattern filter, final int level, final int minSize) {
+        this.filter = filter;
+        this.level = level;
+        this.minSize = minSize;
+    }
+
     /**
      * Creates a new Compression Middleware given a regular expression of allowed mime types
      *
      * @param filter Regular expression to specify which mime types are allowed to be compressed
      */
     public Compress(@NotNull final Pattern filter) {
-        this.filter = filter;
+        this(filter, Deflater.DEFAULT_COMPRESSION, 0);
     }
 
     /**
@@ -67,20 +94,16 @@ public class Compress extends Middleware {
             return;
         }
 
-        try {
-            // default to gzip
-            if ("*".equals(accept.trim())) {
-                response.setFilter(new GZipWriterFilter(filter));
-            } else {
-                if (accept.contains("gzip")) {
-                    response.setFilter(new GZipWriterFilter(filter));
-                } else if (accept.contains("deflate")) {
-                    response.setFilter(new DeflateWriterFilter(filter));
-                }
+        // default to gzip
+        if ("*".equals(accept.trim())) {
+            response.setFilter(new DeflaterWriterFilter(filter, DeflaterWriterFilter.Format.GZIP, level, minSize));
+        } else {
+            if (accept.contains("gzip")) {
+                response.setFilter(new DeflaterWriterFilter(filter, DeflaterWriterFilter.Format.GZIP, level, minSize));
+            } else if (accept.contains("deflate")) {
+                response.setFilter(new DeflaterWriterFilter(filter, DeflaterWriterFilter.Format.DEFLATE, level, minSize));
             }
-            next.handle(null);
-        } catch (IOException ioe) {
-            next.handle(ioe);
         }
+        next.handle(null);
     }
 }
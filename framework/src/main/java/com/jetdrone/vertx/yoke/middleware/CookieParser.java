@@ -5,6 +5,7 @@ package com.jetdrone.vertx.yoke.middleware;
 
 import com.jetdrone.vertx.yoke.Middleware;
 import com.jetdrone.vertx.yoke.core.YokeCookie;
+import com.jetdrone.vertx.yoke.security.MacPool;
 import io.netty.handler.codec.http.Cookie;
 import io.netty.handler.codec.http.CookieDecoder;
 import org.jetbrains.annotations.NotNull;
@@ -23,13 +24,21 @@ import java.util.TreeSet;
  * *s:&lt;cookie&gt;.&lt;signature&gt;*. The signature is *HMAC + SHA256*.
  *
  * When the Cookie parser is initialized with a secret then that value is used to verify if a cookie is valid.
+ *
+ * In lazy mode the cookies are only decoded, and their signature verified, when they are read from the request. A
+ * tampered cookie is then ignored as if it was not sent instead of failing the request with 400.
  */
 public class CookieParser extends Middleware {
 
     /**
      * Message Signer
      */
-    private final Mac mac;
+    private final MacPool mac;
+
+    /**
+     * Decode cookies on first access
+     */
+    private boolean lazy;
 
     /**
      * Instantiates a CookieParser with a given Mac.
@@ -42,7 +51,8 @@ public class CookieParser extends Middleware {
      * @param mac Mac
      */
     public CookieParser(final Mac mac) {
-        this.mac = mac;
+        // shared by all requests, each thread signs with its own copy
+        this.mac = mac == null ? null : new MacPool(mac);
     }
 
     /**
@@ -54,7 +64,22 @@ public class CookieParser extends Middleware {
      * </pre>
      */
     public CookieParser() {
-        this(null);
+        this((Mac) null);
+    }
+
+    /**
+     * Defer decoding until the cookies are read. Requests carrying many cookies the application never looks at, such
+     * as third party analytics cookies, do not pay for decoding and verifying them.
+     *
+     * <pre>
+     * yoke.use(new CookieParser(YokeSecurity.newHmacSHA256("s3cr3t")).lazy(true));
+     * </pre>
+     *
+     * @param lazy decode cookies on first access
+     */
+    public CookieParser lazy(final boolean lazy) {
+        this.lazy = lazy;
+        return this;
     }
 
     @Override
@@ -62,6 +87,12 @@ public class CookieParser extends Middleware {
         String cookieHeader = request.getHeader("cookie");
 
         if (cookieHeader != null) {
+            if (lazy) {
+                request.setCookies(cookieHeader, mac);
+                next.handle(null);
+                return;
+            }
+
             Set<Cookie> nettyCookies = CookieDecoder.decode(cookieHeader);
             Set<YokeCookie> cookies = new TreeSet<>();
 
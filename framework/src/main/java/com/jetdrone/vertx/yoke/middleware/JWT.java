@@ -3,10 +3,14 @@ package com.jetdrone.vertx.yoke.middleware;
 import com.jetdrone.vertx.yoke.Middleware;
 import com.jetdrone.vertx.yoke.Yoke;
 import com.jetdrone.vertx.yoke.core.YokeException;
+import com.jetdrone.vertx.yoke.core.impl.ConcurrentLRUCache;
+import com.jetdrone.vertx.yoke.jmx.CacheMBean;
 import org.jetbrains.annotations.NotNull;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.json.JsonObject;
 
+import javax.management.*;
+import java.lang.management.ManagementFactory;
 import java.util.regex.Pattern;
 
 public class JWT extends Middleware {
@@ -23,6 +27,24 @@ public class JWT extends Middleware {
 
     private final JWTHandler handler;
 
+    /**
+     * A token that passed verification, exp is in seconds or -1 when the token does not expire
+     */
+    private static final class Verified {
+        final JsonObject claims;
+        final long exp;
+
+        Verified(JsonObject claims, long exp) {
+            this.claims = claims;
+            this.exp = exp;
+        }
+    }
+
+    /**
+     * Verified tokens, null when disabled
+     */
+    private ConcurrentLRUCache<String, Verified> cache;
+
     public JWT() {
         this.skip = null;
         this.handler = null;
@@ -43,6 +65,42 @@ public class JWT extends Middleware {
         this.handler = handler;
     }
 
+    /**
+     * Remember the tokens that passed verification so a token reused across requests is only decoded and verified
+     * once. Entries are dropped when the token expires or when the cache is full. The cache is keyed by the whole
+     * token, so a token is only accepted if it is identical to one that was verified. Size, hits and misses are
+     * exposed on JMX.
+     *
+     * <pre>
+     * new Yoke(...)
+     *   .use(new JWT().cache(10000));
+     * </pre>
+     *
+     * @param maxEntries maximum number of tokens to remember
+     */
+    public JWT cache(final int maxEntries) {
+        final MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            final ObjectName objectName = new ObjectName("com.jetdrone.yoke:type=JWTCache@" + hashCode());
+
+            if (cache != null) {
+                try {
+                    mbs.unregisterMBean(objectName);
+                } catch (InstanceNotFoundException e) {
+                    // ignore
+                }
+            }
+
+            cache = new ConcurrentLRUCache<>(maxEntries);
+            mbs.registerMBean(new CacheMBean(cache, "Verified JWT Cache MBean"), objectName);
+        } catch (MalformedObjectNameException | InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException e) {
+            throw new RuntimeException(e);
+        }
+
+        return this;
+    }
+
     @Override
     public Middleware init(@NotNull final Yoke yoke, @NotNull final String mount) {
         super.init(yoke, mount);
@@ -89,13 +147,29 @@ public class JWT extends Middleware {
             return;
         }
 
+        // All dates in JWT are of type NumericDate
+        // a NumericDate is: numeric value representing the number of seconds from 1970-01-01T00:00:00Z UTC until
+        // the specified UTC date/time, ignoring leap seconds
+        final long now = System.currentTimeMillis() / 1000;
+
         try {
-            final JsonObject jwtToken = jwt.decode(token);
+            if (cache != null && token != null) {
+                final Verified verified = cache.get(token);
+
+                if (verified != null) {
+                    if (verified.exp != -1 && now > verified.exp) {
+                        cache.remove(token, verified);
+                        next.handle(new YokeException(401, "Invalid Token!"));
+                        return;
+                    }
+
+                    // the handlers may modify the token, the cached one must not be
+                    accept(request, verified.claims.copy(), next);
+                    return;
+                }
+            }
 
-            // All dates in JWT are of type NumericDate
-            // a NumericDate is: numeric value representing the number of seconds from 1970-01-01T00:00:00Z UTC until
-            // the specified UTC date/time, ignoring leap seconds
-            final long now = System.currentTimeMillis() / 1000;
+            final JsonObject jwtToken = jwt.decode(token);
 
             if (jwtToken.containsField("iat")) {
                 Long iat = jwtToken.getLong("iat");
@@ -115,24 +189,35 @@ public class JWT extends Middleware {
                 }
             }
 
+            long exp = -1;
+
             if (jwtToken.containsField("exp")) {
-                Long exp = jwtToken.getLong("exp");
+                exp = jwtToken.getLong("exp");
                 // expires must be after now
                 if (now > exp) {
                     next.handle(new YokeException(401, "Invalid Token!"));
                     return;
                 }
             }
-            request.put("jwt", jwtToken);
 
-            if (handler == null) {
-                next.handle(null);
-                return;
+            if (cache != null) {
+                cache.put(token, new Verified(jwtToken.copy(), exp));
             }
 
-            handler.handle(jwtToken, next);
+            accept(request, jwtToken, next);
         } catch (RuntimeException e) {
             next.handle(new YokeException(401, e));
         }
     }
+
+    private void accept(final YokeRequest request, final JsonObject jwtToken, final Handler<Object> next) {
+        request.put("jwt", jwtToken);
+
+        if (handler == null) {
+            next.handle(null);
+            return;
+        }
+
+        handler.handle(jwtToken, next);
+    }
 }
@@ -0,0 +1,251 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.middleware;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * # MediaRanges
+ *
+ * Parsed form of a quality ordered header such as ```Accept``` or ```Accept-Language```. Headers are parsed once and
+ * interned: clients send the same few header values over and over so identical header strings share one parsed and
+ * sorted instance, and negotiating a request is a lookup against it. Lookups do not lock, the intern table is bounded
+ * by dropping it all when it overflows (a client sending random headers only costs a reparse for everyone else).
+ *
+ * Instances are immutable and shared between threads.
+ */
+final class MediaRanges {
+
+    /**
+     * One item of the header e.g.: "application/json;q=0.8"
+     */
+    static final class Range {
+        // the item as sent, with its parameters
+        final String value;
+        // the item without parameters
+        final String bare;
+        final String type;
+        final String subtype;
+        final float q;
+
+        Range(String value, String bare, String type, String subtype, float q) {
+            this.value = value;
+            this.bare = bare;
+            this.type = type;
+            this.subtype = subtype;
+            this.q = q;
+        }
+    }
+
+    private static final Comparator<Range> QUALITY = new Comparator<Range>() {
+        @Override
+        public int compare(Range o1, Range o2) {
+            return Float.compare(o2.q, o1.q);
+        }
+    };
+
+    private static final int MAX_INTERNED = 256;
+    private static final ConcurrentHashMap<String, MediaRanges> INTERN = new ConcurrentHashMap<>();
+
+    // ordered by quality, items with the same quality keep the order of the header
+    final Range[] ranges;
+    // bare values in quality order
+    final List<String> sorted;
+    // best locale, computed on first use
+    private Locale locale;
+
+    private MediaRanges(Range[] ranges) {
+        this.ranges = ranges;
+
+        final List<String> list = new ArrayList<>(ranges.length);
+        for (Range range : ranges) {
+            list.add(range.bare);
+        }
+        this.sorted = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Returns the parsed form of a comma separated header.
+     */
+    static MediaRanges of(@NotNull final String header) {
+        MediaRanges ranges = INTERN.get(header);
+
+        if (ranges == null) {
+            ranges = parse(header);
+            if (INTERN.size() >= MAX_INTERNED) {
+                INTERN.clear();
+            }
+            INTERN.put(header, ranges);
+        }
+
+        return ranges;
+    }
+
+    private static MediaRanges parse(String header) {
+        final List<Range> list = new ArrayList<>();
+
+        int start = 0;
+        while (start <= header.length()) {
+            int end = header.indexOf(',', start);
+            if (end == -1) {
+                end = header.length();
+            }
+
+            final String item = header.substring(start, end).trim();
+            if (item.length() > 0) {
+                list.add(range(item));
+            }
+
+            start = end + 1;
+        }
+
+        final Range[] ranges = list.toArray(new Range[list.size()]);
+        // stable, so equal qualities respect the client order
+        Arrays.sort(ranges, QUALITY);
+
+        return new MediaRanges(ranges);
+    }
+
+    /**
+     * Parses a single media type with optional parameters, a missing subtype is "*".
+     */
+    static Range range(@NotNull final String item) {
+        final int semi = item.indexOf(';');
+        final String bare = (semi == -1 ? item : item.substring(0, semi)).trim();
+
+        float q = 1;
+
+        if (semi != -1) {
+            for (String param : item.substring(semi + 1).split(";")) {
+                final int eq = param.indexOf('=');
+                if (eq != -1 && "q".equals(param.substring(0, eq).trim())) {
+                    try {
+                        q = Float.parseFloat(param.substring(eq + 1).trim());
+                    } catch (NumberFormatException e) {
+                        // an invalid quality is the least acceptable
+                        q = 0;
+                    }
+                    break;
+                }
+            }
+        }
+
+        final int slash = bare.indexOf('/');
+        if (slash == -1 || slash == bare.length() - 1) {
+            return new Range(item, bare, slash == -1 ? bare : bare.substring(0, slash), "*", q);
+        }
+
+        int end = bare.indexOf('/', slash + 1);
+        if (end == -1) {
+            end = bare.length();
+        }
+
+        return new Range(item, bare, bare.substring(0, slash), bare.substring(slash + 1, end), q);
+    }
+
+    /**
+     * Returns the best range matching one of the given mime types, or null.
+     */
+    Range accepts(@NotNull final String... types) {
+        for (Range range : ranges) {
+            for (String type : types) {
+                if (matches(range, type)) {
+                    return range;
+                }
+            }
+        }
+        return null;
+    }
+
+    Locale locale() {
+        if (locale == null) {
+            if (ranges.length == 0) {
+                return Locale.getDefault();
+            }
+
+            final String[] parts = ranges[0].bare.split("_|-");
+            switch (parts.length) {
+                case 3:
+                    locale = new Locale(parts[0], parts[1], parts[2]);
+                    break;
+                case 2:
+                    locale = new Locale(parts[0], parts[1]);
+                    break;
+                default:
+                    locale = new Locale(parts[0]);
+                    break;
+            }
+        }
+
+        return locale;
+    }
+
+    /**
+     * Wildcards on either side match, the app mime type is compared in place so no strings are created.
+     */
+    private static boolean matches(Range range, String mime) {
+        int end = mime.indexOf(';');
+        if (end == -1) {
+            end = mime.length();
+        }
+
+        final int slash = mime.indexOf('/');
+
+        if (slash == -1 || slash >= end) {
+            return isWildcard(range.type) || region(mime, 0, end, range.type) || region(mime, 0, end, "*");
+        }
+
+        int subEnd = mime.indexOf('/', slash + 1);
+        if (subEnd == -1 || subEnd > end) {
+            subEnd = end;
+        }
+
+        if (!(isWildcard(range.type) || region(mime, 0, slash, range.type) || region(mime, 0, slash, "*"))) {
+            return false;
+        }
+
+        // "text/" has no subtype and matches any
+        return subEnd == slash + 1 || isWildcard(range.subtype) || region(mime, slash + 1, subEnd, range.subtype) || region(mime, slash + 1, subEnd, "*");
+    }
+
+    /**
+     * Checks the Content-Type of a request against a type such as "json", "text/html" or "text/*".
+     */
+    static boolean is(@NotNull final Range contentType, @NotNull final String type) {
+        final int slash = type.indexOf('/');
+
+        // when the content is incomplete we assume */type, e.g.: json -> */json
+        if (slash == -1) {
+            return type.equals(contentType.subtype) || "*".equals(type) && "*".equals(contentType.type);
+        }
+
+        // process wildcards
+        if (type.indexOf('*') != -1) {
+            int end = type.indexOf('/', slash + 1);
+            if (end == -1) {
+                end = type.length();
+            }
+            return region(type, 0, slash, "*") && region(type, slash + 1, end, contentType.subtype) ||
+                    region(type, slash + 1, end, "*") && region(type, 0, slash, contentType.type);
+        }
+
+        return contentType.bare.contains(type);
+    }
+
+    private static boolean isWildcard(String s) {
+        return "*".equals(s);
+    }
+
+    private static boolean region(String s, int start, int end, String expected) {
+        return end - start == expected.length() && s.regionMatches(start, expected, 0, expected.length());
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.middleware;
+
+import com.jetdrone.vertx.yoke.core.YokeCookie;
+import com.jetdrone.vertx.yoke.security.MacPool;
+import io.netty.handler.codec.http.Cookie;
+import io.netty.handler.codec.http.CookieDecoder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * # RequestCookies
+ *
+ * Cookies of a request indexed by name. They are either decoded upfront by the ```CookieParser``` or, in lazy mode,
+ * kept as the raw ```cookie``` header: the header is split once into a name to offset index on first access and a
+ * cookie is only decoded and its signature verified when it is read. Headers with quoted values or ```$```
+ * attributes (```$Path```, ```$Domain```) are not indexed but decoded whole on first access, since a quoted value may
+ * contain ```;``` and attributes belong to the cookie before them. Cookies with an invalid signature are not returned.
+ */
+final class RequestCookies {
+
+    private final String header;
+    private final MacPool mac;
+    // true when the header can be split on ';' into independent "name=value" pairs
+    private final boolean indexable;
+
+    // name to start of the first "name=value" pair in the header, built on first access
+    private Map<String, Integer> offsets;
+    // decoded cookies by name, null when the signature did not match
+    private final Map<String, YokeCookie> decoded = new HashMap<>();
+    // all cookies, only built when asked for
+    private Set<YokeCookie> all;
+
+    /**
+     * Eagerly decoded cookies
+     */
+    RequestCookies(Set<YokeCookie> cookies) {
+        this.header = null;
+        this.mac = null;
+        this.indexable = false;
+        this.all = cookies;
+
+        // sets are ordered, the first cookie with a name wins as in a scan
+        for (YokeCookie cookie : cookies) {
+            if (!decoded.containsKey(cookie.getName())) {
+                decoded.put(cookie.getName(), cookie);
+            }
+        }
+    }
+
+    /**
+     * Cookies decoded on demand from the raw header
+     */
+    RequestCookies(String header, MacPool mac) {
+        this.header = header;
+        this.mac = mac;
+        this.indexable = header.indexOf('"') == -1 && header.indexOf('$') == -1;
+    }
+
+    private Map<String, Integer> offsets() {
+        if (offsets == null) {
+            offsets = new HashMap<>();
+
+            int start = 0;
+            final int length = header.length();
+
+            while (start < length) {
+                int end = header.indexOf(';', start);
+                if (end == -1) {
+                    end = length;
+                }
+
+                final int eq = header.indexOf('=', start);
+                final String name = header.substring(start, eq == -1 || eq > end ? end : eq).trim();
+
+                if (name.length() > 0 && !offsets.containsKey(name)) {
+                    offsets.put(name, start);
+                }
+
+                start = end + 1;
+            }
+        }
+
+        return offsets;
+    }
+
+    private YokeCookie decode(String name, int start) {
+        int end = header.indexOf(';', start);
+        if (end == -1) {
+            end = header.length();
+        }
+
+        for (Cookie cookie : CookieDecoder.decode(header.substring(start, end))) {
+            if (name.equals(cookie.getName())) {
+                final YokeCookie yokeCookie = new YokeCookie(cookie, mac);
+                // value cannot be null in a cookie, if the signature is mismatch then this value will be null
+                return yokeCookie.getUnsignedValue() == null ? null : yokeCookie;
+            }
+        }
+
+        return null;
+    }
+
+    YokeCookie get(String name) {
+        if (decoded.containsKey(name) || header == null) {
+            return decoded.get(name);
+        }
+
+        if (!indexable) {
+            // first cookie with the name, as in a scan
+            for (YokeCookie cookie : all()) {
+                if (name.equals(cookie.getName())) {
+                    decoded.put(name, cookie);
+                    return cookie;
+                }
+            }
+            decoded.put(name, null);
+            return null;
+        }
+
+        final Integer start = offsets().get(name);
+        if (start == null) {
+            return null;
+        }
+
+        final YokeCookie cookie = decode(name, start);
+        decoded.put(name, cookie);
+        return cookie;
+    }
+
+    List<YokeCookie> getAll(String name) {
+        final List<YokeCookie> found = new ArrayList<>();
+
+        if (indexable && !offsets().containsKey(name)) {
+            return found;
+        }
+
+        for (YokeCookie c : all()) {
+            if (name.equals(c.getName())) {
+                found.add(c);
+            }
+        }
+
+        return found;
+    }
+
+    Set<YokeCookie> all() {
+        if (all == null) {
+            final Set<YokeCookie> cookies = new TreeSet<>();
+
+            for (Cookie cookie : CookieDecoder.decode(header)) {
+                final YokeCookie yokeCookie = new YokeCookie(cookie, mac);
+                if (yokeCookie.getUnsignedValue() != null) {
+                    cookies.add(yokeCookie);
+                }
+            }
+
+            all = cookies;
+        }
+
+        return all;
+    }
+}
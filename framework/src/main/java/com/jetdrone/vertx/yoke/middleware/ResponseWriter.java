@@ -0,0 +1,204 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.middleware;
+
+import org.jetbrains.annotations.NotNull;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+
+import java.io.Writer;
+
+/**
+ * # ResponseWriter
+ *
+ * Writer used by streaming template engines to write into a YokeResponse. Output is kept in memory until it grows over
+ * the buffer size, so small pages are still sent in a single response with a content length. Once over it the
+ * response is switched to chunked and every further buffer full is written as a chunk.
+ *
+ * The writer is not thread safe and must be used from the context of the request. It does not wait on the response
+ * write queue: an engine rendering inline on the event loop cannot block, so its chunks are queued however slow the
+ * client is. Engines that must respect back-pressure render off the event loop and check ```writeQueueFull``` and
+ * ```drainHandler``` between chunks, as ```AbstractEngineSync``` does on its worker pool.
+ */
+public final class ResponseWriter extends Writer {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final YokeResponse response;
+    private final String contentType;
+    private final String contentEncoding;
+    private final int bufferSize;
+
+    // pending output, characters are encoded lazily to keep writes cheap
+    private final StringBuilder chars = new StringBuilder();
+    private Buffer bytes = new Buffer(0);
+    // bytes is a buffer handed over by the engine, it must be copied before anything is appended to it
+    private boolean shared;
+
+    private boolean committed;
+    private boolean finished;
+
+    ResponseWriter(YokeResponse response, String contentType, String contentEncoding, int bufferSize) {
+        this.response = response;
+        this.contentType = contentType;
+        this.contentEncoding = contentEncoding;
+        this.bufferSize = bufferSize;
+    }
+
+    private int pending() {
+        return bytes.length() + chars.length();
+    }
+
+    private void own() {
+        if (shared) {
+            bytes = new Buffer(bytes.length()).appendBuffer(bytes);
+            shared = false;
+        }
+    }
+
+    private void encode() {
+        if (chars.length() > 0) {
+            own();
+            bytes.appendString(chars.toString(), contentEncoding);
+            chars.setLength(0);
+        }
+    }
+
+    private void checkOpen() {
+        if (finished) {
+            throw new IllegalStateException("Response already finished");
+        }
+    }
+
+    @Override
+    public void write(@NotNull char[] cbuf, int off, int len) {
+        checkOpen();
+        // a single large write is not split, the output is only streamed when more follows
+        if (pending() >= bufferSize) {
+            send();
+        }
+        chars.append(cbuf, off, len);
+    }
+
+    @Override
+    public void write(@NotNull String str) {
+        write(str, 0, str.length());
+    }
+
+    @Override
+    public void write(@NotNull String str, int off, int len) {
+        checkOpen();
+        if (pending() >= bufferSize) {
+            send();
+        }
+        chars.append(str, off, off + len);
+    }
+
+    @Override
+    public void write(int c) {
+        checkOpen();
+        if (pending() >= bufferSize) {
+            send();
+        }
+        chars.append((char) c);
+    }
+
+    /**
+     * Writes already encoded content. When nothing is pending the buffer is kept as is, so a page rendered at once is
+     * sent without copying it. The buffer must not be modified afterwards.
+     */
+    public void write(@NotNull Buffer buffer) {
+        checkOpen();
+        if (pending() >= bufferSize) {
+            send();
+        }
+
+        if (pending() == 0) {
+            bytes = buffer;
+            shared = true;
+            return;
+        }
+
+        encode();
+        own();
+        bytes.appendBuffer(buffer);
+    }
+
+    /**
+     * Sends the pending output as a chunk once the response is streaming or the output is over the buffer size. Small
+     * outputs are never forced out, so engines that flush at the end of a template keep the content length.
+     */
+    @Override
+    public void flush() {
+        checkOpen();
+        if (committed || pending() >= bufferSize) {
+            send();
+        }
+    }
+
+    /**
+     * Sends the pending output as a chunk, the response headers are sent with the first one.
+     */
+    private void send() {
+        encode();
+
+        if (bytes.length() == 0) {
+            return;
+        }
+
+        if (!committed) {
+            committed = true;
+            response.setContentType(contentType, contentEncoding);
+            response.setChunked(true);
+        }
+
+        response.write(bytes);
+        bytes = new Buffer(0);
+        shared = false;
+    }
+
+    /**
+     * Closing does not end the response, Yoke ends it once the engine reports completion.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * @return true if part of the response was already sent, errors can then no longer be reported to the client
+     */
+    public boolean committed() {
+        return committed;
+    }
+
+    /**
+     * @return true if the response write queue is full and the writer should not be fed until drained
+     */
+    public boolean writeQueueFull() {
+        return response.writeQueueFull();
+    }
+
+    public void drainHandler(Handler<Void> handler) {
+        response.drainHandler(handler);
+    }
+
+    /**
+     * Ends the response with the pending output.
+     */
+    void finish() {
+        checkOpen();
+        encode();
+        finished = true;
+
+        if (committed) {
+            if (bytes.length() > 0) {
+                response.write(bytes);
+            }
+            response.end();
+        } else {
+            response.setContentType(contentType, contentEncoding);
+            response.end(bytes);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.jetdrone.vertx.yoke.IMiddleware;
 import com.jetdrone.vertx.yoke.Middleware;
 import com.jetdrone.vertx.yoke.Yoke;
 import com.jetdrone.vertx.yoke.annotations.*;
+import com.jetdrone.vertx.yoke.core.LatencyStats;
 import com.jetdrone.vertx.yoke.jmx.RouteMBean;
 import com.jetdrone.vertx.yoke.util.AsyncIterator;
 import org.jetbrains.annotations.NotNull;
@@ -38,18 +39,30 @@ import java.util.regex.Pattern;
  */
 public class Router extends Middleware {
 
-    private final List<PatternBinding> getBindings = new ArrayList<>();
-    private final List<PatternBinding> putBindings = new ArrayList<>();
-    private final List<PatternBinding> postBindings = new ArrayList<>();
-    private final List<PatternBinding> deleteBindings = new ArrayList<>();
-    private final List<PatternBinding> optionsBindings = new ArrayList<>();
-    private final List<PatternBinding> headBindings = new ArrayList<>();
-    private final List<PatternBinding> traceBindings = new ArrayList<>();
-    private final List<PatternBinding> connectBindings = new ArrayList<>();
-    private final List<PatternBinding> patchBindings = new ArrayList<>();
+    private static final Pattern PARAM = Pattern.compile(":([A-Za-z][A-Za-z0-9_]*)");
+
+    private final RouteTable getBindings = new RouteTable();
+    private final RouteTable putBindings = new RouteTable();
+    private final RouteTable postBindings = new RouteTable();
+    private final RouteTable deleteBindings = new RouteTable();
+    private final RouteTable optionsBindings = new RouteTable();
+    private final RouteTable headBindings = new RouteTable();
+    private final RouteTable traceBindings = new RouteTable();
+    private final RouteTable connectBindings = new RouteTable();
+    private final RouteTable patchBindings = new RouteTable();
 
     private final Map<String, Middleware> paramProcessors = new HashMap<>();
 
+    // when enabled simple patterns are resolved from a segment trie instead of trying every regular expression
+    private boolean indexed = true;
+
+    // number of nested handler calls allowed on the current stack before yielding to the event loop
+    private int syncDepth = 0;
+    // per route overrides of the sync depth, keyed by the pattern string
+    private final Map<String, Integer> syncDepthOverrides = new HashMap<>();
+    // current nesting of handlers invoked directly on the stack
+    private int depth = 0;
+
     /**
      * Create a new Router Middleware.
      *
@@ -66,8 +79,8 @@ public class Router extends Middleware {
     public Router() {
     }
 
-    private void init(Yoke yoke, String mount, List<PatternBinding> bindings) {
-        for (PatternBinding binding : bindings) {
+    private void init(Yoke yoke, String mount, RouteTable table) {
+        for (PatternBinding binding : table.bindings) {
             for (IMiddleware m : binding.middleware) {
                 if (m instanceof Middleware) {
                     final Middleware middleware = (Middleware) m;
@@ -641,6 +654,76 @@ public class Router extends Middleware {
         return this;
     }
 
+    /**
+     * Enables or disables the route index. When enabled (the default) patterns built only from static segments and
+     * `:name` parameters are looked up in a segment trie, so the cost of routing grows with the number of path segments
+     * instead of the number of routes. Regular expressions and any pattern using regex syntax are still tested in
+     * order. Disabling the index makes the router test every binding in sequence, the match precedence is the same in
+     * both modes.
+     *
+     * @param indexed true to use the route index
+     */
+    public Router indexed(boolean indexed) {
+        this.indexed = indexed;
+        return this;
+    }
+
+    /**
+     * By default every route middleware and param processor is scheduled on the event loop with `runOnContext`, this
+     * keeps the stack short but costs one event loop task per handler. Setting a sync depth allows up to that many
+     * nested handlers to be invoked directly on the current stack, once the limit is reached the next handler is
+     * scheduled on the event loop again and the count restarts.
+     *
+     * @param maxDepth maximum number of nested direct invocations, 0 (the default) always yields
+     */
+    public Router syncDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth cannot be negative");
+        }
+        this.syncDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * Overrides the sync depth for all verbs bound to a simple pattern.
+     *
+     * @param pattern The simple pattern
+     * @param maxDepth maximum number of nested direct invocations, 0 always yields
+     */
+    public Router syncDepth(@NotNull final String pattern, int maxDepth) {
+        return setSyncDepth(pattern, false, maxDepth);
+    }
+
+    /**
+     * Overrides the sync depth for all verbs bound to a regular expression.
+     *
+     * @param regex A regular expression
+     * @param maxDepth maximum number of nested direct invocations, 0 always yields
+     */
+    public Router syncDepth(@NotNull final Pattern regex, int maxDepth) {
+        return setSyncDepth(regex.pattern(), true, maxDepth);
+    }
+
+    private Router setSyncDepth(String key, boolean regex, int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth cannot be negative");
+        }
+
+        // regular expressions and simple patterns live in separate key spaces
+        final String overrideKey = (regex ? "regex:" : "route:") + key;
+        syncDepthOverrides.put(overrideKey, maxDepth);
+
+        for (RouteTable table : new RouteTable[] {getBindings, putBindings, postBindings, deleteBindings, optionsBindings, headBindings, traceBindings, connectBindings, patchBindings}) {
+            for (PatternBinding binding : table.bindings) {
+                if (regex ? binding.route == null && binding.pattern.pattern().equals(key) : binding.isFor(key)) {
+                    binding.syncDepth = maxDepth;
+                }
+            }
+        }
+
+        return this;
+    }
+
     public Router param(@NotNull final String paramName, @NotNull final Middleware handler) {
         // also pass the vertx object to the routes
         if (!handler.isInitialized() && isInitialized()) {
@@ -665,9 +748,9 @@ public class Router extends Middleware {
         });
     }
 
-    private void addPattern(String verb, String input, IMiddleware[] handler, List<PatternBinding> bindings) {
+    private void addPattern(String verb, String input, IMiddleware[] handler, RouteTable table) {
         // We need to search for any :<token name> tokens in the String and replace them with named capture groups
-        Matcher m =  Pattern.compile(":([A-Za-z][A-Za-z0-9_]*)").matcher(input);
+        Matcher m = PARAM.matcher(input);
         StringBuffer sb = new StringBuffer();
         Set<String> groups = new HashSet<>();
         while (m.find()) {
@@ -687,7 +770,7 @@ public class Router extends Middleware {
         Pattern regex = Pattern.compile(sb.toString());
         boolean exists = false;
         // verify if the binding already exists, if yes add to it
-        for (PatternBinding pb : bindings) {
+        for (PatternBinding pb : table.bindings) {
             if (pb.isFor(input)) {
                 exists = true;
                 pb.addMiddleware(handler);
@@ -697,7 +780,11 @@ public class Router extends Middleware {
 
         if (!exists) {
             PatternBinding binding = new PatternBinding(hashCode(), verb, input, regex, groups, handler);
-            bindings.add(binding);
+            final Integer override = syncDepthOverrides.get("route:" + input);
+            if (override != null) {
+                binding.syncDepth = override;
+            }
+            table.add(binding, input);
         }
 
         // also pass the vertx object to the routes
@@ -711,10 +798,10 @@ public class Router extends Middleware {
         }
     }
 
-    private void addRegEx(String verb, Pattern regex, IMiddleware handler[], List<PatternBinding> bindings) {
+    private void addRegEx(String verb, Pattern regex, IMiddleware handler[], RouteTable table) {
         boolean exists = false;
         // verify if the binding already exists, if yes add to it
-        for (PatternBinding pb : bindings) {
+        for (PatternBinding pb : table.bindings) {
             if (pb.isFor(regex)) {
                 pb.addMiddleware(handler);
                 exists = true;
@@ -724,7 +811,11 @@ public class Router extends Middleware {
 
         if (!exists) {
             PatternBinding binding = new PatternBinding(hashCode(), verb, null, regex, null, handler);
-            bindings.add(binding);
+            final Integer override = syncDepthOverrides.get("regex:" + regex.pattern());
+            if (override != null) {
+                binding.syncDepth = override;
+            }
+            table.add(binding, null);
         }
 
         // also pass the vertx object to the routes
@@ -738,9 +829,41 @@ public class Router extends Middleware {
         }
     }
 
-    private void route(final YokeRequest request, final Handler<Object> next, final List<PatternBinding> bindings) {
+    private void route(final YokeRequest request, final Handler<Object> next, final RouteTable table) {
 
-        new AsyncIterator<PatternBinding>(bindings) {
+        if (indexed) {
+            final List<RouteMatch> matches = table.match(request.path());
+
+            if (matches.isEmpty()) {
+                // continue with yoke
+                next.handle(null);
+                return;
+            }
+
+            new AsyncIterator<RouteMatch>(matches) {
+                @Override
+                public void handle(final RouteMatch match) {
+                    if (hasNext()) {
+                        route(request, match.binding, match.matcher, match.segments, new Handler<Object>() {
+                            @Override
+                            public void handle(Object err) {
+                                if (err == null) {
+                                    next();
+                                } else {
+                                    next.handle(err);
+                                }
+                            }
+                        });
+                    } else {
+                        // continue with yoke
+                        next.handle(null);
+                    }
+                }
+            };
+            return;
+        }
+
+        new AsyncIterator<PatternBinding>(table.bindings) {
             @Override
             public void handle(final PatternBinding binding) {
                 if (hasNext()) {
@@ -764,85 +887,39 @@ public class Router extends Middleware {
 
     private void route(final YokeRequest request, final PatternBinding binding, final Handler<Object> next) {
         final Matcher m = binding.pattern.matcher(request.path());
-        final Vertx vertx = vertx();
-        
-        if (m.matches()) {
-            final MultiMap params = request.params();
 
-            if (binding.paramNames != null) {
-                // Named params
-                new AsyncIterator<String>(binding.paramNames) {
-                    @Override
-                    public void handle(String param) {
-                        if (hasNext()) {
-                            params.set(param, m.group(param));
-                            final Middleware paramMiddleware = paramProcessors.get(param);
-                            if (paramMiddleware != null) {
-                                // do not block main loop
-                                vertx.runOnContext(new Handler<Void>() {
-                                    @Override
-                                    public void handle(Void event) {
-                                        paramMiddleware.handle(request, new Handler<Object>() {
-                                            @Override
-                                            public void handle(Object err) {
-                                                if (err == null) {
-                                                    next();
-                                                } else {
-                                                    next.handle(err);
-                                                }
-                                            }
-                                        });
-                                    }
-                                });
-                            } else {
-                                next();
-                            }
-                        } else {
-                            // middlewares
-                            new AsyncIterator<IMiddleware>(binding.middleware) {
-                                @Override
-                                public void handle(final IMiddleware middleware) {
-                                    if (hasNext()) {
-                                        // do not block main loop
-                                        vertx.runOnContext(new Handler<Void>() {
-                                            @Override
-                                            public void handle(Void event) {
-                                                middleware.handle(request, new Handler<Object>() {
-                                                    @Override
-                                                    public void handle(Object err) {
-                                                        if (err == null) {
-                                                            next();
-                                                        } else {
-                                                            next.handle(err);
-                                                        }
-                                                    }
-                                                });
-                                            }
-                                        });
-                                    } else {
-                                        next.handle(null);
-                                    }
-                                }
-                            };
-                        }
-                    }
-                };
-            } else {
-                // Un-named params
-                for (int i = 0; i < m.groupCount(); i++) {
-                    params.set("param" + i, m.group(i + 1));
-                }
+        if (m.matches()) {
+            route(request, binding, m, null, next);
+        } else {
+            next.handle(null);
+        }
+    }
 
-                // middlewares
-                new AsyncIterator<IMiddleware>(binding.middleware) {
-                    @Override
-                    public void handle(final IMiddleware middleware) {
-                        if (hasNext()) {
+    /**
+     * Runs a binding that is known to match the request. The captured values come either from the regex matcher or,
+     * for bindings resolved from the route index, from the split path segments.
+     */
+    private void route(final YokeRequest request, final PatternBinding binding, final Matcher m, final String[] segments, final Handler<Object> done) {
+        final Vertx vertx = vertx();
+        // a route that answers the request is timed until the response ends
+        final Timer next = new Timer(binding.stats, request.response(), done);
+        final MultiMap params = request.params();
+        final int maxDepth = binding.syncDepth >= 0 ? binding.syncDepth : syncDepth;
+
+        if (binding.paramNames != null) {
+            // Named params
+            new AsyncIterator<String>(binding.paramNames) {
+                @Override
+                public void handle(String param) {
+                    if (hasNext()) {
+                        params.set(param, segments != null ? segments[binding.paramIndex.get(param)] : m.group(param));
+                        final Middleware paramMiddleware = paramProcessors.get(param);
+                        if (paramMiddleware != null) {
                             // do not block main loop
-                            vertx.runOnContext(new Handler<Void>() {
+                            invoke(vertx, maxDepth, new Handler<Void>() {
                                 @Override
                                 public void handle(Void event) {
-                                    middleware.handle(request, new Handler<Object>() {
+                                    paramMiddleware.handle(request, new Handler<Object>() {
                                         @Override
                                         public void handle(Object err) {
                                             if (err == null) {
@@ -855,13 +932,131 @@ public class Router extends Middleware {
                                 }
                             });
                         } else {
-                            next.handle(null);
+                            next();
                         }
+                    } else {
+                        // middlewares
+                        new AsyncIterator<IMiddleware>(binding.middleware) {
+                            @Override
+                            public void handle(final IMiddleware middleware) {
+                                if (hasNext()) {
+                                    // do not block main loop
+                                    invoke(vertx, maxDepth, new Handler<Void>() {
+                                        @Override
+                                        public void handle(Void event) {
+                                            middleware.handle(request, new Handler<Object>() {
+                                                @Override
+                                                public void handle(Object err) {
+                                                    if (err == null) {
+                                                        next();
+                                                    } else {
+                                                        next.handle(err);
+                                                    }
+                                                }
+                                            });
+                                        }
+                                    });
+                                } else {
+                                    next.handle(null);
+                                }
+                            }
+                        };
                     }
-                };
+                }
+            };
+        } else {
+            // Un-named params
+            for (int i = 0; i < m.groupCount(); i++) {
+                params.set("param" + i, m.group(i + 1));
+            }
+
+            // middlewares
+            new AsyncIterator<IMiddleware>(binding.middleware) {
+                @Override
+                public void handle(final IMiddleware middleware) {
+                    if (hasNext()) {
+                        // do not block main loop
+                        invoke(vertx, maxDepth, new Handler<Void>() {
+                            @Override
+                            public void handle(Void event) {
+                                middleware.handle(request, new Handler<Object>() {
+                                    @Override
+                                    public void handle(Object err) {
+                                        if (err == null) {
+                                            next();
+                                        } else {
+                                            next.handle(err);
+                                        }
+                                    }
+                                });
+                            }
+                        });
+                    } else {
+                        next.handle(null);
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Wraps the handler that continues after a route and records the route latency once, either when the route calls
+     * next or when the response ends. While the route runs it is the response latency probe, the probe of the
+     * middleware running the router is notified after it and restored when the route calls next.
+     */
+    private static final class Timer implements Handler<Object>, LatencyStats.Probe {
+        private final LatencyStats stats;
+        private final YokeResponse response;
+        private final LatencyStats.Probe outer;
+        private final Handler<Object> next;
+        private final long started = System.nanoTime();
+        private boolean recorded;
+
+        private Timer(LatencyStats stats, YokeResponse response, Handler<Object> next) {
+            this.stats = stats;
+            this.response = response;
+            this.outer = response.latencyProbe();
+            this.next = next;
+            response.latencyProbe(this);
+        }
+
+        @Override
+        public void handle(Object err) {
+            record(err != null);
+            response.latencyProbe(outer);
+            next.handle(err);
+        }
+
+        @Override
+        public void ended(boolean error) {
+            record(error);
+            if (outer != null) {
+                outer.ended(error);
+            }
+        }
+
+        private void record(boolean error) {
+            if (!recorded) {
+                recorded = true;
+                stats.record(System.nanoTime() - started, error);
+            }
+        }
+    }
+
+    /**
+     * Calls the handler directly while the number of nested direct calls is below maxDepth, otherwise schedules it on
+     * the event loop which gives it a fresh stack.
+     */
+    private void invoke(final Vertx vertx, final int maxDepth, final Handler<Void> handler) {
+        if (depth < maxDepth) {
+            depth++;
+            try {
+                handler.handle(null);
+            } finally {
+                depth--;
             }
         } else {
-            next.handle(null);
+            vertx.runOnContext(handler);
         }
     }
 
@@ -875,9 +1070,19 @@ public class Router extends Middleware {
 
         private final List<IMiddleware> middleware = new ArrayList<>();
         private final Set<String> paramNames;
+        private final LatencyStats stats = new LatencyStats();
 
         private final ObjectName objectName;
 
+        // position in the verb binding list, defines the match precedence
+        private int order;
+        // when resolved from the route index, the path segment holding each named param
+        private Map<String, Integer> paramIndex;
+        // when resolved from the route index, true if the pattern ends with a slash (no optional trailing slash)
+        private boolean strict;
+        // sync depth override for this binding, -1 uses the router setting
+        private int syncDepth = -1;
+
         private PatternBinding(int hasCode, @NotNull String verb, @Nullable String route, @NotNull Pattern pattern, @Nullable Set<String> paramNames, @NotNull IMiddleware[] middleware) {
             this.route = route;
             this.pattern = pattern;
@@ -898,7 +1103,7 @@ public class Router extends Middleware {
             }
 
             try {
-                mbs.registerMBean(new RouteMBean(this.middleware), objectName);
+                mbs.registerMBean(new RouteMBean(this.middleware, stats), objectName);
             } catch (InstanceAlreadyExistsException e) {
                 // ignore
             } catch (MBeanRegistrationException | NotCompliantMBeanException e) {
@@ -920,7 +1125,7 @@ public class Router extends Middleware {
 
             // re register if present
             try {
-                mbs.registerMBean(new RouteMBean(this.middleware), objectName);
+                mbs.registerMBean(new RouteMBean(this.middleware, stats), objectName);
             } catch (InstanceAlreadyExistsException e) {
                 // ignore
             } catch (MBeanRegistrationException | NotCompliantMBeanException e) {
@@ -937,6 +1142,168 @@ public class Router extends Middleware {
         }
     }
 
+    /**
+     * Captured state of a binding that matched a request path, either the regex matcher or the split path segments
+     * when the match came from the route index.
+     */
+    private static class RouteMatch {
+        private final PatternBinding binding;
+        private final Matcher matcher;
+        private final String[] segments;
+
+        private RouteMatch(@NotNull PatternBinding binding, @Nullable Matcher matcher, @Nullable String[] segments) {
+            this.binding = binding;
+            this.matcher = matcher;
+            this.segments = segments;
+        }
+    }
+
+    /**
+     * A node of the route index, one per path segment. Static segments are looked up by exact value, named params
+     * share a single child since they accept any non empty segment.
+     */
+    private static class Node {
+        private Map<String, Node> statics;
+        private Node param;
+        private final List<PatternBinding> bindings = new ArrayList<>();
+
+        private Node child(@NotNull String segment) {
+            if (segment.length() > 1 && segment.charAt(0) == ':') {
+                if (param == null) {
+                    param = new Node();
+                }
+                return param;
+            }
+
+            if (statics == null) {
+                statics = new HashMap<>();
+            }
+
+            Node node = statics.get(segment);
+            if (node == null) {
+                node = new Node();
+                statics.put(segment, node);
+            }
+            return node;
+        }
+    }
+
+    /**
+     * All bindings for a HTTP verb. The list keeps the registration order (which is also the match precedence) while
+     * simple patterns are indexed by segment and everything else is kept aside to be tested as regular expressions.
+     */
+    private static class RouteTable {
+        // characters that have a special meaning once the pattern is compiled to a regular expression
+        private static final String REGEX_CHARS = "\\^$.|?*+()[]{}:";
+
+        private final List<PatternBinding> bindings = new ArrayList<>();
+        private final List<PatternBinding> regexBindings = new ArrayList<>();
+        private final Node root = new Node();
+
+        private void add(@NotNull PatternBinding binding, @Nullable String input) {
+            binding.order = bindings.size();
+            bindings.add(binding);
+
+            final String[] segments = input != null ? split(input) : null;
+
+            if (segments == null) {
+                regexBindings.add(binding);
+                return;
+            }
+
+            final Map<String, Integer> paramIndex = new HashMap<>();
+            Node node = root;
+
+            for (int i = 0; i < segments.length; i++) {
+                if (segments[i].length() > 0 && segments[i].charAt(0) == ':') {
+                    paramIndex.put(segments[i].substring(1), i);
+                }
+                node = node.child(segments[i]);
+            }
+
+            binding.paramIndex = paramIndex;
+            binding.strict = input.charAt(input.length() - 1) == '/';
+            node.bindings.add(binding);
+        }
+
+        /**
+         * Splits a pattern into segments, returns null if any segment cannot be matched literally or as a whole named
+         * param, in that case the pattern needs to be evaluated as a regular expression.
+         */
+        private static String[] split(@NotNull String input) {
+            final String[] segments = input.split("/", -1);
+
+            for (String segment : segments) {
+                if (PARAM.matcher(segment).matches()) {
+                    continue;
+                }
+                for (int i = 0; i < segment.length(); i++) {
+                    if (REGEX_CHARS.indexOf(segment.charAt(i)) != -1) {
+                        return null;
+                    }
+                }
+            }
+
+            return segments;
+        }
+
+        private List<RouteMatch> match(@NotNull String path) {
+            final List<RouteMatch> matches = new ArrayList<>();
+            final String[] segments = path.split("/", -1);
+
+            match(root, segments, 0, matches);
+
+            for (PatternBinding binding : regexBindings) {
+                final Matcher m = binding.pattern.matcher(path);
+                if (m.matches()) {
+                    matches.add(new RouteMatch(binding, m, null));
+                }
+            }
+
+            if (matches.size() > 1) {
+                Collections.sort(matches, new Comparator<RouteMatch>() {
+                    @Override
+                    public int compare(RouteMatch o1, RouteMatch o2) {
+                        return Integer.compare(o1.binding.order, o2.binding.order);
+                    }
+                });
+            }
+
+            return matches;
+        }
+
+        private void match(@NotNull Node node, @NotNull String[] segments, int i, @NotNull List<RouteMatch> matches) {
+            if (i == segments.length) {
+                for (PatternBinding binding : node.bindings) {
+                    matches.add(new RouteMatch(binding, null, segments));
+                }
+                return;
+            }
+
+            final String segment = segments[i];
+
+            // a single trailing slash is optional unless the pattern ends with a slash
+            if (i == segments.length - 1 && segment.length() == 0) {
+                for (PatternBinding binding : node.bindings) {
+                    if (!binding.strict) {
+                        matches.add(new RouteMatch(binding, null, segments));
+                    }
+                }
+            }
+
+            if (node.statics != null) {
+                final Node child = node.statics.get(segment);
+                if (child != null) {
+                    match(child, segments, i + 1, matches);
+                }
+            }
+
+            if (node.param != null && segment.length() > 0) {
+                match(node.param, segments, i + 1, matches);
+            }
+        }
+    }
+
     public static Router from(@NotNull Object... objs) {
         final Router router = new Router();
         from(router, objs);
@@ -10,6 +10,7 @@ import org.vertx.java.core.Handler;
 
 import com.jetdrone.vertx.yoke.Middleware;
 import com.jetdrone.vertx.yoke.core.YokeCookie;
+import com.jetdrone.vertx.yoke.security.MacPool;
 import com.jetdrone.vertx.yoke.store.json.SessionObject;
 
 /**
@@ -17,7 +18,7 @@ import com.jetdrone.vertx.yoke.store.json.SessionObject;
  */
 public class Session extends Middleware {
 
-    private final Mac hmacSHA256;
+    private final MacPool hmacSHA256;
 
     private final String name;
     private final String path;
@@ -29,7 +30,7 @@ public class Session extends Middleware {
         this.path = path;
         this.httpOnly = httpOnly;
         this.maxAge = maxAge;
-        hmacSHA256 = mac;
+        hmacSHA256 = new MacPool(mac);
     }
 
     public Session(@NotNull final String path, final boolean httpOnly, final long maxAge, @NotNull final Mac mac) {
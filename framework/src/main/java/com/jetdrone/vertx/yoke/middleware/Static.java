@@ -5,29 +5,55 @@ package com.jetdrone.vertx.yoke.middleware;
 
 import com.jetdrone.vertx.yoke.Middleware;
 import com.jetdrone.vertx.yoke.MimeType;
+import com.jetdrone.vertx.yoke.core.FileCache;
+import com.jetdrone.vertx.yoke.core.WorkerPool;
+import com.jetdrone.vertx.yoke.core.impl.ConcurrentLRUCache;
+import com.jetdrone.vertx.yoke.jmx.CacheMBean;
 import com.jetdrone.vertx.yoke.util.Utils;
 import org.jetbrains.annotations.NotNull;
 import org.vertx.java.core.*;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.file.AsyncFile;
 import org.vertx.java.core.file.FileProps;
 import org.vertx.java.core.file.FileSystem;
 import org.vertx.java.core.json.JsonArray;
 
+import javax.management.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.TimeZone;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * # Static
  *
  * Static file server with the given ```root``` path. Optionaly will also generate index pages for directory listings.
+ *
+ * Files are sent as is, the Compress middleware does not apply to them. To serve compressed assets either enable
+ * ```precompressed``` to serve sibling ```.br``` / ```.gz``` files created at build time, or enable ```compress``` to
+ * gzip eligible files once on first access and keep the result in memory.
+ *
+ * Single and multiple byte ranges are supported (```206 Partial Content```, ```multipart/byteranges```), ```If-Range```
+ * is validated against the etag or the last modified date of the file.
  */
 public class Static extends Middleware {
 
     /**
-     * SimpleDateFormat to format date objects into ISO format.
+     * SimpleDateFormat to format date objects into ISO format, one per thread.
      */
-    private final SimpleDateFormat ISODATE;
+    private static final ThreadLocal<SimpleDateFormat> ISODATE = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            final SimpleDateFormat df = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.ENGLISH);
+            df.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return df;
+        }
+    };
 
     /**
      * Cache for the HTML template of the directory listing page
@@ -54,6 +80,65 @@ public class Static extends Middleware {
      */
     private final boolean includeHidden;
 
+    /**
+     * Requests asking for more ranges than this get the whole file
+     */
+    private static final int MAX_RANGES = 16;
+
+    /**
+     * Size of the chunks read from disk when sending byte ranges
+     */
+    private static final int RANGE_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Serve sibling .br/.gz files when the client accepts the encoding
+     */
+    private boolean precompressed;
+
+    /**
+     * Content types that are gzipped on first access, null when disabled
+     */
+    private Pattern compressFilter;
+
+    /**
+     * Files larger than this are never gzipped in memory
+     */
+    private long compressMaxSize;
+
+    /**
+     * Gzipped files, keyed by file name and validated against size and modification time
+     */
+    private ConcurrentLRUCache<String, Compressed> compressed;
+
+    /**
+     * Threads compressing files, so large files do not block the event loop
+     */
+    private WorkerPool compressors;
+
+    /**
+     * File metadata cache, null when disabled
+     */
+    private FileCache cache;
+
+    /**
+     * A gzipped copy of a file
+     */
+    private static final class Compressed {
+        final long lastModified;
+        final long size;
+        final Buffer data;
+
+        Compressed(FileProps props, Buffer data) {
+            this.lastModified = props.lastModifiedTime().getTime();
+            this.size = props.size();
+            this.data = data;
+        }
+
+        boolean isFresh(FileProps props) {
+            return lastModified == props.lastModifiedTime().getTime() && size == props.size();
+        }
+    }
+
     /**
      * Create a new Static File Server Middleware
      *
@@ -79,9 +164,6 @@ public class Static extends Middleware {
         this.includeHidden = includeHidden;
         this.directoryListing = directoryListing;
         this.directoryTemplate = Utils.readResourceToBuffer(getClass(), "directory.html").toString();
-
-        ISODATE = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz");
-        ISODATE.setTimeZone(TimeZone.getTimeZone("UTC"));
     }
 
     /**
@@ -114,18 +196,101 @@ public class Static extends Middleware {
         this(root, 86400000, false, false);
     }
 
+    /**
+     * Serve precompressed variants of the requested files. When the client accepts ```br``` or ```gzip``` and a file
+     * with the same name plus ```.br``` or ```.gz``` exists (and is not older than the original) it is sent instead
+     * with the matching ```content-encoding```.
+     *
+     * <pre>
+     * new Yoke(...)
+     *   .use(new Static("webroot").precompressed(true));
+     * </pre>
+     *
+     * @param precompressed enable the lookup of compressed variants
+     */
+    public Static precompressed(boolean precompressed) {
+        this.precompressed = precompressed;
+        return this;
+    }
+
+    /**
+     * Gzip files whose content type matches the filter the first time they are requested and keep the compressed copy
+     * in memory. The copy is discarded as soon as the size or modification time of the file changes. Compression runs
+     * on a small pool of worker threads, while it is busy files are sent uncompressed.
+     *
+     * <pre>
+     * new Yoke(...)
+     *   .use(new Static("webroot").compress(Pattern.compile("text|javascript|json|svg"), 1024 * 1024, 256));
+     * </pre>
+     *
+     * @param filter     Regular expression of the mime types to compress
+     * @param maxSize    files larger than this (in bytes) are sent uncompressed
+     * @param maxEntries maximum number of compressed files to keep
+     */
+    public Static compress(@NotNull final Pattern filter, final long maxSize, final int maxEntries) {
+        this.compressFilter = filter;
+        this.compressMaxSize = maxSize;
+        this.compressed = new ConcurrentLRUCache<>(maxEntries);
+        if (compressors == null) {
+            compressors = new WorkerPool("static-gzip", Math.max(1, Runtime.getRuntime().availableProcessors() / 2), 256);
+        }
+        return this;
+    }
+
+    /**
+     * Keep file metadata (and the content of small files) in memory so hot assets are served without touching the
+     * file system. Entries are trusted for ```ttl``` milliseconds, after that the file system is checked again. The
+     * cache is exposed on JMX with its size, hit ratio and eviction count.
+     *
+     * <pre>
+     * new Yoke(...)
+     *   .use(new Static("webroot").cache(5000, 1024, 64 * 1024));
+     * </pre>
+     *
+     * @param ttl         time in milliseconds an entry is trusted
+     * @param maxEntries  maximum number of files to keep track of
+     * @param maxFileSize files up to this size (in bytes) are kept in memory, 0 only caches metadata
+     */
+    public Static cache(final long ttl, final int maxEntries, final long maxFileSize) {
+        final MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            final ObjectName objectName = new ObjectName("com.jetdrone.yoke:type=FileCache@" + hashCode() + ",root=" + ObjectName.quote(root));
+
+            if (cache != null) {
+                try {
+                    mbs.unregisterMBean(objectName);
+                } catch (InstanceNotFoundException e) {
+                    // ignore
+                }
+            }
+
+            cache = new FileCache(ttl, maxEntries, maxFileSize);
+            mbs.registerMBean(new CacheMBean(cache, "File Cache MBean"), objectName);
+        } catch (MalformedObjectNameException | InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException e) {
+            throw new RuntimeException(e);
+        }
+
+        return this;
+    }
+
+    private static String etag(final FileProps props) {
+        return "\"" + props.size() + "-" + props.lastModifiedTime().getTime() + "\"";
+    }
+
     /**
      * Create all required header so content can be cache by Caching servers or Browsers
      *
      * @param request
-     * @param props
+     * @param etag
+     * @param lastModified
      */
-    private void writeHeaders(final YokeRequest request, final FileProps props) {
+    private void writeHeaders(final YokeRequest request, final String etag, final String lastModified) {
 
         MultiMap headers = request.response().headers();
 
         if (!headers.contains("etag")) {
-            headers.set("etag", "\"" + props.size() + "-" + props.lastModifiedTime().getTime() + "\"");
+            headers.set("etag", etag);
         }
 
         if (!headers.contains("date")) {
@@ -137,7 +302,7 @@ public class Static extends Middleware {
         }
 
         if (!headers.contains("last-modified")) {
-            headers.set("last-modified", format(props.lastModifiedTime()));
+            headers.set("last-modified", lastModified);
         }
     }
 
@@ -147,35 +312,136 @@ public class Static extends Middleware {
      * @param source
      * @throws ParseException
      */
-    private Date parse(String source) throws ParseException {
-        synchronized (ISODATE) {
-            return ISODATE.parse(source);
-        }
+    private static Date parse(String source) throws ParseException {
+        return ISODATE.get().parse(source);
     }
 
     /**
      * Convert thread safe a date to a string  using a SimpleDateFormat
      * @param date
      */
-    private String format(Date date) {
-        synchronized (ISODATE) {
-            return ISODATE.format(date);
-        }
+    private static String format(Date date) {
+        return ISODATE.get().format(date);
     }
 
     /**
-     * Write a file into the response body
+     * Write a file into the response body. The representation (byte ranges, precompressed variant, gzipped copy or the
+     * file as is) is chosen first, and the freshness of the client copy is checked against the etag of that
+     * representation.
      *
      * @param request
      * @param file
      * @param props
      */
-    private void sendFile(final YokeRequest request, final String file, final FileProps props) {
+    private void sendFile(final YokeRequest request, final String file, final FileProps props, final Buffer content, final FileCache.Entry entry, final Handler<Object> next) {
         // write content type
         String contentType = MimeType.getMime(file);
         String charset = MimeType.getCharset(contentType);
         request.response().setContentType(contentType, charset);
-        request.response().putHeader("Content-Length", Long.toString(props.size()));
+        request.response().putHeader("accept-ranges", "bytes");
+
+        final boolean compressible = compressFilter != null && props.size() <= compressMaxSize && compressFilter.matcher(contentType).find();
+
+        if (precompressed || compressible) {
+            request.response().putHeader("vary", "accept-encoding");
+        }
+
+        // byte ranges are always served from the original file
+        final String range = request.getHeader("range");
+
+        if (range != null && ifRange(request)) {
+            final long[] ranges = parseRanges(range, props.size());
+            if (ranges != null) {
+                if (!notModified(request)) {
+                    sendRanges(request, file, props.size(), request.response().headers().get("content-type"), ranges, content, next);
+                }
+                return;
+            }
+        }
+
+        if (precompressed || compressible) {
+            final String accept = request.getHeader("accept-encoding");
+
+            if (accept != null) {
+                final List<String> encodings = new ArrayList<>(2);
+                if (precompressed && accepts(accept, "br")) {
+                    encodings.add("br");
+                }
+                if (accepts(accept, "gzip")) {
+                    encodings.add("gzip");
+                }
+
+                if (!encodings.isEmpty()) {
+                    sendVariant(request, file, props, content, entry, request.response().headers().get("etag"), encodings, 0, compressible);
+                    return;
+                }
+            }
+        }
+
+        sendIdentity(request, file, props, content);
+    }
+
+    /**
+     * Send the file as is, unless the client copy is still fresh.
+     */
+    private void sendIdentity(final YokeRequest request, final String file, final FileProps props, final Buffer content) {
+        if (notModified(request)) {
+            return;
+        }
+
+        if (content != null) {
+            request.response().putHeader("Content-Length", Integer.toString(content.length()));
+
+            // head support
+            if ("HEAD".equals(request.method())) {
+                request.response().end();
+            } else {
+                request.response().end(content);
+            }
+            return;
+        }
+
+        sendFile(request, file, props.size());
+    }
+
+    /**
+     * Answers 304 if the client copy of the representation being sent is still fresh.
+     */
+    private boolean notModified(final YokeRequest request) {
+        if (isFresh(request)) {
+            request.response().setStatusCode(304);
+            request.response().end();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Each content coding is a different representation and gets its own etag, so validators of a compressed copy
+     * (e.g. If-Range) never match the original file.
+     */
+    private static String variantEtag(final String etag, final String encoding) {
+        final String suffix = "br".equals(encoding) ? "-br" : "-gz";
+
+        if (etag.endsWith("\"")) {
+            return etag.substring(0, etag.length() - 1) + suffix + "\"";
+        }
+
+        return etag + suffix;
+    }
+
+    private static void encoded(final YokeRequest request, final String etag, final String encoding) {
+        request.response().headers().set("content-encoding", encoding);
+        request.response().headers().set("etag", variantEtag(etag, encoding));
+    }
+
+    private static void identity(final YokeRequest request, final String etag) {
+        request.response().headers().remove("content-encoding");
+        request.response().headers().set("etag", etag);
+    }
+
+    private void sendFile(final YokeRequest request, final String file, final long size) {
+        request.response().putHeader("Content-Length", Long.toString(size));
 
         // head support
         if ("HEAD".equals(request.method())) {
@@ -185,6 +451,409 @@ public class Static extends Middleware {
         }
     }
 
+    /**
+     * A range request is only honoured if the If-Range validator (when present) still matches the file.
+     *
+     * @param request
+     */
+    private boolean ifRange(final YokeRequest request) {
+        final String ifRange = request.getHeader("if-range");
+
+        if (ifRange == null) {
+            return true;
+        }
+
+        // entity tag or http date
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(request.response().headers().get("etag"));
+        }
+
+        return ifRange.equals(request.response().headers().get("last-modified"));
+    }
+
+    /**
+     * Parse a Range header into pairs of first and last byte positions (inclusive).
+     *
+     * @param header the range header value
+     * @param size   the file size
+     * @return null if the header must be ignored, an empty array if no range can be satisfied
+     */
+    private static long[] parseRanges(final String header, final long size) {
+        if (!header.startsWith("bytes=")) {
+            return null;
+        }
+
+        final String[] specs = header.substring(6).split(",");
+
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+
+        final long[] ranges = new long[specs.length * 2];
+        int n = 0;
+
+        for (String spec : specs) {
+            spec = spec.trim();
+            final int dash = spec.indexOf('-');
+
+            if (dash == -1) {
+                return null;
+            }
+
+            final long first;
+            final long last;
+
+            try {
+                if (dash == 0) {
+                    // suffix range, the last N bytes
+                    final long suffix = Long.parseLong(spec.substring(1));
+                    if (suffix < 0) {
+                        return null;
+                    }
+                    first = Math.max(0, size - suffix);
+                    last = suffix == 0 ? -1 : size - 1;
+                } else {
+                    first = Long.parseLong(spec.substring(0, dash));
+                    if (dash == spec.length() - 1) {
+                        last = size - 1;
+                    } else {
+                        last = Long.parseLong(spec.substring(dash + 1));
+                        if (last < first) {
+                            return null;
+                        }
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+
+            // unsatisfiable ranges are skipped
+            if (first >= size || last < first) {
+                continue;
+            }
+
+            ranges[n++] = first;
+            ranges[n++] = Math.min(last, size - 1);
+        }
+
+        return Arrays.copyOf(ranges, n);
+    }
+
+    /**
+     * Send a 206 response with the requested ranges, or 416 if none can be satisfied. Ranges of files held in memory
+     * are slices of the cached buffer, other files are read from disk in chunks following the response back pressure.
+     */
+    private void sendRanges(final YokeRequest request, final String file, final long size, final String contentType, final long[] ranges, final Buffer content, final Handler<Object> next) {
+        final YokeResponse response = request.response();
+        // partial content is never compressed
+        response.setFilter(null);
+
+        if (ranges.length == 0) {
+            response.setStatusCode(416);
+            response.setStatusMessage("Requested Range Not Satisfiable");
+            response.putHeader("content-range", "bytes */" + size);
+            response.end();
+            return;
+        }
+
+        // Buffers are sent as is, long[] are file regions
+        final List<Object> parts = new ArrayList<>();
+        long length = 0;
+
+        if (ranges.length == 2) {
+            response.putHeader("content-range", "bytes " + ranges[0] + "-" + ranges[1] + "/" + size);
+            parts.add(new long[] {ranges[0], ranges[1]});
+            length = ranges[1] - ranges[0] + 1;
+        } else {
+            final String boundary = UUID.randomUUID().toString().replace("-", "");
+            response.putHeader("content-type", "multipart/byteranges; boundary=" + boundary);
+
+            for (int i = 0; i < ranges.length; i += 2) {
+                final Buffer head = new Buffer((i == 0 ? "" : "\r\n") + "--" + boundary + "\r\n" +
+                        "Content-Type: " + contentType + "\r\n" +
+                        "Content-Range: bytes " + ranges[i] + "-" + ranges[i + 1] + "/" + size + "\r\n\r\n");
+
+                parts.add(head);
+                parts.add(new long[] {ranges[i], ranges[i + 1]});
+                length += head.length() + ranges[i + 1] - ranges[i] + 1;
+            }
+
+            final Buffer tail = new Buffer("\r\n--" + boundary + "--\r\n");
+            parts.add(tail);
+            length += tail.length();
+        }
+
+        response.setStatusCode(206);
+        response.setStatusMessage("Partial Content");
+        response.putHeader("Content-Length", Long.toString(length));
+
+        // head support
+        if ("HEAD".equals(request.method())) {
+            response.end();
+            return;
+        }
+
+        if (content != null) {
+            for (Object part : parts) {
+                if (part instanceof Buffer) {
+                    response.write((Buffer) part);
+                } else {
+                    final long[] region = (long[]) part;
+                    // slices share the cached memory
+                    response.write(new Buffer(content.getByteBuf().slice((int) region[0], (int) (region[1] - region[0] + 1))));
+                }
+            }
+            response.end();
+            return;
+        }
+
+        vertx().fileSystem().open(file, null, true, false, false, new AsyncResultHandler<AsyncFile>() {
+            @Override
+            public void handle(AsyncResult<AsyncFile> asyncResult) {
+                if (asyncResult.failed()) {
+                    next.handle(asyncResult.cause());
+                } else {
+                    new RangeWriter(response, asyncResult.result(), parts).handle(null);
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the parts of a range response, reading file regions chunk by chunk and pausing while the response write
+     * queue is full.
+     */
+    private static final class RangeWriter implements Handler<Void> {
+
+        private final YokeResponse response;
+        private final AsyncFile file;
+        private final List<Object> parts;
+
+        private int index;
+        private long position;
+        private long remaining;
+
+        RangeWriter(YokeResponse response, AsyncFile file, List<Object> parts) {
+            this.response = response;
+            this.file = file;
+            this.parts = parts;
+        }
+
+        @Override
+        public void handle(Void event) {
+            while (!response.writeQueueFull()) {
+                if (remaining == 0) {
+                    if (index == parts.size()) {
+                        file.close();
+                        response.end();
+                        return;
+                    }
+
+                    final Object part = parts.get(index++);
+
+                    if (part instanceof Buffer) {
+                        response.write((Buffer) part);
+                        continue;
+                    }
+
+                    final long[] region = (long[]) part;
+                    position = region[0];
+                    remaining = region[1] - region[0] + 1;
+                }
+
+                final int length = (int) Math.min(RANGE_CHUNK_SIZE, remaining);
+
+                file.read(new Buffer(length), 0, position, length, new AsyncResultHandler<Buffer>() {
+                    @Override
+                    public void handle(AsyncResult<Buffer> asyncResult) {
+                        // the file cannot be read or was truncated, the declared length cannot be honoured anymore
+                        if (asyncResult.failed() || asyncResult.result().length() == 0) {
+                            file.close();
+                            response.close();
+                            return;
+                        }
+
+                        final Buffer chunk = asyncResult.result();
+                        position += chunk.length();
+                        remaining -= chunk.length();
+                        response.write(chunk);
+                        RangeWriter.this.handle(null);
+                    }
+                });
+                return;
+            }
+
+            response.drainHandler(this);
+        }
+    }
+
+    /**
+     * Try to send the encodings in order of preference, falling back to the original file. The lookups of the
+     * precompressed variants are kept in the file cache entry when there is one.
+     */
+    private void sendVariant(final YokeRequest request, final String file, final FileProps props, final Buffer content, final FileCache.Entry entry, final String etag, final List<String> encodings, final int index, final boolean compressible) {
+        if (index == encodings.size()) {
+            if (compressible && encodings.contains("gzip")) {
+                sendCompressed(request, file, props, content, etag);
+            } else {
+                sendIdentity(request, file, props, content);
+            }
+            return;
+        }
+
+        final String encoding = encodings.get(index);
+
+        if (!precompressed) {
+            sendVariant(request, file, props, content, entry, etag, encodings, index + 1, compressible);
+            return;
+        }
+
+        if (entry != null && entry.knowsVariant(encoding)) {
+            sendVariant(request, file, props, content, entry, etag, encodings, index, compressible, encoding, entry.variant(encoding));
+            return;
+        }
+
+        vertx().fileSystem().props(variantFile(file, encoding), new AsyncResultHandler<FileProps>() {
+            @Override
+            public void handle(AsyncResult<FileProps> asyncResult) {
+                FileProps variant = null;
+
+                // a stale variant (older than the original) is ignored
+                if (asyncResult.succeeded() && asyncResult.result().isRegularFile() &&
+                        asyncResult.result().lastModifiedTime().getTime() >= props.lastModifiedTime().getTime()) {
+                    variant = asyncResult.result();
+                }
+
+                if (entry != null) {
+                    entry.variant(encoding, variant);
+                }
+
+                sendVariant(request, file, props, content, entry, etag, encodings, index, compressible, encoding, variant);
+            }
+        });
+    }
+
+    private void sendVariant(final YokeRequest request, final String file, final FileProps props, final Buffer content, final FileCache.Entry entry, final String etag, final List<String> encodings, final int index, final boolean compressible, final String encoding, final FileProps variant) {
+        if (variant == null) {
+            sendVariant(request, file, props, content, entry, etag, encodings, index + 1, compressible);
+            return;
+        }
+
+        encoded(request, etag, encoding);
+
+        if (!notModified(request)) {
+            sendFile(request, variantFile(file, encoding), variant.size());
+        }
+    }
+
+    private static String variantFile(final String file, final String encoding) {
+        return file + ("br".equals(encoding) ? ".br" : ".gz");
+    }
+
+    /**
+     * Send the gzipped copy of a file, compressing it if there is no fresh copy in memory. Compression runs on a
+     * worker thread, not on the event loop.
+     */
+    private void sendCompressed(final YokeRequest request, final String file, final FileProps props, final Buffer content, final String etag) {
+        encoded(request, etag, "gzip");
+
+        // the client copy is still fresh, no need to compress
+        if (notModified(request)) {
+            return;
+        }
+
+        final Compressed entry = compressed.get(file);
+
+        if (entry != null && entry.isFresh(props)) {
+            sendCompressed(request, entry.data);
+            return;
+        }
+
+        final Vertx vertx = vertx();
+
+        vertx.fileSystem().readFile(file, new AsyncResultHandler<Buffer>() {
+            @Override
+            public void handle(AsyncResult<Buffer> asyncResult) {
+                if (asyncResult.failed()) {
+                    identity(request, etag);
+                    sendIdentity(request, file, props, content);
+                    return;
+                }
+
+                final Buffer source = asyncResult.result();
+
+                compressors.execute(vertx, new Callable<Buffer>() {
+                    @Override
+                    public Buffer call() throws IOException {
+                        return gzip(source);
+                    }
+                }, new AsyncResultHandler<Buffer>() {
+                    @Override
+                    public void handle(AsyncResult<Buffer> gzipped) {
+                        if (gzipped.failed()) {
+                            // the pool is busy or compression failed, send the file as is
+                            identity(request, etag);
+                            sendIdentity(request, file, props, content);
+                            return;
+                        }
+
+                        compressed.put(file, new Compressed(props, gzipped.result()));
+                        sendCompressed(request, gzipped.result());
+                    }
+                });
+            }
+        });
+    }
+
+    private void sendCompressed(final YokeRequest request, final Buffer data) {
+        final YokeResponse response = request.response();
+        // the content is already compressed
+        response.setFilter(null);
+        response.putHeader("Content-Length", Integer.toString(data.length()));
+
+        // head support
+        if ("HEAD".equals(request.method())) {
+            response.end();
+        } else {
+            response.end(data);
+        }
+    }
+
+    private static Buffer gzip(Buffer source) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(source.length() / 2 + 32);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(source.getBytes());
+        }
+        return new Buffer(bytes.toByteArray());
+    }
+
+    /**
+     * Verify if an accept-encoding header allows a content coding, ignoring codings with q=0.
+     */
+    private static boolean accepts(String acceptEncoding, String coding) {
+        for (String token : acceptEncoding.split(",")) {
+            final String[] parts = token.split(";");
+            final String name = parts[0].trim();
+
+            if (name.equalsIgnoreCase(coding) || "*".equals(name)) {
+                for (int i = 1; i < parts.length; i++) {
+                    final String param = parts[i].trim();
+                    if (param.startsWith("q=")) {
+                        try {
+                            if (Float.parseFloat(param.substring(2)) == 0f) {
+                                return false;
+                            }
+                        } catch (NumberFormatException e) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Generate Directory listing
      *
@@ -370,6 +1039,19 @@ public class Static extends Middleware {
                 }
             }
 
+            if (cache != null) {
+                final FileCache.Entry entry = cache.get(file);
+                if (entry != null) {
+                    if (entry.exists()) {
+                        serve(request, file, entry, entry.props, entry.etag, entry.lastModified, entry.content(), next);
+                    } else {
+                        // no static file found, let the next middleware handle it
+                        next.handle(null);
+                    }
+                    return;
+                }
+            }
+
             final FileSystem fileSystem = vertx().fileSystem();
 
             fileSystem.exists(file, new AsyncResultHandler<Boolean>() {
@@ -379,6 +1061,9 @@ public class Static extends Middleware {
                         next.handle(asyncResult.cause());
                     } else {
                         if (!asyncResult.result()) {
+                            if (cache != null) {
+                                cache.put(file, null, null, null, null);
+                            }
                             // no static file found, let the next middleware handle it
                             next.handle(null);
                         } else {
@@ -388,31 +1073,27 @@ public class Static extends Middleware {
                                     if (props.failed()) {
                                         next.handle(props.cause());
                                     } else {
-                                        if (props.result().isDirectory()) {
-                                            if (directoryListing) {
-                                                // write cache control headers
-                                                writeHeaders(request, props.result());
-                                                // verify if we are still fresh
-                                                if (isFresh(request)) {
-                                                    request.response().setStatusCode(304);
-                                                    request.response().end();
-                                                } else {
-                                                    sendDirectory(request, file, next);
+                                        final FileProps fileProps = props.result();
+                                        final String etag = etag(fileProps);
+                                        final String lastModified = format(fileProps.lastModifiedTime());
+
+                                        if (cache == null) {
+                                            serve(request, file, null, fileProps, etag, lastModified, null, next);
+                                        } else if (cache.holdsContent(fileProps)) {
+                                            fileSystem.readFile(file, new AsyncResultHandler<Buffer>() {
+                                                @Override
+                                                public void handle(AsyncResult<Buffer> content) {
+                                                    if (content.failed()) {
+                                                        next.handle(content.cause());
+                                                    } else {
+                                                        final FileCache.Entry entry = cache.put(file, fileProps, etag, lastModified, content.result());
+                                                        serve(request, file, entry, fileProps, etag, lastModified, entry.content(), next);
+                                                    }
                                                 }
-                                            } else {
-                                                // we are not listing directories
-                                                next.handle(null);
-                                            }
+                                            });
                                         } else {
-                                            // write cache control headers
-                                            writeHeaders(request, props.result());
-                                            // verify if we are still fresh
-                                            if (isFresh(request)) {
-                                                request.response().setStatusCode(304);
-                                                request.response().end();
-                                            } else {
-                                                sendFile(request, file, props.result());
-                                            }
+                                            final FileCache.Entry entry = cache.put(file, fileProps, etag, lastModified, null);
+                                            serve(request, file, entry, fileProps, etag, lastModified, null, next);
                                         }
                                     }
                                 }
@@ -423,4 +1104,28 @@ public class Static extends Middleware {
             });
         }
     }
+
+    private void serve(final YokeRequest request, final String file, final FileCache.Entry entry, final FileProps props, final String etag, final String lastModified, final Buffer content, final Handler<Object> next) {
+        if (props.isDirectory()) {
+            if (directoryListing) {
+                // write cache control headers
+                writeHeaders(request, etag, lastModified);
+                // verify if we are still fresh
+                if (isFresh(request)) {
+                    request.response().setStatusCode(304);
+                    request.response().end();
+                } else {
+                    sendDirectory(request, file, next);
+                }
+            } else {
+                // we are not listing directories
+                next.handle(null);
+            }
+        } else {
+            // write cache control headers
+            writeHeaders(request, etag, lastModified);
+            // freshness is verified once the representation is known
+            sendFile(request, file, props, content, entry, next);
+        }
+    }
 }
@@ -6,10 +6,9 @@ package com.jetdrone.vertx.yoke.middleware;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -29,12 +28,16 @@ import org.vertx.java.core.http.HttpServerFileUpload;
 import org.vertx.java.core.http.HttpServerRequest;
 import org.vertx.java.core.http.HttpVersion;
 import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonElement;
 import org.vertx.java.core.json.JsonObject;
 import org.vertx.java.core.net.NetSocket;
 
 import com.jetdrone.vertx.yoke.core.Context;
+import com.jetdrone.vertx.yoke.core.JSON;
 import com.jetdrone.vertx.yoke.core.YokeCookie;
 import com.jetdrone.vertx.yoke.core.YokeFileUpload;
+import com.jetdrone.vertx.yoke.security.MacPool;
+import com.jetdrone.vertx.yoke.store.PartialUpdateSessionStore;
 import com.jetdrone.vertx.yoke.store.SessionStore;
 import com.jetdrone.vertx.yoke.store.json.SessionObject;
 
@@ -43,34 +46,43 @@ import com.jetdrone.vertx.yoke.store.json.SessionObject;
  */
 public class YokeRequest implements HttpServerRequest {
 
-    private static final Comparator<String> ACCEPT_X_COMPARATOR = new Comparator<String>() {
-        float getQuality(String s) {
-            if (s == null) {
-                return 0;
-            }
+    /**
+     * JsonObject backed by a Map without copying it, changes made through either one are seen by the other
+     */
+    private static final class SharedJsonObject extends JsonObject {
+        SharedJsonObject(Map<String, Object> map) {
+            super(map, false);
+        }
 
-            String[] params = s.split(" *; *");
-            for (int i = 1; i < params.length; i++) {
-                String[] q = params[1].split(" *= *");
-                if ("q".equals(q[0])) {
-                    return Float.parseFloat(q[1]);
-                }
-            }
-            return 1;
-        }
-        @Override
-        public int compare(String o1, String o2) {
-            float f1 = getQuality(o1);
-            float f2 = getQuality(o2);
-            if (f1 < f2) {
-                return 1;
-            }
-            if (f1 > f2) {
-                return -1;
-            }
-            return 0;
+        boolean wraps(Object value) {
+            return map == value;
         }
-    };
+    }
+
+    /**
+     * JsonArray backed by a List without copying it, changes made through either one are seen by the other
+     */
+    private static final class SharedJsonArray extends JsonArray {
+        SharedJsonArray(List list) {
+            super(list, false);
+        }
+
+        boolean wraps(Object value) {
+            return list == value;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JsonElement wrap(Object value) {
+        return value instanceof Map ? new SharedJsonObject((Map<String, Object>) value) : new SharedJsonArray((List) value);
+    }
+
+    private static boolean wraps(JsonElement json, Object value) {
+        if (json instanceof SharedJsonObject) {
+            return ((SharedJsonObject) json).wraps(value);
+        }
+        return json != null && ((SharedJsonArray) json).wraps(value);
+    }
 
     // the original request (if extensions need to access it, use the accessor)
     final private HttpServerRequest request;
@@ -88,8 +100,19 @@ public class YokeRequest implements HttpServerRequest {
     private long bodyLengthLimit = -1;
     // the body is protected so extensions can access the raw object instead of casted versions.
     protected Object body;
+    // json wrappers of the body and context values, created on first access
+    private JsonElement bodyJson;
+    private Map<String, JsonElement> views;
     private Map<String, YokeFileUpload> files;
-    private Set<YokeCookie> cookies;
+    private RequestCookies cookies;
+    // parsed content type
+    private String contentTypeHeader;
+    private MediaRanges.Range contentType;
+    // parsed accept and accept-language headers
+    private String acceptHeader;
+    private MediaRanges accept;
+    private String languageHeader;
+    private MediaRanges language;
     // control flags
     private boolean expectMultiPartCalled = false;
 
@@ -104,6 +127,9 @@ public class YokeRequest implements HttpServerRequest {
     }
 
     /** Allow getting properties in a generified way.
+     *
+     * Map and List values are returned as JsonObject and JsonArray backed by the value itself, the wrapper is created
+     * once and shared by all the calls while the value is not replaced.
      *
      * @param name The key to get
      * @return {R} The found object
@@ -113,11 +139,17 @@ public class YokeRequest implements HttpServerRequest {
         // do some conversions for JsonObject/JsonArray
         Object o = context.get(name);
 
-        if (o instanceof Map) {
-            return (R) new JsonObject((Map) o);
-        }
-        if (o instanceof List) {
-            return (R) new JsonArray((List) o);
+        if (o instanceof Map || o instanceof List) {
+            if (views == null) {
+                views = new HashMap<>();
+            }
+
+            JsonElement view = views.get(name);
+            if (!wraps(view, o)) {
+                view = wrap(o);
+                views.put(name, view);
+            }
+            return (R) view;
         }
         return (R) o;
     }
@@ -187,7 +219,10 @@ public class YokeRequest implements HttpServerRequest {
      * @return Set of cookies
      */
     public Set<YokeCookie> cookies() {
-        return cookies;
+        if (cookies != null) {
+            return cookies.all();
+        }
+        return null;
     }
 
     /** Allow getting Cookie by name.
@@ -197,11 +232,7 @@ public class YokeRequest implements HttpServerRequest {
      */
     public YokeCookie getCookie(@NotNull final String name) {
         if (cookies != null) {
-            for (YokeCookie c : cookies) {
-                if (name.equals(c.getName())) {
-                    return c;
-                }
-            }
+            return cookies.get(name);
         }
         return null;
     }
@@ -212,15 +243,10 @@ public class YokeRequest implements HttpServerRequest {
      * @return The found objects
      */
     public List<YokeCookie> getAllCookies(@NotNull final String name) {
-        List<YokeCookie> foundCookies = new ArrayList<>();
         if (cookies != null) {
-            for (YokeCookie c : cookies) {
-                if (name.equals(c.getName())) {
-                    foundCookies.add(c);
-                }
-            }
+            return cookies.getAll(name);
         }
-        return foundCookies;
+        return new ArrayList<>();
     }
 
     // The original HTTP setMethod for the request. One of GET, PUT, POST, DELETE, TRACE, CONNECT, OPTIONS or HEAD
@@ -266,21 +292,65 @@ public class YokeRequest implements HttpServerRequest {
         }
     }
 
-    /** The request body and eventually a parsed version of it in json or map */
+    /** The request body and eventually a parsed version of it in json or map.
+     *
+     * JSON bodies are wrapped in a JsonObject or JsonArray backed by the parsed body, nothing is copied and all the
+     * calls during the request share it. Changes made through it are seen by ```bodyAsMap```, ```bodyAsList``` and
+     * ```bodyAs```.
+     */
     @SuppressWarnings("unchecked")
     public <V> V body() {
-        if (body != null) {
-            if (body instanceof Map) {
-                return (V) new JsonObject((Map) body);
-            }
-            if (body instanceof List) {
-                return (V) new JsonArray((List) body);
+        if (body instanceof Map || body instanceof List) {
+            if (!wraps(bodyJson, body)) {
+                bodyJson = wrap(body);
             }
+            return (V) bodyJson;
         }
 
         return (V) body;
     }
 
+    /** The parsed JSON body when it is an object, without any wrapping or copying. It is the map backing ```body```.
+     *
+     * @return the body or null if the body is not a JSON object
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> bodyAsMap() {
+        if (body instanceof Map) {
+            return (Map<String, Object>) body;
+        }
+        return null;
+    }
+
+    /** The parsed JSON body when it is an array, without any wrapping or copying. It is the list backing ```body```.
+     *
+     * @return the body or null if the body is not a JSON array
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> bodyAsList() {
+        if (body instanceof List) {
+            return (List<Object>) body;
+        }
+        return null;
+    }
+
+    /** The body bound to a type. The parsed body is converted as it is now, so changes made through ```body``` or
+     * ```bodyAsMap``` are seen, a raw Buffer body is decoded.
+     *
+     * @param clazz the type to bind to
+     * @return the bound body or null if there is no body
+     */
+    public <T> T bodyAs(@NotNull final Class<T> clazz) {
+        if (body == null) {
+            return null;
+        }
+
+        if (body instanceof Buffer) {
+            return JSON.decode(((Buffer) body).getBytes(), clazz);
+        }
+        return JSON.convert(body, clazz);
+    }
+
     /** Mutator for the request setBody
      * The request setBody and eventually a parsed version of it in json or map*/
     void setBody(Object body) {
@@ -308,7 +378,12 @@ public class YokeRequest implements HttpServerRequest {
 
     /** Cookies */
     void setCookies(Set<YokeCookie> cookies) {
-        this.cookies = cookies;
+        this.cookies = new RequestCookies(cookies);
+    }
+
+    /** Cookies decoded on first access */
+    void setCookies(String header, MacPool mac) {
+        this.cookies = new RequestCookies(header, mac);
     }
 
     // Session management
@@ -340,6 +415,27 @@ public class YokeRequest implements HttpServerRequest {
         });
     }
 
+    /** Writes a changed session to the store. Sessions loaded from the store only send the fields that changed when the
+     * store supports partial updates, new sessions are always written whole.
+     */
+    private void saveSession(final String sessionId, final SessionObject session) {
+        final Handler<Object> callback = new Handler<Object>() {
+            @Override
+            public void handle(Object error) {
+                if (error != null) {
+                    // TODO: better handling of errors
+                    System.err.println(error);
+                }
+            }
+        };
+
+        if (store instanceof PartialUpdateSessionStore && !session.isFullyChanged() && !session.getChangedFields().isEmpty()) {
+            ((PartialUpdateSessionStore) store).update(sessionId, session.getChanges(), session.getRemovedFields(), callback);
+        } else {
+            store.set(sessionId, session.jsonObject(), callback);
+        }
+    }
+
     /** Loads a session given its session id and sets the "session" property in the request context.
      * @param sessionId the id to load
      * @param handler the success/complete handler
@@ -365,15 +461,7 @@ public class YokeRequest implements HttpServerRequest {
                         if (responseStatus >= 200 && responseStatus < 400) {
                         	SessionObject session = get("session");
                             if (session != null && session.isChanged()) {
-                                store.set(sessionId, session.jsonObject(), new Handler<Object>() {
-                                    @Override
-                                    public void handle(Object error) {
-                                        if (error != null) {
-                                            // TODO: better handling of errors
-                                            System.err.println(error);
-                                        }
-                                    }
-                                });
+                                saveSession(sessionId, session);
                             }
                         }
                     }
@@ -416,15 +504,7 @@ public class YokeRequest implements HttpServerRequest {
                 if (responseStatus >= 200 && responseStatus < 400) {
                 	SessionObject session = get("session");
                     if (session != null && session.isChanged()) {
-                        store.set(sessionId, session.jsonObject(), new Handler<Object>() {
-                            @Override
-                            public void handle(Object error) {
-                                if (error != null) {
-                                    // TODO: better handling of errors
-                                    System.err.println(error);
-                                }
-                            }
-                        });
+                        saveSession(sessionId, session);
                     }
                 }
             }
@@ -437,26 +517,6 @@ public class YokeRequest implements HttpServerRequest {
         return secure;
     }
 
-    private static String[] splitMime(@NotNull String mime) {
-        // find any ; e.g.: "application/json;q=0.8"
-        int space = mime.indexOf(';');
-
-        if (space != -1) {
-            mime = mime.substring(0, space);
-        }
-
-        String[] parts = mime.split("/");
-
-        if (parts.length < 2) {
-            return new String[] {
-                    parts[0],
-                    "*"
-            };
-        }
-
-        return parts;
-    }
-
     /** Check if the given type(s) is acceptable, returning the best match when true, otherwise null, in which
      * case you should respond with 406 "Not Acceptable".
      *
@@ -470,29 +530,11 @@ public class YokeRequest implements HttpServerRequest {
             return types[0];
         }
 
-        // parse
-        String[] acceptTypes = accept.split(" *, *");
-        // sort on quality
-        Arrays.sort(acceptTypes, ACCEPT_X_COMPARATOR);
-
-        for (String senderAccept : acceptTypes) {
-            String[] sAccept = splitMime(senderAccept);
-
-            for (String appAccept : types) {
-                String[] aAccept = splitMime(appAccept);
-
-                if (
-                        (sAccept[0].equals(aAccept[0]) || "*".equals(sAccept[0]) || "*".equals(aAccept[0])) &&
-                        (sAccept[1].equals(aAccept[1]) || "*".equals(sAccept[1]) || "*".equals(aAccept[1]))) {
-                    return senderAccept;
-                }
-            }
-        }
-
-        return null;
+        MediaRanges.Range range = mediaRanges(accept, false).accepts(types);
+        return range == null ? null : range.value;
     }
 
-    /** Returns the array of accept-? ordered by quality.
+    /** Returns the array of accept-? ordered by quality. The list is shared and cannot be modified.
      */
     public List<String> sortedHeader(@NotNull final String header) {
         String accept = getHeader(header);
@@ -501,25 +543,27 @@ public class YokeRequest implements HttpServerRequest {
             return Collections.emptyList();
         }
 
-        // parse
-        String[] items = accept.split(" *, *");
-        // sort on quality
-        Arrays.sort(items, ACCEPT_X_COMPARATOR);
-
-        List<String> list = new ArrayList<>(items.length);
-
-        for (String item : items) {
-            // find any ; e.g.: "application/json;q=0.8"
-            int space = item.indexOf(';');
+        return mediaRanges(accept, "Accept-Language".equalsIgnoreCase(header)).sorted;
+    }
 
-            if (space != -1) {
-                list.add(item.substring(0, space));
-            } else {
-                list.add(item);
+    /**
+     * Looks up the parsed header once per request, like the content type the header may still be replaced by a
+     * middleware. Accept-Language has its own slot so content and language negotiation do not evict each other.
+     */
+    private MediaRanges mediaRanges(String header, boolean isLanguage) {
+        if (isLanguage) {
+            if (!header.equals(languageHeader)) {
+                languageHeader = header;
+                language = MediaRanges.of(header);
             }
+            return language;
         }
 
-        return list;
+        if (!header.equals(acceptHeader)) {
+            acceptHeader = header;
+            accept = MediaRanges.of(header);
+        }
+        return accept;
     }
 
     /** Check if the incoming request contains the "Content-Type"
@@ -550,25 +594,14 @@ public class YokeRequest implements HttpServerRequest {
         if (ct == null) {
             return false;
         }
-        // get the content type only (exclude charset)
-        ct = ct.split(";")[0];
-
-        // if we received an incomplete CT
-        if (type.indexOf('/') == -1) {
-            // when the content is incomplete we assume */type, e.g.:
-            // json -> */json
-            type = "*/" + type;
-        }
-
-        // process wildcards
-        if (type.contains("*")) {
-            String[] parts = type.split("/");
-            String[] ctParts = ct.split("/");
-            return "*".equals(parts[0]) && parts[1].equals(ctParts[1]) || "*".equals(parts[1]) && parts[0].equals(ctParts[0]);
 
+        // parsed once per request, the header may still be replaced by a middleware
+        if (!ct.equals(contentTypeHeader)) {
+            contentTypeHeader = ct;
+            contentType = MediaRanges.range(ct);
         }
 
-        return ct.contains(type);
+        return MediaRanges.is(contentType, type);
     }
 
     /** Returns the ip address of the client, when trust-proxy is true (default) then first look into X-Forward-For
@@ -668,25 +701,7 @@ public class YokeRequest implements HttpServerRequest {
     public Locale locale() {
         String languages = getHeader("Accept-Language");
         if (languages != null) {
-            // parse
-            String[] acceptLanguages = languages.split(" *, *");
-            // sort on quality
-            Arrays.sort(acceptLanguages, ACCEPT_X_COMPARATOR);
-
-            String bestLanguage = acceptLanguages[0];
-
-            int idx = bestLanguage.indexOf(';');
-
-            if (idx != -1) {
-                bestLanguage = bestLanguage.substring(0, idx).trim();
-            }
-
-            String[] parts = bestLanguage.split("_|-");
-            switch (parts.length) {
-                case 3: return new Locale(parts[0], parts[1], parts[2]);
-                case 2: return new Locale(parts[0], parts[1]);
-                case 1: return new Locale(parts[0]);
-            }
+            return mediaRanges(languages, true).locale();
         }
 
         return Locale.getDefault();
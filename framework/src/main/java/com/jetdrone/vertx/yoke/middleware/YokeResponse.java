@@ -5,7 +5,10 @@ package com.jetdrone.vertx.yoke.middleware;
 
 import com.jetdrone.vertx.yoke.Engine;
 import com.jetdrone.vertx.yoke.MimeType;
+import com.jetdrone.vertx.yoke.StreamingEngine;
 import com.jetdrone.vertx.yoke.core.Context;
+import com.jetdrone.vertx.yoke.core.LatencyStats;
+import com.jetdrone.vertx.yoke.middleware.filters.StreamingWriterFilter;
 import com.jetdrone.vertx.yoke.middleware.filters.WriterFilter;
 import com.jetdrone.vertx.yoke.core.YokeException;
 import io.netty.handler.codec.http.Cookie;
@@ -24,6 +27,7 @@ import org.vertx.java.core.json.JsonElement;
 import org.vertx.java.core.json.JsonObject;
 import org.vertx.java.core.streams.ReadStream;
 
+import java.io.UnsupportedEncodingException;
 import java.util.*;
 
 /** # YokeResponse */
@@ -43,10 +47,16 @@ public class YokeResponse implements HttpServerResponse {
     private List<Handler<Void>> headersHandler;
     private boolean headersHandlerTriggered;
     private List<Handler<Void>> endHandler;
+    // latency probe of the middleware or route currently answering the request
+    private LatencyStats.Probe latencyProbe;
 
     // writer filter
     private WriterFilter filter;
     private boolean hasBody;
+    // application handlers, wrapped once a streaming filter needs to know when the response is cut short
+    private Handler<Void> closeHandler;
+    private Handler<Throwable> exceptionHandler;
+    private boolean releaseOnClose;
 
     public YokeResponse(HttpServerResponse response, Context context, Map<String, Engine> engines) {
         this.response = response;
@@ -89,6 +99,24 @@ public class YokeResponse implements HttpServerResponse {
 
             if (renderEngine == null) {
                 next.handle("No engine registered for extension: " + extension);
+            } else if (renderEngine instanceof StreamingEngine) {
+                final ResponseWriter writer = new ResponseWriter(this, renderEngine.contentType(), renderEngine.contentEncoding(), ResponseWriter.DEFAULT_BUFFER_SIZE);
+
+                ((StreamingEngine) renderEngine).render(template, context, writer, new AsyncResultHandler<Void>() {
+                    @Override
+                    public void handle(AsyncResult<Void> asyncResult) {
+                        if (asyncResult.failed()) {
+                            if (writer.committed()) {
+                                // part of the page was already sent, the only way to signal the error is to abort
+                                close();
+                            } else {
+                                next.handle(asyncResult.cause());
+                            }
+                        } else {
+                            writer.finish();
+                        }
+                    }
+                });
             } else {
                 renderEngine.render(template, context, new AsyncResultHandler<Buffer>() {
                     @Override
@@ -297,8 +325,22 @@ public class YokeResponse implements HttpServerResponse {
             if (filter != null) {
                 // verify if the filter can filter this content
                 String contentType = response.headers().get("content-type");
-                if (contentType != null && filter.canFilter(contentType)) {
+                if (contentType != null && filter.canFilter(contentType) && !belowMinSize(response.headers().get("content-length"))) {
                     response.putHeader("content-encoding", filter.encoding());
+                    // the declared length is the one before filtering
+                    response.headers().remove("content-length");
+                    if (filter instanceof StreamingWriterFilter) {
+                        ((StreamingWriterFilter) filter).setSink(new Handler<Buffer>() {
+                            @Override
+                            public void handle(Buffer buffer) {
+                                if (!response.isChunked()) {
+                                    response.setChunked(true);
+                                }
+                                response.write(buffer);
+                            }
+                        });
+                        releaseOnClose((StreamingWriterFilter) filter);
+                    }
                 } else {
                     // disable the filter
                     filter = null;
@@ -312,7 +354,80 @@ public class YokeResponse implements HttpServerResponse {
         }
     }
 
+    private boolean belowMinSize(String contentLength) {
+        if (contentLength != null && filter instanceof StreamingWriterFilter) {
+            try {
+                return Long.parseLong(contentLength) < ((StreamingWriterFilter) filter).minSize();
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * When the whole body is known before the headers are sent and it is too small to be worth filtering, the filter
+     * is dropped.
+     */
+    private void skipFilterIfSmall(int length) {
+        if (!headersHandlerTriggered && filter instanceof StreamingWriterFilter && length < ((StreamingWriterFilter) filter).minSize()) {
+            filter = null;
+        }
+    }
+
+    /**
+     * Same as above for a String body, the threshold is in bytes so the encoded length is compared. Every charset
+     * takes at least one byte per char, so only bodies with fewer chars than the threshold need to be measured.
+     */
+    private void skipFilterIfSmall(String chunk, String enc) {
+        if (!headersHandlerTriggered && filter instanceof StreamingWriterFilter && chunk.length() < ((StreamingWriterFilter) filter).minSize()) {
+            if (enc == null) {
+                skipFilterIfSmall(utf8Length(chunk));
+            } else {
+                try {
+                    skipFilterIfSmall(chunk.getBytes(enc).length);
+                } catch (UnsupportedEncodingException e) {
+                    // keep the filter, writing will report the encoding
+                }
+            }
+        }
+    }
+
+    private static int utf8Length(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * The probe notified when the response ends, replaces any previous one.
+     */
+    public void latencyProbe(LatencyStats.Probe probe) {
+        latencyProbe = probe;
+    }
+
+    public LatencyStats.Probe latencyProbe() {
+        return latencyProbe;
+    }
+
     private void triggerEndHandlers() {
+        if (latencyProbe != null) {
+            final LatencyStats.Probe probe = latencyProbe;
+            latencyProbe = null;
+            probe.ended(getStatusCode() >= 500);
+        }
         if (endHandler != null) {
             for (Handler<Void> handler : endHandler) {
                 handler.handle(null);
@@ -413,9 +528,39 @@ public class YokeResponse implements HttpServerResponse {
         return this;
     }
 
+    /**
+     * Frees the filter if the connection is closed or fails before the response ends.
+     */
+    private void releaseOnClose(final StreamingWriterFilter streaming) {
+        releaseOnClose = true;
+
+        response.closeHandler(new Handler<Void>() {
+            @Override
+            public void handle(Void event) {
+                streaming.release();
+                if (closeHandler != null) {
+                    closeHandler.handle(event);
+                }
+            }
+        });
+
+        response.exceptionHandler(new Handler<Throwable>() {
+            @Override
+            public void handle(Throwable event) {
+                streaming.release();
+                if (exceptionHandler != null) {
+                    exceptionHandler.handle(event);
+                }
+            }
+        });
+    }
+
     @Override
     public YokeResponse closeHandler(Handler<Void> handler) {
-        response.closeHandler(handler);
+        closeHandler = handler;
+        if (!releaseOnClose) {
+            response.closeHandler(handler);
+        }
         return this;
     }
 
@@ -475,6 +620,7 @@ public class YokeResponse implements HttpServerResponse {
     @Override
     public void end(@NotNull String chunk) {
         hasBody = true;
+        skipFilterIfSmall(chunk, null);
         triggerHeadersHandlers();
         if (filter == null) {
             response.end(chunk);
@@ -487,6 +633,7 @@ public class YokeResponse implements HttpServerResponse {
     @Override
     public void end(@NotNull String chunk, @NotNull String enc) {
         hasBody = true;
+        skipFilterIfSmall(chunk, enc);
         triggerHeadersHandlers();
         if (filter == null) {
             response.end(chunk, enc);
@@ -499,6 +646,7 @@ public class YokeResponse implements HttpServerResponse {
     @Override
     public void end(@NotNull Buffer chunk) {
         hasBody = true;
+        skipFilterIfSmall(chunk.length());
         triggerHeadersHandlers();
         response.end(filter == null ? chunk : filter.end(chunk));
         triggerEndHandlers();
@@ -507,7 +655,12 @@ public class YokeResponse implements HttpServerResponse {
     @Override
     public void end() {
         triggerHeadersHandlers();
-        response.end();
+        if (filter != null && hasBody) {
+            // flush whatever the filter still holds
+            response.end(filter.end(new Buffer(0)));
+        } else {
+            response.end();
+        }
         triggerEndHandlers();
     }
 
@@ -557,13 +710,19 @@ public class YokeResponse implements HttpServerResponse {
 
     @Override
     public void close() {
+        if (filter instanceof StreamingWriterFilter) {
+            ((StreamingWriterFilter) filter).release();
+        }
         response.close();
         triggerEndHandlers();
     }
 
     @Override
     public YokeResponse exceptionHandler(Handler<Throwable> handler) {
-        response.exceptionHandler(handler);
+        exceptionHandler = handler;
+        if (!releaseOnClose) {
+            response.exceptionHandler(handler);
+        }
         return this;
     }
 }
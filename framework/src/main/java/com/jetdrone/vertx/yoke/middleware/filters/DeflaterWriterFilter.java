@@ -0,0 +1,263 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.middleware.filters;
+
+import io.netty.buffer.ByteBuf;
+import org.jetbrains.annotations.NotNull;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * # DeflaterWriterFilter
+ *
+ * Streaming compression filter built directly on `java.util.zip.Deflater`. Data is compressed as it is written and
+ * the compressed chunks are sent to the response straight away, so the compressed body is never fully held in memory.
+ *
+ * Deflaters and the output scratch buffer are pooled per thread (one per event loop) and returned to the pool when the
+ * response ends. When the response is closed before it ends, the Deflater is ended instead so its native memory is
+ * freed straight away.
+ *
+ * The following formats are supported:
+ *
+ * * `GZIP` - gzip framing (RFC 1952), content encoding `gzip`
+ * * `DEFLATE` - zlib framing (RFC 1950), content encoding `deflate` as defined by HTTP
+ * * `RAW_DEFLATE` - raw deflate data (RFC 1951) without framing, content encoding `deflate`, for old clients that
+ *   do not understand the zlib header
+ */
+public class DeflaterWriterFilter implements StreamingWriterFilter {
+
+    public enum Format {
+        GZIP,
+        DEFLATE,
+        RAW_DEFLATE
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_POOLED = 16;
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private static final ThreadLocal<byte[]> SCRATCH = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BUFFER_SIZE];
+        }
+    };
+
+    // separate pools since the framing is fixed when a Deflater is created
+    private static final ThreadLocal<Deque<Deflater>> WRAPPED = new ThreadLocal<Deque<Deflater>>() {
+        @Override
+        protected Deque<Deflater> initialValue() {
+            return new ArrayDeque<>();
+        }
+    };
+
+    private static final ThreadLocal<Deque<Deflater>> NOWRAP = new ThreadLocal<Deque<Deflater>>() {
+        @Override
+        protected Deque<Deflater> initialValue() {
+            return new ArrayDeque<>();
+        }
+    };
+
+    private final Pattern filter;
+    private final Format format;
+    private final int level;
+    private final int minSize;
+
+    private Deflater deflater;
+    private CRC32 crc;
+    private boolean started;
+    private boolean finished;
+
+    private Handler<Buffer> sink;
+    // output collected while ending the response
+    private Buffer tail;
+
+    public DeflaterWriterFilter(@NotNull final Pattern filter, @NotNull final Format format, final int level, final int minSize) {
+        this.filter = filter;
+        this.format = format;
+        this.level = level;
+        this.minSize = minSize;
+    }
+
+    public DeflaterWriterFilter(@NotNull final Pattern filter, @NotNull final Format format) {
+        this(filter, format, Deflater.DEFAULT_COMPRESSION, 0);
+    }
+
+    @Override
+    public String encoding() {
+        return format == Format.GZIP ? "gzip" : "deflate";
+    }
+
+    @Override
+    public boolean canFilter(@NotNull final String contentType) {
+        return filter.matcher(contentType).find();
+    }
+
+    @Override
+    public void setSink(Handler<Buffer> sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public int minSize() {
+        return minSize;
+    }
+
+    @Override
+    public void write(@NotNull final Buffer buffer) {
+        deflate(buffer, false);
+    }
+
+    @Override
+    public void write(@NotNull final String chunk) {
+        write(chunk, "UTF-8");
+    }
+
+    @Override
+    public void write(@NotNull final String chunk, @NotNull final String enc) {
+        final byte[] bytes = chunk.getBytes(Charset.forName(enc));
+        deflate(bytes, 0, bytes.length, false);
+    }
+
+    @Override
+    public Buffer end(@NotNull final Buffer buffer) {
+        tail = new Buffer();
+        deflate(buffer, true);
+        return tail;
+    }
+
+    @Override
+    public Buffer end(@NotNull final String chunk) {
+        return end(chunk, "UTF-8");
+    }
+
+    @Override
+    public Buffer end(@NotNull final String chunk, @NotNull final String enc) {
+        final byte[] bytes = chunk.getBytes(Charset.forName(enc));
+        tail = new Buffer();
+        deflate(bytes, 0, bytes.length, true);
+        return tail;
+    }
+
+    private void deflate(final Buffer buffer, final boolean finish) {
+        final ByteBuf buf = buffer.getByteBuf();
+
+        if (buf.hasArray()) {
+            // read straight from the backing array
+            deflate(buf.array(), buf.arrayOffset() + buf.readerIndex(), buf.readableBytes(), finish);
+        } else {
+            final byte[] bytes = buffer.getBytes();
+            deflate(bytes, 0, bytes.length, finish);
+        }
+    }
+
+    private void deflate(final byte[] b, final int off, final int len, final boolean finish) {
+        if (finished) {
+            throw new IllegalStateException("Response has already been written");
+        }
+
+        if (!started) {
+            started = true;
+            deflater = acquire(format != Format.DEFLATE, level);
+            if (format == Format.GZIP) {
+                crc = new CRC32();
+                emit(GZIP_HEADER, 0, GZIP_HEADER.length);
+            }
+        }
+
+        if (crc != null) {
+            crc.update(b, off, len);
+        }
+
+        deflater.setInput(b, off, len);
+
+        if (finish) {
+            deflater.finish();
+        }
+
+        final byte[] out = SCRATCH.get();
+
+        while (finish ? !deflater.finished() : !deflater.needsInput()) {
+            final int n = deflater.deflate(out, 0, out.length, Deflater.NO_FLUSH);
+            if (n > 0) {
+                emit(out, 0, n);
+            }
+        }
+
+        if (finish) {
+            finished = true;
+
+            if (crc != null) {
+                final byte[] trailer = new byte[8];
+                writeInt(trailer, 0, crc.getValue());
+                writeInt(trailer, 4, deflater.getBytesRead());
+                emit(trailer, 0, trailer.length);
+            }
+
+            release(deflater, format != Format.DEFLATE);
+            deflater = null;
+        }
+    }
+
+    @Override
+    public void release() {
+        if (deflater != null) {
+            // the stream was cut half way, the state is not worth resetting
+            deflater.end();
+            deflater = null;
+        }
+        finished = true;
+    }
+
+    private void emit(final byte[] b, final int off, final int len) {
+        if (tail != null) {
+            tail.appendBytes(b, off, len);
+        } else if (sink != null) {
+            // the scratch array is reused so the chunk needs its own copy
+            final Buffer chunk = new Buffer(len);
+            chunk.appendBytes(b, off, len);
+            sink.handle(chunk);
+        } else {
+            throw new IllegalStateException("No sink to write the compressed data");
+        }
+    }
+
+    private static void writeInt(byte[] b, int off, long value) {
+        // little endian, modulo 2^32
+        b[off] = (byte) value;
+        b[off + 1] = (byte) (value >> 8);
+        b[off + 2] = (byte) (value >> 16);
+        b[off + 3] = (byte) (value >> 24);
+    }
+
+    private static Deflater acquire(boolean nowrap, int level) {
+        final Deflater deflater = (nowrap ? NOWRAP : WRAPPED).get().poll();
+
+        if (deflater == null) {
+            return new Deflater(level, nowrap);
+        }
+
+        deflater.setLevel(level);
+        return deflater;
+    }
+
+    private static void release(Deflater deflater, boolean nowrap) {
+        final Deque<Deflater> pool = (nowrap ? NOWRAP : WRAPPED).get();
+
+        if (pool.size() < MAX_POOLED) {
+            deflater.reset();
+            pool.push(deflater);
+        } else {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.middleware.filters;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+
+/**
+ * # StreamingWriterFilter
+ *
+ * A WriterFilter that does not hold the whole body in memory. Filtered data produced while the body is being written
+ * is passed to the sink as soon as it is available, `end` only returns what is left.
+ */
+public interface StreamingWriterFilter extends WriterFilter {
+
+    /**
+     * Sets the handler receiving the filtered chunks produced by the `write` methods.
+     *
+     * @param sink handler that writes to the underlying response
+     */
+    void setSink(Handler<Buffer> sink);
+
+    /**
+     * Bodies smaller than this size (in bytes) are not worth filtering and are sent as is.
+     *
+     * @return minimum body size
+     */
+    int minSize();
+
+    /**
+     * Called when the response is closed or fails before it ended, the filter must free what it holds (e.g.: native
+     * compression state). Calling it after the response ended or more than once has no effect.
+     */
+    void release();
+}
@@ -4,10 +4,6 @@ import com.jetdrone.vertx.yoke.YokeSecurity;
 import org.vertx.java.core.json.JsonObject;
 import org.vertx.java.core.json.impl.Base64;
 
-import javax.crypto.Mac;
-import java.security.Signature;
-import java.security.SignatureException;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -20,56 +16,38 @@ public final class JWT {
     }
 
     private static final class CryptoMac implements Crypto {
-        private final Mac mac;
+        private final MacPool mac;
 
-        private CryptoMac(final Mac mac) {
+        private CryptoMac(final MacPool mac) {
             this.mac = mac;
         }
 
         @Override
         public byte[] sign(byte[] payload) {
-            synchronized (mac) {
-                return mac.doFinal(payload);
-            }
+            return mac.doFinal(payload);
         }
 
         @Override
         public boolean verify(byte[] signature, byte[] payload) {
-            synchronized (mac) {
-                return Arrays.equals(signature, mac.doFinal(payload));
-            }
+            return mac.verify(signature, payload);
         }
     }
 
     private static final class CryptoSignature implements Crypto {
-        private final Signature sig;
+        private final SignaturePool sig;
 
-        private CryptoSignature(final Signature signature) {
+        private CryptoSignature(final SignaturePool signature) {
             this.sig = signature;
         }
 
         @Override
         public byte[] sign(byte[] payload) {
-            try {
-                synchronized (sig) {
-                    sig.update(payload);
-                    return sig.sign();
-                }
-            } catch (SignatureException e) {
-                throw new RuntimeException(e);
-            }
+            return sig.sign(payload);
         }
 
         @Override
         public boolean verify(byte[] signature, byte[] payload) {
-            try {
-                synchronized (sig) {
-                    sig.update(payload);
-                    return Arrays.equals(signature, sig.sign());
-                }
-            } catch (SignatureException e) {
-                throw new RuntimeException(e);
-            }
+            return sig.verify(signature, payload);
         }
     }
 
@@ -79,22 +57,22 @@ public final class JWT {
 
         Map<String, Crypto> tmp = new HashMap<>();
         try {
-            tmp.put("HS256", new CryptoMac(security.getMac("HS256")));
+            tmp.put("HS256", new CryptoMac(security.getMacPool("HS256")));
         } catch (RuntimeException e) {
             // Algorithm not supported
         }
         try {
-            tmp.put("HS384", new CryptoMac(security.getMac("HS384")));
+            tmp.put("HS384", new CryptoMac(security.getMacPool("HS384")));
         } catch (RuntimeException e) {
             // Algorithm not supported
         }
         try {
-            tmp.put("HS512", new CryptoMac(security.getMac("HS512")));
+            tmp.put("HS512", new CryptoMac(security.getMacPool("HS512")));
         } catch (RuntimeException e) {
             // Algorithm not supported
         }
         try {
-            tmp.put("RS256", new CryptoSignature(security.getSignature("RS256")));
+            tmp.put("RS256", new CryptoSignature(security.getSignaturePool("RS256")));
         } catch (RuntimeException e) {
             // Algorithm not supported
         }
@@ -89,6 +89,18 @@ public final class KeyStoreSecurity extends YokeSecurity {
         }
     }
 
+    @Override
+    public SignaturePool getSignaturePool(final @NotNull String alias) {
+        try {
+            final PrivateKey privateKey = (PrivateKey) keys.get(alias);
+            final X509Certificate certificate = (X509Certificate) keyStore.getCertificate(alias);
+
+            return new SignaturePool(certificate.getSigAlgName(), privateKey);
+        } catch (KeyStoreException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Creates a new Crypto KEY
      * @return Key implementation
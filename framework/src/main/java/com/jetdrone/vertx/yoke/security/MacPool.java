@@ -0,0 +1,66 @@
+package com.jetdrone.vertx.yoke.security;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.crypto.Mac;
+import java.security.MessageDigest;
+
+/**
+ * # MacPool
+ *
+ * A ```Mac``` is not thread safe, sharing one means every signature waits on the same lock. The pool gives each
+ * thread its own clone of the configured Mac so signing scales with the number of event loops. Macs that cannot be
+ * cloned fall back to the shared instance under a lock.
+ */
+public final class MacPool {
+
+    // never used to sign, only cloned
+    private final Mac prototype;
+    private final boolean cloneable;
+
+    private final ThreadLocal<Mac> macs = new ThreadLocal<Mac>() {
+        @Override
+        protected Mac initialValue() {
+            synchronized (prototype) {
+                try {
+                    return (Mac) prototype.clone();
+                } catch (CloneNotSupportedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    };
+
+    public MacPool(@NotNull final Mac mac) {
+        Mac copy;
+        try {
+            copy = (Mac) mac.clone();
+        } catch (CloneNotSupportedException e) {
+            copy = null;
+        }
+
+        cloneable = copy != null;
+        prototype = cloneable ? copy : mac;
+    }
+
+    public String getAlgorithm() {
+        return prototype.getAlgorithm();
+    }
+
+    public byte[] doFinal(@NotNull final byte[] input) {
+        if (cloneable) {
+            return macs.get().doFinal(input);
+        }
+
+        synchronized (prototype) {
+            return prototype.doFinal(input);
+        }
+    }
+
+    /**
+     * Verifies a signature in constant time, the time taken does not tell how much of it was right.
+     */
+    public boolean verify(@NotNull final byte[] signature, @NotNull final byte[] input) {
+        return MessageDigest.isEqual(signature, doFinal(input));
+    }
+}
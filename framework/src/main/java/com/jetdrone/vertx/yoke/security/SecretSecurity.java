@@ -66,6 +66,17 @@ public final class SecretSecurity extends YokeSecurity {
         }
     }
 
+    @Override
+    public SignaturePool getSignaturePool(final @NotNull String alias) {
+        try {
+            // a single key pair so all threads produce the same signatures
+            final KeyPair keyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+            return new SignaturePool(getAlgorithm(alias), keyPair.getPrivate());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Creates a new Crypto KEY
      * @return Key implementation
@@ -0,0 +1,89 @@
+package com.jetdrone.vertx.yoke.security;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.security.*;
+
+/**
+ * # SignaturePool
+ *
+ * Gives each thread its own ```Signature``` so signing does not wait on a shared lock. When created from a private key
+ * every thread initializes its own instance with it, when created from an existing Signature it is cloned if the
+ * provider supports it, otherwise the shared instance is used under a lock.
+ */
+public final class SignaturePool {
+
+    private final Signature shared;
+    private final ThreadLocal<Signature> signatures;
+
+    public SignaturePool(@NotNull final String algorithm, @NotNull final PrivateKey key) {
+        shared = null;
+        signatures = new ThreadLocal<Signature>() {
+            @Override
+            protected Signature initialValue() {
+                try {
+                    Signature signature = Signature.getInstance(algorithm);
+                    signature.initSign(key);
+                    return signature;
+                } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        // fail now instead of on first use
+        signatures.get();
+    }
+
+    public SignaturePool(@NotNull final Signature signature) {
+        Signature copy;
+        try {
+            copy = (Signature) signature.clone();
+        } catch (CloneNotSupportedException e) {
+            copy = null;
+        }
+
+        if (copy == null) {
+            shared = signature;
+            signatures = null;
+        } else {
+            final Signature prototype = copy;
+            shared = null;
+            signatures = new ThreadLocal<Signature>() {
+                @Override
+                protected Signature initialValue() {
+                    synchronized (prototype) {
+                        try {
+                            return (Signature) prototype.clone();
+                        } catch (CloneNotSupportedException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }
+            };
+        }
+    }
+
+    public byte[] sign(@NotNull final byte[] payload) {
+        try {
+            if (signatures != null) {
+                final Signature signature = signatures.get();
+                signature.update(payload);
+                return signature.sign();
+            }
+
+            synchronized (shared) {
+                shared.update(payload);
+                return shared.sign();
+            }
+        } catch (SignatureException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Verifies a signature by signing the payload again and comparing in constant time.
+     */
+    public boolean verify(@NotNull final byte[] signature, @NotNull final byte[] payload) {
+        return MessageDigest.isEqual(signature, sign(payload));
+    }
+}
@@ -0,0 +1,341 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.store;
+
+import org.vertx.java.core.json.DecodeException;
+import org.vertx.java.core.json.EncodeException;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/** # BinarySessionCodec
+ *
+ * Compact tagged binary format for sessions. Every value starts with a one byte tag, integers and lengths are written
+ * as variable length integers (small numbers take a single byte) and strings as length prefixed UTF-8, so decoding
+ * never scans for delimiters or escapes. Numbers keep their Java type (Integer, Long, Float, Double, BigInteger and
+ * BigDecimal, the latter two in their exact decimal form), other Number types are refused with an EncodeException
+ * rather than silently losing precision. Binary values are stored as is instead of Base64.
+ *
+ * The first byte is a format version so the encoding can evolve while old sessions still decode.
+ */
+public class BinarySessionCodec implements SessionCodec {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte FLOAT = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte STRING = 7;
+    private static final byte BINARY = 8;
+    private static final byte OBJECT = 9;
+    private static final byte ARRAY = 10;
+    private static final byte BIG_INTEGER = 11;
+    private static final byte BIG_DECIMAL = 12;
+
+    @Override
+    public byte[] encode(JsonObject sess) {
+        final Output out = new Output();
+        out.write(VERSION);
+        writeObject(out, sess);
+        return out.toByteArray();
+    }
+
+    @Override
+    public JsonObject decode(byte[] data) {
+        final Input in = new Input(data);
+
+        if (in.read() != VERSION) {
+            throw new DecodeException("Unsupported session format");
+        }
+
+        try {
+            return readObject(in);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new DecodeException("Truncated session");
+        }
+    }
+
+    private static void writeObject(Output out, JsonObject json) {
+        out.writeVarInt(json.size());
+        for (String field : json.getFieldNames()) {
+            out.writeString(field);
+            writeValue(out, json.getField(field));
+        }
+    }
+
+    private static void writeArray(Output out, JsonArray json) {
+        out.writeVarInt(json.size());
+        for (Object value : json) {
+            writeValue(out, value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValue(Output out, Object value) {
+        if (value == null) {
+            out.write(NULL);
+        } else if (value instanceof String) {
+            out.write(STRING);
+            out.writeString((String) value);
+        } else if (value instanceof Boolean) {
+            out.write((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.write(INT);
+            out.writeVarLong(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            out.write(LONG);
+            out.writeVarLong((Long) value);
+        } else if (value instanceof Float) {
+            out.write(FLOAT);
+            out.writeInt(Float.floatToIntBits((Float) value));
+        } else if (value instanceof Double) {
+            out.write(DOUBLE);
+            out.writeLong(Double.doubleToLongBits((Double) value));
+        } else if (value instanceof BigInteger) {
+            out.write(BIG_INTEGER);
+            out.writeString(value.toString());
+        } else if (value instanceof BigDecimal) {
+            out.write(BIG_DECIMAL);
+            out.writeString(value.toString());
+        } else if (value instanceof JsonObject) {
+            out.write(OBJECT);
+            writeObject(out, (JsonObject) value);
+        } else if (value instanceof Map) {
+            out.write(OBJECT);
+            writeObject(out, new JsonObject((Map<String, Object>) value));
+        } else if (value instanceof JsonArray) {
+            out.write(ARRAY);
+            writeArray(out, (JsonArray) value);
+        } else if (value instanceof List) {
+            out.write(ARRAY);
+            writeArray(out, new JsonArray((List<Object>) value));
+        } else if (value instanceof byte[]) {
+            out.write(BINARY);
+            out.writeBytes((byte[]) value);
+        } else {
+            throw new EncodeException("Cannot encode " + value.getClass().getName());
+        }
+    }
+
+    private static JsonObject readObject(Input in) {
+        final JsonObject json = new JsonObject();
+        final int size = in.readVarInt();
+
+        for (int i = 0; i < size; i++) {
+            final String field = in.readString();
+            final byte tag = in.read();
+
+            switch (tag) {
+                case OBJECT:
+                    json.putObject(field, readObject(in));
+                    break;
+                case ARRAY:
+                    json.putArray(field, readArray(in));
+                    break;
+                case BINARY:
+                    json.putBinary(field, in.readBytes());
+                    break;
+                default:
+                    json.putValue(field, readScalar(in, tag));
+                    break;
+            }
+        }
+
+        return json;
+    }
+
+    private static JsonArray readArray(Input in) {
+        final JsonArray json = new JsonArray();
+        final int size = in.readVarInt();
+
+        for (int i = 0; i < size; i++) {
+            final byte tag = in.read();
+
+            switch (tag) {
+                case OBJECT:
+                    json.addObject(readObject(in));
+                    break;
+                case ARRAY:
+                    json.addArray(readArray(in));
+                    break;
+                case BINARY:
+                    json.addBinary(in.readBytes());
+                    break;
+                default:
+                    json.add(readScalar(in, tag));
+                    break;
+            }
+        }
+
+        return json;
+    }
+
+    private static Object readScalar(Input in, byte tag) {
+        switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case INT:
+                return (int) in.readVarLong();
+            case LONG:
+                return in.readVarLong();
+            case FLOAT:
+                return Float.intBitsToFloat(in.readInt());
+            case DOUBLE:
+                return Double.longBitsToDouble(in.readLong());
+            case STRING:
+                return in.readString();
+            case BIG_INTEGER:
+                return new BigInteger(in.readString());
+            case BIG_DECIMAL:
+                return new BigDecimal(in.readString());
+            default:
+                throw new DecodeException("Unknown tag " + tag);
+        }
+    }
+
+    private static final class Output {
+
+        private byte[] buf = new byte[256];
+        private int pos;
+
+        private void ensure(int n) {
+            if (pos + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, pos + n));
+            }
+        }
+
+        void write(byte b) {
+            ensure(1);
+            buf[pos++] = b;
+        }
+
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        // zig zag encoded so small negative numbers are small too
+        void writeVarLong(long value) {
+            value = (value << 1) ^ (value >> 63);
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            buf[pos++] = (byte) (value >>> 24);
+            buf[pos++] = (byte) (value >>> 16);
+            buf[pos++] = (byte) (value >>> 8);
+            buf[pos++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeVarInt(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        void writeString(String value) {
+            writeBytes(value.getBytes(UTF8));
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] buf;
+        private int pos;
+
+        Input(byte[] buf) {
+            this.buf = buf;
+        }
+
+        byte read() {
+            return buf[pos++];
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                final byte b = buf[pos++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                final byte b = buf[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return (value >>> 1) ^ -(value & 1);
+                }
+            }
+        }
+
+        int readInt() {
+            return ((buf[pos++] & 0xFF) << 24) | ((buf[pos++] & 0xFF) << 16) | ((buf[pos++] & 0xFF) << 8) | (buf[pos++] & 0xFF);
+        }
+
+        long readLong() {
+            return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+        }
+
+        byte[] readBytes() {
+            final int length = readVarInt();
+            if (pos + length > buf.length) {
+                throw new ArrayIndexOutOfBoundsException(pos + length);
+            }
+            final byte[] bytes = Arrays.copyOfRange(buf, pos, pos + length);
+            pos += length;
+            return bytes;
+        }
+
+        String readString() {
+            final int length = readVarInt();
+            if (pos + length > buf.length) {
+                throw new ArrayIndexOutOfBoundsException(pos + length);
+            }
+            final String value = new String(buf, pos, length, UTF8);
+            pos += length;
+            return value;
+        }
+    }
+}
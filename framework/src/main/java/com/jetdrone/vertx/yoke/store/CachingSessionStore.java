@@ -0,0 +1,244 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.store;
+
+import com.jetdrone.vertx.yoke.core.impl.ConcurrentLRUCache;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.eventbus.EventBus;
+import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+import java.util.Set;
+import java.util.UUID;
+
+/** # CachingSessionStore
+ *
+ * Decorator keeping recently used sessions in memory in front of a remote store such as ```RedisSessionStore``` or
+ * ```MongoDBSessionStore```, so most requests do not wait for an event bus round trip to load their session. Writes
+ * go to both the cache and the decorated store.
+ *
+ * Entries are kept at most ```ttl``` milliseconds after being loaded or written, never longer than the max age given
+ * to the ```Session``` middleware, so an expired session is not served from memory. When an invalidation address is
+ * given, every write is published on it and the other instances drop their copy of the session, otherwise other
+ * instances may see a stale session until their entry expires.
+ *
+ *     long maxAge = 30 * 60 * 1000;
+ *     SessionStore store = new CachingSessionStore(vertx, new RedisSessionStore(eb, "redis", "sess:"), 10000, 60 * 1000, maxAge, "yoke.sessions.invalidate");
+ *     yoke.store(store);
+ *     yoke.use(new Session(maxAge, mac));
+ */
+public class CachingSessionStore implements PartialUpdateSessionStore {
+
+    private static final class Entry {
+        // null marks a destroyed session so a read racing with the destroy does not cache it again
+        final JsonObject sess;
+        final long expires;
+
+        Entry(JsonObject sess, long expires) {
+            this.sess = sess;
+            this.expires = expires;
+        }
+    }
+
+    private final SessionStore delegate;
+    private final ConcurrentLRUCache<String, Entry> cache;
+    private final long ttl;
+
+    private final EventBus eventBus;
+    private final String invalidationAddress;
+    // identifies the messages published by this instance
+    private final String origin = UUID.randomUUID().toString();
+
+    /**
+     * @param delegate   the store sessions are loaded from and written to
+     * @param maxEntries maximum number of sessions kept in memory
+     * @param ttl        maximum time in milliseconds a session is kept in memory
+     * @param maxAge     max age in milliseconds of the sessions, as configured on the Session middleware
+     */
+    public CachingSessionStore(SessionStore delegate, int maxEntries, long ttl, long maxAge) {
+        this(null, delegate, maxEntries, ttl, maxAge, null);
+    }
+
+    /**
+     * @param vertx               Vertx instance used to publish and receive invalidations
+     * @param delegate            the store sessions are loaded from and written to
+     * @param maxEntries          maximum number of sessions kept in memory
+     * @param ttl                 maximum time in milliseconds a session is kept in memory
+     * @param maxAge              max age in milliseconds of the sessions, as configured on the Session middleware
+     * @param invalidationAddress event bus address shared by all instances using the same store, null to disable
+     */
+    public CachingSessionStore(Vertx vertx, SessionStore delegate, int maxEntries, long ttl, long maxAge, String invalidationAddress) {
+        this.delegate = delegate;
+        this.cache = new ConcurrentLRUCache<>(maxEntries);
+        // a cached session must not outlive the session itself
+        this.ttl = Math.min(ttl, maxAge);
+        this.invalidationAddress = invalidationAddress;
+
+        if (invalidationAddress != null) {
+            eventBus = vertx.eventBus();
+            eventBus.registerHandler(invalidationAddress, new Handler<Message<JsonObject>>() {
+                @Override
+                public void handle(Message<JsonObject> message) {
+                    final JsonObject body = message.body();
+
+                    if (origin.equals(body.getString("origin"))) {
+                        return;
+                    }
+
+                    final String sid = body.getString("sid");
+                    if (sid == null) {
+                        cache.clear();
+                    } else {
+                        cache.remove(sid);
+                    }
+                }
+            });
+        } else {
+            eventBus = null;
+        }
+    }
+
+    private void cache(String sid, JsonObject sess) {
+        cache.put(sid, new Entry(sess, System.currentTimeMillis() + ttl));
+    }
+
+    private void invalidate(String sid) {
+        if (eventBus != null) {
+            JsonObject message = new JsonObject().putString("origin", origin);
+            if (sid != null) {
+                message.putString("sid", sid);
+            }
+            eventBus.publish(invalidationAddress, message);
+        }
+    }
+
+    /**
+     * Wraps the callback so the cached copy is dropped if the decorated store failed to write it.
+     */
+    private Handler<Object> writeThrough(final String sid, final Handler<Object> callback) {
+        return new Handler<Object>() {
+            @Override
+            public void handle(Object error) {
+                if (error != null) {
+                    cache.remove(sid);
+                }
+                invalidate(sid);
+                callback.handle(error);
+            }
+        };
+    }
+
+    @Override
+    public void get(final String sid, final Handler<JsonObject> callback) {
+        final Entry entry = cache.get(sid);
+
+        if (entry != null) {
+            if (entry.expires > System.currentTimeMillis()) {
+                if (entry.sess != null) {
+                    // sessions are modified by the request, the cached one must not be
+                    callback.handle(entry.sess.copy());
+                    return;
+                }
+            } else {
+                cache.remove(sid, entry);
+            }
+        }
+
+        delegate.get(sid, new Handler<JsonObject>() {
+            @Override
+            public void handle(JsonObject sess) {
+                // do not replace a newer write or a destroy that happened during the read
+                if (sess != null && cache.get(sid) == null) {
+                    cache(sid, sess.copy());
+                }
+                callback.handle(sess);
+            }
+        });
+    }
+
+    @Override
+    public void set(String sid, JsonObject sess, Handler<Object> callback) {
+        cache(sid, sess.copy());
+        delegate.set(sid, sess, writeThrough(sid, callback));
+    }
+
+    @Override
+    public void update(final String sid, final JsonObject changes, final Set<String> removed, final Handler<Object> callback) {
+        final Entry entry = cache.get(sid);
+
+        JsonObject sess = null;
+        if (entry != null && entry.sess != null && entry.expires > System.currentTimeMillis()) {
+            sess = entry.sess.copy();
+            sess.mergeIn(changes.copy());
+            for (String field : removed) {
+                sess.removeField(field);
+            }
+            cache(sid, sess);
+        } else {
+            cache.remove(sid);
+        }
+
+        if (delegate instanceof PartialUpdateSessionStore) {
+            ((PartialUpdateSessionStore) delegate).update(sid, changes, removed, writeThrough(sid, callback));
+            return;
+        }
+
+        if (sess != null) {
+            delegate.set(sid, sess.copy(), writeThrough(sid, callback));
+            return;
+        }
+
+        // the store can only write whole sessions
+        delegate.get(sid, new Handler<JsonObject>() {
+            @Override
+            public void handle(JsonObject sess) {
+                if (sess == null) {
+                    sess = new JsonObject();
+                }
+                sess.mergeIn(changes);
+                for (String field : removed) {
+                    sess.removeField(field);
+                }
+                cache(sid, sess.copy());
+                delegate.set(sid, sess, writeThrough(sid, callback));
+            }
+        });
+    }
+
+    @Override
+    public void destroy(final String sid, final Handler<Object> callback) {
+        cache(sid, null);
+        delegate.destroy(sid, new Handler<Object>() {
+            @Override
+            public void handle(Object error) {
+                invalidate(sid);
+                callback.handle(error);
+            }
+        });
+    }
+
+    @Override
+    public void all(Handler<JsonArray> callback) {
+        delegate.all(callback);
+    }
+
+    @Override
+    public void clear(final Handler<Object> callback) {
+        cache.clear();
+        delegate.clear(new Handler<Object>() {
+            @Override
+            public void handle(Object error) {
+                invalidate(null);
+                callback.handle(error);
+            }
+        });
+    }
+
+    @Override
+    public void length(Handler<Integer> callback) {
+        delegate.length(callback);
+    }
+}
@@ -0,0 +1,244 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.store;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** # CoalescingSessionStore
+ *
+ * Decorator that delays session writes for a short window and merges all the writes to the same session in that
+ * window into a single one. Concurrent requests from the same browser, e.g.: a single page application polling a few
+ * endpoints, then cost one store write instead of one per request.
+ *
+ * Partial updates are merged field by field and sent as a single partial update when the decorated store supports
+ * them, otherwise the stored session is read and written back whole once. Reads see the pending writes.
+ *
+ * Like the other stores it must be used from the verticle that created it.
+ *
+ *     SessionStore store = new CoalescingSessionStore(vertx, new RedisSessionStore(eb, "redis", "sess:"), 50);
+ */
+public class CoalescingSessionStore implements PartialUpdateSessionStore {
+
+    private static final class Pending {
+        // set when the whole session is written, changes are then applied to it
+        JsonObject full;
+        JsonObject changes = new JsonObject();
+        final Set<String> removed = new HashSet<>();
+        final List<Handler<Object>> callbacks = new ArrayList<>();
+        long timerId;
+
+        void apply(JsonObject sess) {
+            // copied so sessions handed out by get do not share nested objects with the pending changes
+            sess.mergeIn(changes.copy());
+            for (String field : removed) {
+                sess.removeField(field);
+            }
+        }
+    }
+
+    private final Vertx vertx;
+    private final SessionStore delegate;
+    private final long window;
+
+    private final Map<String, Pending> pending = new HashMap<>();
+
+    /**
+     * @param vertx    Vertx instance used for the flush timers
+     * @param delegate the store sessions are written to
+     * @param window   how long in milliseconds a write waits for others to be merged with
+     */
+    public CoalescingSessionStore(Vertx vertx, SessionStore delegate, long window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be at least 1ms");
+        }
+        this.vertx = vertx;
+        this.delegate = delegate;
+        this.window = window;
+    }
+
+    private Pending pending(final String sid) {
+        Pending p = pending.get(sid);
+
+        if (p == null) {
+            p = new Pending();
+            p.timerId = vertx.setTimer(window, new Handler<Long>() {
+                @Override
+                public void handle(Long timerId) {
+                    flush(sid);
+                }
+            });
+            pending.put(sid, p);
+        }
+
+        return p;
+    }
+
+    @Override
+    public void get(final String sid, final Handler<JsonObject> callback) {
+        final Pending p = pending.get(sid);
+
+        if (p != null && p.full != null) {
+            // the whole session is about to be written, no need to read it
+            JsonObject sess = p.full.copy();
+            p.apply(sess);
+            callback.handle(sess);
+            return;
+        }
+
+        delegate.get(sid, new Handler<JsonObject>() {
+            @Override
+            public void handle(JsonObject sess) {
+                // look it up again, pending writes may have been added or flushed during the read
+                final Pending p = pending.get(sid);
+
+                if (p != null) {
+                    if (p.full != null) {
+                        sess = p.full.copy();
+                    } else if (sess == null) {
+                        if (p.changes.size() == 0) {
+                            callback.handle(null);
+                            return;
+                        }
+                        sess = new JsonObject();
+                    }
+                    p.apply(sess);
+                }
+
+                callback.handle(sess);
+            }
+        });
+    }
+
+    @Override
+    public void set(String sid, JsonObject sess, Handler<Object> callback) {
+        final Pending p = pending(sid);
+        // the session object keeps being used by the request, keep the state it has now
+        p.full = sess.copy();
+        p.changes = new JsonObject();
+        p.removed.clear();
+        p.callbacks.add(callback);
+    }
+
+    @Override
+    public void update(String sid, JsonObject changes, Set<String> removed, Handler<Object> callback) {
+        final Pending p = pending(sid);
+
+        for (String field : changes.getFieldNames()) {
+            Object value = changes.getField(field);
+            // nested values are shared with the session object that keeps being used by the request
+            if (value instanceof JsonObject) {
+                value = ((JsonObject) value).copy();
+            } else if (value instanceof JsonArray) {
+                value = ((JsonArray) value).copy();
+            }
+            p.changes.putValue(field, value);
+            p.removed.remove(field);
+        }
+
+        for (String field : removed) {
+            p.changes.removeField(field);
+            p.removed.add(field);
+        }
+
+        p.callbacks.add(callback);
+    }
+
+    @Override
+    public void destroy(String sid, Handler<Object> callback) {
+        final Pending p = pending.remove(sid);
+
+        if (p != null) {
+            // the pending writes are superseded
+            vertx.cancelTimer(p.timerId);
+            complete(p, null);
+        }
+
+        delegate.destroy(sid, callback);
+    }
+
+    @Override
+    public void all(Handler<JsonArray> callback) {
+        delegate.all(callback);
+    }
+
+    @Override
+    public void clear(Handler<Object> callback) {
+        for (Pending p : pending.values()) {
+            vertx.cancelTimer(p.timerId);
+            complete(p, null);
+        }
+        pending.clear();
+
+        delegate.clear(callback);
+    }
+
+    @Override
+    public void length(Handler<Integer> callback) {
+        delegate.length(callback);
+    }
+
+    /**
+     * Writes all pending sessions now instead of waiting for their window to end, e.g.: when the verticle stops.
+     */
+    public void flush() {
+        for (String sid : pending.keySet().toArray(new String[pending.size()])) {
+            vertx.cancelTimer(pending.get(sid).timerId);
+            flush(sid);
+        }
+    }
+
+    private void flush(final String sid) {
+        final Pending p = pending.remove(sid);
+
+        if (p == null) {
+            return;
+        }
+
+        final Handler<Object> done = new Handler<Object>() {
+            @Override
+            public void handle(Object error) {
+                complete(p, error);
+            }
+        };
+
+        if (p.full != null) {
+            p.apply(p.full);
+            delegate.set(sid, p.full, done);
+            return;
+        }
+
+        if (delegate instanceof PartialUpdateSessionStore) {
+            ((PartialUpdateSessionStore) delegate).update(sid, p.changes, p.removed, done);
+            return;
+        }
+
+        // the store can only write whole sessions, read it back once for all merged changes
+        delegate.get(sid, new Handler<JsonObject>() {
+            @Override
+            public void handle(JsonObject sess) {
+                if (sess == null) {
+                    sess = new JsonObject();
+                }
+                p.apply(sess);
+                delegate.set(sid, sess, done);
+            }
+        });
+    }
+
+    private static void complete(Pending p, Object error) {
+        for (Handler<Object> callback : p.callbacks) {
+            callback.handle(error);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.store;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Off heap byte storage for serialized sessions. Memory is allocated as 1 MB direct slabs, each one carved in blocks of
+ * a single power of two size class (64 bytes to 16 KB). Freed blocks go back to a free list of their class and are
+ * reused by the next allocation, so writing sessions allocates no direct buffers (and no ```Cleaner```) once the slabs
+ * cover the peak number of sessions. Slabs are never released.
+ *
+ * Each size class has its own lock, reads copy the block under it so a block is never reused while it is being read.
+ */
+final class DirectSlabs {
+
+    private static final int SLAB_SIZE = 1024 * 1024;
+    private static final int MIN_SHIFT = 6;
+    private static final int MAX_SHIFT = 14;
+
+    /**
+     * A block holding one value.
+     */
+    static final class Block {
+        final SizeClass sizeClass;
+        final int index;
+        final int length;
+        // guarded by the size class lock
+        boolean freed;
+
+        Block(SizeClass sizeClass, int index, int length) {
+            this.sizeClass = sizeClass;
+            this.index = index;
+            this.length = length;
+        }
+    }
+
+    private static final class SizeClass {
+        final int blockSize;
+        final int blocksPerSlab;
+
+        final List<ByteBuffer> slabs = new ArrayList<>();
+        // blocks carved from the slabs so far
+        int carved;
+        int[] free = new int[64];
+        int freeCount;
+
+        SizeClass(int blockSize) {
+            this.blockSize = blockSize;
+            this.blocksPerSlab = SLAB_SIZE / blockSize;
+        }
+
+        // must hold the lock, returns a buffer positioned on the block
+        ByteBuffer block(int index) {
+            final ByteBuffer slab = slabs.get(index / blocksPerSlab).duplicate();
+            slab.position((index % blocksPerSlab) * blockSize);
+            return slab;
+        }
+    }
+
+    private final SizeClass[] classes = new SizeClass[MAX_SHIFT - MIN_SHIFT + 1];
+
+    DirectSlabs() {
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = new SizeClass(1 << (MIN_SHIFT + i));
+        }
+    }
+
+    /**
+     * Copies the bytes into a free block.
+     *
+     * @return the block or null if the value is larger than the largest size class
+     */
+    Block allocate(byte[] bytes) {
+        if (bytes.length > 1 << MAX_SHIFT) {
+            return null;
+        }
+
+        int shift = MIN_SHIFT;
+        while (1 << shift < bytes.length) {
+            shift++;
+        }
+
+        final SizeClass sizeClass = classes[shift - MIN_SHIFT];
+
+        synchronized (sizeClass) {
+            final int index;
+
+            if (sizeClass.freeCount > 0) {
+                index = sizeClass.free[--sizeClass.freeCount];
+            } else {
+                if (sizeClass.carved == sizeClass.slabs.size() * sizeClass.blocksPerSlab) {
+                    sizeClass.slabs.add(ByteBuffer.allocateDirect(SLAB_SIZE));
+                }
+                index = sizeClass.carved++;
+            }
+
+            sizeClass.block(index).put(bytes);
+            return new Block(sizeClass, index, bytes.length);
+        }
+    }
+
+    /**
+     * @return a copy of the bytes, or null if the block was freed meanwhile
+     */
+    byte[] read(Block block) {
+        final SizeClass sizeClass = block.sizeClass;
+
+        synchronized (sizeClass) {
+            if (block.freed) {
+                return null;
+            }
+
+            final byte[] bytes = new byte[block.length];
+            sizeClass.block(block.index).get(bytes);
+            return bytes;
+        }
+    }
+
+    /**
+     * Returns the block to its free list, freeing a block twice has no effect.
+     */
+    void free(Block block) {
+        final SizeClass sizeClass = block.sizeClass;
+
+        synchronized (sizeClass) {
+            if (block.freed) {
+                return;
+            }
+
+            block.freed = true;
+
+            if (sizeClass.freeCount == sizeClass.free.length) {
+                sizeClass.free = Arrays.copyOf(sizeClass.free, sizeClass.freeCount << 1);
+            }
+            sizeClass.free[sizeClass.freeCount++] = block.index;
+        }
+    }
+
+    /**
+     * @return direct memory allocated for slabs in bytes
+     */
+    long capacity() {
+        long capacity = 0;
+        for (SizeClass sizeClass : classes) {
+            synchronized (sizeClass) {
+                capacity += (long) sizeClass.slabs.size() * SLAB_SIZE;
+            }
+        }
+        return capacity;
+    }
+}
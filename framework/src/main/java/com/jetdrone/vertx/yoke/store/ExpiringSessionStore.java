@@ -0,0 +1,317 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.store;
+
+import com.jetdrone.vertx.yoke.core.impl.ConcurrentLRUCache;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** # ExpiringSessionStore
+ *
+ * In process session store for single node deployments. Sessions expire ```ttl``` milliseconds after their last write
+ * and the least recently used sessions are evicted once there are more than ```maxEntries```.
+ *
+ * Expired sessions are removed by a timer wheel: each session is registered in the slot of the tick it expires on and a
+ * Vert.x periodic timer sweeps the slots as time passes, so expiring costs nothing per request and a sweep only looks
+ * at the sessions due in that tick.
+ *
+ * Sessions are kept serialized with a ```SessionCodec``` (```BinarySessionCodec``` by default). With ```offHeap``` the
+ * serialized bytes are copied into blocks of large direct slabs that are reused as sessions come and go, so the
+ * session payloads are outside of the Java heap and writes allocate no direct buffers. What stays on heap is the index:
+ * the session id, a small entry per session with its block and expiry, and the timer wheel slots. Sessions larger
+ * than 16 KB are kept on heap. Each read copies the bytes back to the heap to decode them.
+ *
+ * The store is thread safe, a single instance can be shared by the verticle instances of a module. The sweep runs on
+ * the context that created the store, call ```close``` to stop it.
+ */
+public class ExpiringSessionStore implements PartialUpdateSessionStore {
+
+    // timer wheels larger than this get a coarser tick instead of more slots
+    private static final int MAX_SLOTS = 1024;
+
+    private static final class Entry {
+        final String sid;
+        // one of them is set
+        final byte[] heap;
+        final DirectSlabs.Block block;
+        final long expires;
+
+        Entry(String sid, byte[] heap, DirectSlabs.Block block, long expires) {
+            this.sid = sid;
+            this.heap = heap;
+            this.block = block;
+            this.expires = expires;
+        }
+    }
+
+    private final Vertx vertx;
+    private final long ttl;
+    private final SessionCodec codec;
+    // null when sessions are kept on heap
+    private final DirectSlabs slabs;
+
+    private final ConcurrentLRUCache<String, Entry> sessions;
+
+    private final long tick;
+    private final Set<String>[] wheel;
+    private long swept;
+    private final long timerId;
+
+    /**
+     * @param vertx      Vertx instance used for the expiration timer
+     * @param maxEntries maximum number of sessions
+     * @param ttl        milliseconds a session lives after its last write
+     */
+    public ExpiringSessionStore(Vertx vertx, int maxEntries, long ttl) {
+        this(vertx, maxEntries, ttl, new BinarySessionCodec(), false);
+    }
+
+    /**
+     * @param vertx      Vertx instance used for the expiration timer
+     * @param maxEntries maximum number of sessions
+     * @param ttl        milliseconds a session lives after its last write
+     * @param codec      session serialization
+     * @param offHeap    keep the serialized sessions in direct memory slabs
+     */
+    @SuppressWarnings("unchecked")
+    public ExpiringSessionStore(Vertx vertx, int maxEntries, long ttl, SessionCodec codec, boolean offHeap) {
+        this.vertx = vertx;
+        this.ttl = ttl;
+        this.codec = codec;
+        this.slabs = offHeap ? new DirectSlabs() : null;
+
+        sessions = new ConcurrentLRUCache<String, Entry>(maxEntries) {
+            @Override
+            protected void evicted(String sid, Entry entry) {
+                release(entry);
+            }
+        };
+
+        tick = Math.max(1, (ttl + MAX_SLOTS - 1) / MAX_SLOTS);
+        // a couple of slots more than ticks in a ttl so new sessions are not registered in the slots being swept
+        wheel = new Set[(int) (ttl / tick) + 2];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        }
+
+        swept = System.currentTimeMillis() / tick - 1;
+
+        timerId = vertx.setPeriodic(tick, new Handler<Long>() {
+            @Override
+            public void handle(Long timerId) {
+                sweep(System.currentTimeMillis());
+            }
+        });
+    }
+
+    /**
+     * Stops the expiration timer.
+     */
+    public void close() {
+        vertx.cancelTimer(timerId);
+    }
+
+    private Set<String> slot(long time) {
+        return wheel[(int) ((time / tick) % wheel.length)];
+    }
+
+    private void sweep(long now) {
+        // only ticks that are over, sessions in the current one may still be alive
+        final long last = now / tick - 1;
+        // catch up with the ticks missed while the event loop was busy, once around the wheel covers all of them
+        final long first = Math.max(swept + 1, last - wheel.length + 1);
+
+        for (long t = first; t <= last; t++) {
+            final int index = (int) (t % wheel.length);
+            final List<String> later = new ArrayList<>();
+            final Iterator<String> it = wheel[index].iterator();
+
+            while (it.hasNext()) {
+                final String sid = it.next();
+                it.remove();
+
+                final Entry entry = sessions.get(sid);
+                if (entry != null) {
+                    if (entry.expires <= now) {
+                        if (sessions.remove(sid, entry)) {
+                            release(entry);
+                        }
+                    } else if ((entry.expires / tick) % wheel.length == index) {
+                        // due on a later turn of the wheel
+                        later.add(sid);
+                    }
+                    // otherwise it was written again and is registered in another slot
+                }
+            }
+
+            wheel[index].addAll(later);
+        }
+
+        swept = Math.max(swept, last);
+    }
+
+    private Entry entry(String sid, JsonObject sess) {
+        final byte[] bytes = codec.encode(sess);
+        final long expires = System.currentTimeMillis() + ttl;
+
+        if (slabs != null) {
+            final DirectSlabs.Block block = slabs.allocate(bytes);
+            // too large for a slab block, kept on heap
+            if (block != null) {
+                return new Entry(sid, null, block, expires);
+            }
+        }
+
+        return new Entry(sid, bytes, null, expires);
+    }
+
+    /**
+     * Returns the block of an entry that left the map to its slab.
+     */
+    private void release(Entry entry) {
+        if (entry != null && entry.block != null) {
+            slabs.free(entry.block);
+        }
+    }
+
+    /**
+     * @return the serialized session or null if the entry was removed (and its block freed) meanwhile
+     */
+    private byte[] bytes(Entry entry) {
+        return entry.block == null ? entry.heap : slabs.read(entry.block);
+    }
+
+    private Entry live(String sid) {
+        final Entry entry = sessions.get(sid);
+
+        if (entry != null && entry.expires <= System.currentTimeMillis()) {
+            // expired but not swept yet
+            if (sessions.remove(sid, entry)) {
+                release(entry);
+            }
+            return null;
+        }
+
+        return entry;
+    }
+
+    @Override
+    public void get(String sid, Handler<JsonObject> callback) {
+        for (;;) {
+            final Entry entry = live(sid);
+
+            if (entry == null) {
+                callback.handle(null);
+                return;
+            }
+
+            final byte[] bytes = bytes(entry);
+            // otherwise the session was written again while reading, read the new one
+            if (bytes != null) {
+                callback.handle(codec.decode(bytes));
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void set(String sid, JsonObject sess, Handler<Object> callback) {
+        final Entry entry = entry(sid, sess);
+        release(sessions.put(sid, entry));
+        slot(entry.expires).add(sid);
+        callback.handle(null);
+    }
+
+    @Override
+    public void update(String sid, JsonObject changes, Set<String> removed, Handler<Object> callback) {
+        for (;;) {
+            final Entry current = live(sid);
+            final byte[] bytes = current == null ? null : bytes(current);
+
+            if (current != null && bytes == null) {
+                // written again meanwhile
+                continue;
+            }
+
+            final JsonObject sess = current == null ? new JsonObject() : codec.decode(bytes);
+
+            sess.mergeIn(changes);
+            for (String field : removed) {
+                sess.removeField(field);
+            }
+
+            final Entry entry = entry(sid, sess);
+
+            // retry if another request wrote the session in the meantime so its changes are not lost
+            if (current == null ? sessions.putIfAbsent(sid, entry) == null : sessions.replace(sid, current, entry)) {
+                release(current);
+                slot(entry.expires).add(sid);
+                break;
+            }
+
+            release(entry);
+        }
+        callback.handle(null);
+    }
+
+    @Override
+    public void destroy(String sid, Handler<Object> callback) {
+        // the wheel slot is cleaned when swept
+        release(sessions.remove(sid));
+        callback.handle(null);
+    }
+
+    @Override
+    public void all(Handler<JsonArray> callback) {
+        final long now = System.currentTimeMillis();
+        final JsonArray items = new JsonArray();
+
+        for (Entry entry : sessions.values()) {
+            if (entry.expires > now) {
+                final byte[] bytes = bytes(entry);
+                // null if removed since the snapshot
+                if (bytes != null) {
+                    items.add(codec.decode(bytes));
+                }
+            }
+        }
+
+        callback.handle(items);
+    }
+
+    @Override
+    public void clear(Handler<Object> callback) {
+        // entry by entry so each block is freed once, sessions written meanwhile are kept
+        for (Entry entry : sessions.values()) {
+            if (sessions.remove(entry.sid, entry)) {
+                release(entry);
+            }
+        }
+        for (Set<String> slot : wheel) {
+            slot.clear();
+        }
+        callback.handle(null);
+    }
+
+    @Override
+    public void length(Handler<Integer> callback) {
+        callback.handle(sessions.size());
+    }
+
+    /**
+     * @return direct memory held by the slabs in bytes, 0 when sessions are kept on heap
+     */
+    public long offHeapCapacity() {
+        return slabs == null ? 0 : slabs.capacity();
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.store;
+
+import org.vertx.java.core.json.JsonObject;
+
+import java.nio.charset.Charset;
+
+/** # JsonSessionCodec
+ *
+ * Serializes sessions as UTF-8 JSON text, the format used by the stores by default.
+ */
+public class JsonSessionCodec implements SessionCodec {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Override
+    public byte[] encode(JsonObject sess) {
+        return sess.encode().getBytes(UTF8);
+    }
+
+    @Override
+    public JsonObject decode(byte[] data) {
+        return new JsonObject(new String(data, UTF8));
+    }
+}
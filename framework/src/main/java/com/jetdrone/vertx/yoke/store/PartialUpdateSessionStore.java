@@ -0,0 +1,22 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.store;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.json.JsonObject;
+
+import java.util.Set;
+
+/** # PartialUpdateSessionStore
+ *
+ * Optional ```SessionStore``` operation for stores that can modify some fields of a stored session without writing it
+ * back whole. When the configured store implements it, sessions loaded from the store only send the fields that
+ * changed during the request.
+ */
+public interface PartialUpdateSessionStore extends SessionStore {
+
+    // Replace the top level fields of the session `sid` with the ones in `changes` and delete the `removed` ones.
+    // Fields not listed are left untouched, a missing session is created with the given fields.
+    void update(String sid, JsonObject changes, Set<String> removed, Handler<Object> callback);
+}
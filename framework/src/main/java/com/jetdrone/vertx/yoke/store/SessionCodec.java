@@ -0,0 +1,20 @@
+/**
+ * Copyright 2011-2014 the original author or authors.
+ */
+package com.jetdrone.vertx.yoke.store;
+
+import org.vertx.java.core.json.JsonObject;
+
+/** # SessionCodec
+ *
+ * Converts sessions to and from the bytes kept by a store. ```JsonSessionCodec``` keeps the JSON text format used by
+ * default, ```BinarySessionCodec``` is more compact and faster to decode.
+ */
+public interface SessionCodec {
+
+    // Serialize the session `sess`.
+    byte[] encode(JsonObject sess);
+
+    // Deserialize a session previously serialized with `encode`.
+    JsonObject decode(byte[] data);
+}
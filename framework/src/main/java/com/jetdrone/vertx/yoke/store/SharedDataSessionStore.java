@@ -7,33 +7,89 @@ import org.vertx.java.core.Handler;
 import org.vertx.java.core.Vertx;
 import org.vertx.java.core.json.JsonArray;
 import org.vertx.java.core.json.JsonObject;
+import org.vertx.java.core.shareddata.Shareable;
 
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 
-/** #SharedDataSessionStore */
-public class SharedDataSessionStore implements SessionStore {
+/** #SharedDataSessionStore
+ *
+ * Sessions are kept as JSON strings unless a ```SessionCodec``` is given.
+ */
+public class SharedDataSessionStore implements PartialUpdateSessionStore {
+
+    /**
+     * Encoded session. Shareable values are not copied by the shared map (a byte[] would be on every read) and keep
+     * their identity, which the compare and replace of partial updates relies on.
+     */
+    private static final class Encoded implements Shareable {
+        final byte[] data;
+
+        Encoded(byte[] data) {
+            this.data = data;
+        }
+    }
 
-    private final ConcurrentMap<String, String> storage;
+    private final ConcurrentMap<String, Object> storage;
+    private final SessionCodec codec;
 
     public SharedDataSessionStore(Vertx vertx, String name) {
+        this(vertx, name, null);
+    }
+
+    public SharedDataSessionStore(Vertx vertx, String name, SessionCodec codec) {
         storage = vertx.sharedData().getMap(name);
+        this.codec = codec;
+    }
+
+    private Object encode(JsonObject sess) {
+        if (codec == null) {
+            return sess.encode();
+        }
+        return new Encoded(codec.encode(sess));
+    }
+
+    private JsonObject decode(Object sess) {
+        if (sess instanceof String) {
+            return new JsonObject((String) sess);
+        }
+        return codec.decode(((Encoded) sess).data);
     }
 
     @Override
     public void get(String sid, Handler<JsonObject> callback) {
-        String sess = storage.get(sid);
+        Object sess = storage.get(sid);
 
         if (sess == null) {
             callback.handle(null);
             return;
         }
 
-        callback.handle(new JsonObject(sess));
+        callback.handle(decode(sess));
     }
 
     @Override
     public void set(String sid, JsonObject sess, Handler<Object> callback) {
-        storage.put(sid, sess.encode());
+        storage.put(sid, encode(sess));
+        callback.handle(null);
+    }
+
+    @Override
+    public void update(String sid, JsonObject changes, Set<String> removed, Handler<Object> callback) {
+        for (;;) {
+            final Object current = storage.get(sid);
+            final JsonObject sess = current == null ? new JsonObject() : decode(current);
+
+            sess.mergeIn(changes);
+            for (String field : removed) {
+                sess.removeField(field);
+            }
+
+            // retry if another request wrote the session in the meantime so its changes are not lost
+            if (current == null ? storage.putIfAbsent(sid, encode(sess)) == null : storage.replace(sid, current, encode(sess))) {
+                break;
+            }
+        }
         callback.handle(null);
     }
 
@@ -46,8 +102,8 @@ public class SharedDataSessionStore implements SessionStore {
     @Override
     public void all(Handler<JsonArray> callback) {
         JsonArray items = new JsonArray();
-        for (String s : storage.values()) {
-            items.add(new JsonObject(s));
+        for (Object s : storage.values()) {
+            items.add(decode(s));
         }
         callback.handle(items);
     }
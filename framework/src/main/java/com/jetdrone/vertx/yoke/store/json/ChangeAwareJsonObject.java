@@ -1,5 +1,6 @@
 package com.jetdrone.vertx.yoke.store.json;
 
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -11,6 +12,11 @@ public class ChangeAwareJsonObject extends ChangeAwareJsonElement {
 
 	private final JsonObject inner;
 
+	// top level fields modified since this object was created, only tracked on the root object
+	private final Set<String> changedFields = new HashSet<>();
+	// when the whole object must be written, e.g.: it was just created
+	private boolean fullyChanged;
+
 	protected ChangeAwareJsonObject(JsonObject jsonObject, ChangeAware notifier) {
 	    super(notifier);
 	    inner = jsonObject;
@@ -24,52 +30,118 @@ public class ChangeAwareJsonObject extends ChangeAwareJsonElement {
 		super(null);
 		inner = jsonObject;
 		changed = initialChanged;
+		fullyChanged = initialChanged;
 	}
 
-	public ChangeAwareJsonObject putString(String fieldName, String value) {
+	/**
+	 * Changes nested in a field are reported to the root object as changes to that field.
+	 */
+	private final class FieldNotifier implements ChangeAware {
+
+		private final String fieldName;
+
+		FieldNotifier(String fieldName) {
+			this.fieldName = fieldName;
+		}
+
+		@Override
+		public void notifyChanged(ChangeAwareJsonElement jsonElement) {
+			changedFields.add(fieldName);
+			ChangeAwareJsonObject.this.notifyChanged(jsonElement);
+		}
+	}
+
+	private void fieldChanged(String fieldName) {
+		if (notifier == null) {
+			changedFields.add(fieldName);
+		}
 		setChanged();
+	}
+
+	/**
+	 * @return true if the whole object must be written instead of the changed fields
+	 */
+	public boolean isFullyChanged() {
+		return fullyChanged;
+	}
+
+	/**
+	 * @return the top level fields that were modified, directly or in a nested object or array
+	 */
+	public Set<String> getChangedFields() {
+		return changedFields;
+	}
+
+	/**
+	 * @return an object with the current value of each changed field that still exists
+	 */
+	public JsonObject getChanges() {
+		JsonObject changes = new JsonObject();
+		for (String fieldName : changedFields) {
+			if (inner.containsField(fieldName)) {
+				changes.putValue(fieldName, inner.getField(fieldName));
+			}
+		}
+		return changes;
+	}
+
+	/**
+	 * @return the changed fields that were removed
+	 */
+	public Set<String> getRemovedFields() {
+		Set<String> removed = new HashSet<>();
+		for (String fieldName : changedFields) {
+			if (!inner.containsField(fieldName)) {
+				removed.add(fieldName);
+			}
+		}
+		return removed;
+	}
+
+	public ChangeAwareJsonObject putString(String fieldName, String value) {
+		fieldChanged(fieldName);
 	    inner.putString(fieldName, value);
 	    return this;
     }
 
 	public ChangeAwareJsonObject putObject(String fieldName, JsonObject value) {
-		setChanged();
+		fieldChanged(fieldName);
 	    inner.putObject(fieldName, value);
 	    return this;
     }
 
 	public ChangeAwareJsonObject putArray(String fieldName, JsonArray value) {
-		setChanged();
+		fieldChanged(fieldName);
 	    inner.putArray(fieldName, value);
 	    return this;
     }
 
 	public ChangeAwareJsonObject putElement(String fieldName, JsonElement value) {
-		setChanged();
+		fieldChanged(fieldName);
 	    inner.putElement(fieldName, value);
 	    return this;
     }
 
 	public ChangeAwareJsonObject putNumber(String fieldName, Number value) {
-		setChanged();
+		fieldChanged(fieldName);
 	    inner.putNumber(fieldName, value);
 	    return this;
     }
 
 	public ChangeAwareJsonObject putBoolean(String fieldName, Boolean value) {
-		setChanged();
+		fieldChanged(fieldName);
 	    inner.putBoolean(fieldName, value);
 	    return this;
     }
 
 	public ChangeAwareJsonObject putBinary(String fieldName, byte[] binary) {
-		setChanged();
+		fieldChanged(fieldName);
 	    inner.putBinary(fieldName, binary);
 	    return this;
     }
 
 	public ChangeAwareJsonObject putValue(String fieldName, Object value) {
-		setChanged();
+		fieldChanged(fieldName);
 	    inner.putValue(fieldName, value);
 	    return this;
     }
@@ -79,19 +151,19 @@ public class ChangeAwareJsonObject extends ChangeAwareJsonElement {
     }
 
 	public ChangeAwareJsonObject getObject(String fieldName) {
-	    return convertJsonObject(inner.getObject(fieldName));
+	    return convertJsonObject(fieldName, inner.getObject(fieldName));
     }
 
 	public ChangeAwareJsonArray getArray(String fieldName) {
-	    return convertJsonArray(inner.getArray(fieldName));
+	    return convertJsonArray(fieldName, inner.getArray(fieldName));
     }
 
 	public ChangeAwareJsonElement getElement(String fieldName) {
 	    JsonElement value = inner.getElement(fieldName);
 	    if (value.isArray()) {
-	    	return convertJsonArray(value.asArray());
+	    	return convertJsonArray(fieldName, value.asArray());
 	    } else {
-	    	return convertJsonObject(value.asObject());
+	    	return convertJsonObject(fieldName, value.asObject());
 	    }
     }
 
@@ -120,19 +192,19 @@ public class ChangeAwareJsonObject extends ChangeAwareJsonElement {
     }
 
 	public ChangeAwareJsonObject getObject(String fieldName, JsonObject def) {
-	    return convertJsonObject(inner.getObject(fieldName, def));
+	    return convertJsonObject(fieldName, inner.getObject(fieldName, def));
     }
 
 	public ChangeAwareJsonArray getArray(String fieldName, JsonArray def) {
-	    return convertJsonArray(inner.getArray(fieldName, def));
+	    return convertJsonArray(fieldName, inner.getArray(fieldName, def));
     }
 
 	public ChangeAwareJsonElement getElement(String fieldName, JsonElement def) {
 	    JsonElement value = inner.getElement(fieldName, def);
 	    if (value.isArray()) {
-	    	return convertJsonArray(value.asArray());
+	    	return convertJsonArray(fieldName, value.asArray());
 	    } else {
-	    	return convertJsonObject(value.asObject());
+	    	return convertJsonObject(fieldName, value.asObject());
 	    }
     }
 
@@ -168,15 +240,15 @@ public class ChangeAwareJsonObject extends ChangeAwareJsonElement {
     public <T> T getField(String fieldName) {
 	    Object value = inner.getField(fieldName);
 	    if (value instanceof JsonArray) {
-	    	value = convertJsonArray((JsonArray) value);
+	    	value = convertJsonArray(fieldName, (JsonArray) value);
 	    } else if (value instanceof JsonObject) {
-	    	value = convertJsonObject((JsonObject) value);
+	    	value = convertJsonObject(fieldName, (JsonObject) value);
 	    }
 	    return (T) value;
     }
 
 	public Object removeField(String fieldName) {
-		setChanged();
+		fieldChanged(fieldName);
 	    return inner.removeField(fieldName);
     }
 
@@ -189,7 +261,9 @@ public class ChangeAwareJsonObject extends ChangeAwareJsonElement {
     }
 
 	public ChangeAwareJsonObject mergeIn(JsonObject other) {
-		setChanged();
+		for (String fieldName : other.getFieldNames()) {
+			fieldChanged(fieldName);
+		}
 	    inner.mergeIn(other);
 	    return this;
     }
@@ -222,13 +296,17 @@ public class ChangeAwareJsonObject extends ChangeAwareJsonElement {
 		return inner;
 	}
 
-	private ChangeAwareJsonArray convertJsonArray(JsonArray value) {
+	private ChangeAware notifierFor(String fieldName) {
+		return notifier != null ? notifier : new FieldNotifier(fieldName);
+	}
+
+	private ChangeAwareJsonArray convertJsonArray(String fieldName, JsonArray value) {
 		if (value == null) return null;
-    	return new ChangeAwareJsonArray(value, notifier != null ? notifier : this);
+    	return new ChangeAwareJsonArray(value, notifierFor(fieldName));
 	}
 	
-	private ChangeAwareJsonObject convertJsonObject(JsonObject value) {
+	private ChangeAwareJsonObject convertJsonObject(String fieldName, JsonObject value) {
 		if (value == null) return null;
-    	return new ChangeAwareJsonObject(value, notifier != null ? notifier : this);
+    	return new ChangeAwareJsonObject(value, notifierFor(fieldName));
 	}
 }
@@ -0,0 +1,119 @@
+package com.jetdrone.vertx.yoke.test;
+
+import com.jetdrone.vertx.yoke.core.impl.ConcurrentLRUCache;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentLRUCacheTest {
+
+    @Test
+    public void testLRUOrder() {
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<>(2);
+
+        cache.put("a", "1");
+        cache.put("b", "2");
+        // touch a so b is the eldest
+        assertEquals("1", cache.get("a"));
+        cache.put("c", "3");
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+
+        assertEquals(3, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    public void testWeight() {
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<>(10, new ConcurrentLRUCache.Weigher<String>() {
+            @Override
+            public int weigh(String value) {
+                return value.length();
+            }
+        });
+
+        cache.put("a", "12345");
+        cache.put("b", "1234");
+        assertEquals(9, cache.weight());
+
+        // replacing updates the weight
+        cache.put("b", "12");
+        assertEquals(7, cache.weight());
+
+        cache.put("c", "1234");
+        assertNull(cache.get("a"));
+        assertEquals(6, cache.weight());
+
+        // a value larger than the whole cache is not kept
+        cache.put("d", "12345678901");
+        assertNull(cache.get("d"));
+        assertTrue(cache.weight() <= 10);
+    }
+
+    @Test
+    public void testConditionalRemove() {
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<>(10);
+
+        cache.put("a", "1");
+        assertFalse(cache.remove("a", "2"));
+        assertTrue(cache.remove("a", cache.get("a")));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testConditionalPut() {
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<>(10);
+
+        assertNull(cache.putIfAbsent("a", "1"));
+        assertEquals("1", cache.putIfAbsent("a", "2"));
+
+        String current = cache.get("a");
+        assertFalse(cache.replace("a", new String("1"), "3"));
+        assertTrue(cache.replace("a", current, "3"));
+        assertEquals("3", cache.get("a"));
+        assertEquals(1, cache.values().size());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws InterruptedException {
+        final ConcurrentLRUCache<Integer, Integer> cache = new ConcurrentLRUCache<>(1000);
+        final AtomicInteger failures = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < 8; t++) {
+            final int seed = t;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 20000; i++) {
+                        int key = (i * 31 + seed) % 4000;
+                        Integer value = cache.get(key);
+                        if (value != null && value != key) {
+                            failures.incrementAndGet();
+                        }
+                        cache.put(key, key);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, failures.get());
+        assertTrue(cache.size() <= 1000);
+        assertEquals(cache.size(), cache.weight());
+        assertEquals(8 * 20000, cache.hits() + cache.misses());
+    }
+}
@@ -0,0 +1,75 @@
+package com.jetdrone.vertx.yoke.test;
+
+import com.jetdrone.vertx.yoke.core.JSON;
+import com.jetdrone.vertx.yoke.core.impl.JSONStreamParser;
+import org.junit.Test;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.json.DecodeException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JSONStreamParserTest {
+
+    private static final String DOCUMENT = "{\"name\":\"yoke \\u00e9\\ud83d\\ude00 ç中\",\"int\":-12,\"long\":12345678901," +
+            "\"big\":123456789012345678901234567890,\"double\":1.5e3,\"bool\":[true,false,null]," +
+            "\"nested\":{\"empty\":{},\"list\":[],\"escapes\":\"a\\\"b\\\\c\\/d\\n\"} /* comment */ }";
+
+    @Test
+    public void testSameTreeAsDecode() {
+        final byte[] bytes = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+
+        // one byte at a time so every token (and multi byte character) spans chunks
+        JSONStreamParser parser = new JSONStreamParser();
+        for (int i = 0; i < bytes.length; i++) {
+            parser.feed(bytes, i, 1);
+        }
+
+        assertEquals(JSON.decode(DOCUMENT), parser.end());
+    }
+
+    @Test
+    public void testTopLevelScalar() {
+        JSONStreamParser parser = new JSONStreamParser();
+        parser.feed("  42 ".getBytes(StandardCharsets.UTF_8), 0, 5);
+        assertEquals(42, (int) parser.<Integer>end());
+    }
+
+    @Test
+    public void testElementHandler() {
+        final List<Object> elements = new ArrayList<>();
+
+        JSONStreamParser parser = new JSONStreamParser(new Handler<Object>() {
+            @Override
+            public void handle(Object element) {
+                elements.add(element);
+            }
+        });
+
+        byte[] bytes = "[{\"a\":[1]}, 2, \"three\"]".getBytes(StandardCharsets.UTF_8);
+        parser.feed(bytes, 0, 10);
+        assertEquals(1, elements.size());
+        parser.feed(bytes, 10, bytes.length - 10);
+
+        assertEquals(JSON.decode("[{\"a\":[1]}, 2, \"three\"]"), elements);
+        assertTrue(parser.<List>end().isEmpty());
+    }
+
+    @Test
+    public void testInvalid() {
+        for (String json : new String[] {"{\"a\" 1}", "[1,]", "{\"a\":1} x", "[01]", "[tru]", "{\"a\":", "\"abc"}) {
+            try {
+                JSONStreamParser parser = new JSONStreamParser();
+                byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+                parser.feed(bytes, 0, bytes.length);
+                parser.end();
+                fail("Should not parse " + json);
+            } catch (DecodeException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.jetdrone.vertx.yoke.test;
+
+import com.jetdrone.vertx.yoke.core.LatencyStats;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyStatsTest {
+
+    @Test
+    public void testPercentiles() {
+        LatencyStats stats = new LatencyStats();
+
+        for (int i = 1; i <= 1000; i++) {
+            stats.record(i * 1000L, i % 100 == 0);
+        }
+
+        assertEquals(1000, stats.invocations());
+        assertEquals(10, stats.errors());
+        assertEquals(1000000, stats.max());
+
+        // buckets have less than 7% error
+        assertEquals(500000, stats.percentile(50), 500000 * 0.07);
+        assertEquals(900000, stats.percentile(90), 900000 * 0.07);
+        assertEquals(990000, stats.percentile(99), 990000 * 0.07);
+        assertTrue(stats.percentile(100) <= stats.max());
+    }
+
+    @Test
+    public void testReset() {
+        LatencyStats stats = new LatencyStats();
+        stats.record(10, true);
+        stats.reset();
+
+        assertEquals(0, stats.invocations());
+        assertEquals(0, stats.errors());
+        assertEquals(0, stats.max());
+        assertEquals(0, stats.percentile(99));
+    }
+}
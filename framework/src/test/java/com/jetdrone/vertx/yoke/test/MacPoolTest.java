@@ -0,0 +1,81 @@
+package com.jetdrone.vertx.yoke.test;
+
+import com.jetdrone.vertx.yoke.YokeSecurity;
+import com.jetdrone.vertx.yoke.security.JWT;
+import com.jetdrone.vertx.yoke.security.MacPool;
+import com.jetdrone.vertx.yoke.security.SecretSecurity;
+import org.junit.Test;
+import org.vertx.java.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class MacPoolTest {
+
+    @Test
+    public void testSignUnsign() {
+        MacPool mac = new SecretSecurity("keyboard cat").getMacPool("HmacSHA256");
+
+        String signed = YokeSecurity.sign("value", mac);
+        assertEquals("value", YokeSecurity.unsign(signed, mac));
+        // tampered signature
+        assertNull(YokeSecurity.unsign(signed.substring(0, signed.length() - 1) + "A", mac));
+        // tampered value
+        assertNull(YokeSecurity.unsign("other" + signed.substring(5), mac));
+    }
+
+    @Test
+    public void testConcurrentSign() throws InterruptedException {
+        final MacPool mac = new SecretSecurity("keyboard cat").getMacPool("HmacSHA256");
+        final String expected = YokeSecurity.sign("value", mac);
+        final AtomicInteger failures = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 5000; i++) {
+                        if (!expected.equals(YokeSecurity.sign("value", mac))) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, failures.get());
+    }
+
+    @Test
+    public void testRS256AcrossThreads() throws InterruptedException {
+        final JWT jwt = new JWT(new SecretSecurity("keyboard cat"));
+        final String token = jwt.encode(new JsonObject().putString("user", "paulo"), "RS256");
+        final AtomicInteger failures = new AtomicInteger();
+
+        // a token signed on one thread verifies on another
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    jwt.decode(token);
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertEquals(0, failures.get());
+    }
+}
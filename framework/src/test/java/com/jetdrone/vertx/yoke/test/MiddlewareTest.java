@@ -32,6 +32,36 @@ public class MiddlewareTest extends TestVerticle {
         new YokeTester(yoke).request("GET", "/", null);
     }
 
+    @Test
+    public void testSkippedMiddlewareDoNotGrowTheStack() {
+        final Yoke yoke = new Yoke(this);
+
+        for (int i = 0; i < 20000; i++) {
+            yoke.use("/other", new Handler<YokeRequest>() {
+                @Override
+                public void handle(YokeRequest request) {
+                    fail("Should not be called");
+                }
+            });
+        }
+
+        yoke.use(new Middleware() {
+            @Override
+            public void handle(@NotNull YokeRequest request, @NotNull Handler<Object> next) {
+                request.response().end("OK");
+            }
+        });
+
+        new YokeTester(yoke).request("GET", "/", new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+                assertEquals("OK", resp.body.toString());
+                testComplete();
+            }
+        });
+    }
+
     @Test
     public void testXml() throws TransformerException, XMLStreamException {
         String message = "\n" +
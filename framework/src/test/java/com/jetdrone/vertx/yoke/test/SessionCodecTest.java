@@ -0,0 +1,89 @@
+package com.jetdrone.vertx.yoke.test;
+
+import com.jetdrone.vertx.yoke.store.BinarySessionCodec;
+import com.jetdrone.vertx.yoke.store.JsonSessionCodec;
+import com.jetdrone.vertx.yoke.store.SessionCodec;
+import org.junit.Test;
+import org.vertx.java.core.json.DecodeException;
+import org.vertx.java.core.json.EncodeException;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class SessionCodecTest {
+
+    private static JsonObject session() {
+        return new JsonObject()
+                .putString("id", "5a1e8e9c-0f2b-4c0e-9d53-0c8d1a6b7f21")
+                .putNumber("counter", -3)
+                .putNumber("lastAccess", 1400000000000L)
+                .putNumber("ratio", 0.25)
+                .putBoolean("admin", false)
+                .putString("name", "Zoë")
+                .putValue("nothing", null)
+                .putBinary("token", new byte[]{1, 2, 3})
+                .putObject("cart", new JsonObject()
+                        .putArray("items", new JsonArray().addString("book").addNumber(42).addObject(new JsonObject().putNumber("qty", 2))));
+    }
+
+    @Test
+    public void testBinaryRoundTrip() {
+        SessionCodec codec = new BinarySessionCodec();
+        JsonObject sess = session();
+
+        JsonObject decoded = codec.decode(codec.encode(sess));
+
+        assertEquals(sess.getString("id"), decoded.getString("id"));
+        assertEquals(-3, decoded.getField("counter"));
+        assertEquals(1400000000000L, decoded.getField("lastAccess"));
+        assertEquals(0.25, decoded.getNumber("ratio").doubleValue(), 0);
+        assertFalse(decoded.getBoolean("admin"));
+        assertEquals("Zoë", decoded.getString("name"));
+        assertTrue(decoded.containsField("nothing"));
+        assertNull(decoded.getField("nothing"));
+        assertTrue(Arrays.equals(new byte[]{1, 2, 3}, decoded.getBinary("token")));
+
+        JsonArray items = decoded.getObject("cart").getArray("items");
+        assertEquals("book", items.get(0));
+        assertEquals(42, items.get(1));
+        assertEquals(2, ((JsonObject) items.get(2)).getInteger("qty").intValue());
+    }
+
+    @Test
+    public void testBinaryIsSmaller() {
+        JsonObject sess = session();
+        assertTrue(new BinarySessionCodec().encode(sess).length < new JsonSessionCodec().encode(sess).length);
+    }
+
+    @Test(expected = DecodeException.class)
+    public void testTruncated() {
+        SessionCodec codec = new BinarySessionCodec();
+        byte[] data = codec.encode(session());
+        codec.decode(Arrays.copyOf(data, data.length / 2));
+    }
+
+    @Test
+    public void testBigNumbers() {
+        SessionCodec codec = new BinarySessionCodec();
+        JsonObject sess = new JsonObject()
+                .putNumber("amount", new BigDecimal("12345678901234567890.000000000000000001"))
+                .putNumber("big", new BigInteger("123456789012345678901234567890"));
+
+        JsonObject decoded = codec.decode(codec.encode(sess));
+
+        // no precision lost on the way through doubles
+        assertEquals(new BigDecimal("12345678901234567890.000000000000000001"), decoded.getField("amount"));
+        assertEquals(new BigInteger("123456789012345678901234567890"), decoded.getField("big"));
+    }
+
+    @Test(expected = EncodeException.class)
+    public void testUnknownNumber() {
+        new BinarySessionCodec().encode(new JsonObject().putNumber("counter", new AtomicLong(1)));
+    }
+}
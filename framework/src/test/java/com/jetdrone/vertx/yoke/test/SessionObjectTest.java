@@ -0,0 +1,48 @@
+package com.jetdrone.vertx.yoke.test;
+
+import com.jetdrone.vertx.yoke.store.json.SessionObject;
+import org.junit.Test;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+import static org.junit.Assert.*;
+
+public class SessionObjectTest {
+
+    @Test
+    public void testChangedFields() {
+        SessionObject session = new SessionObject(new JsonObject()
+                .putString("id", "1")
+                .putNumber("counter", 1)
+                .putString("user", "paulo")
+                .putObject("cart", new JsonObject().putArray("items", new JsonArray())));
+
+        assertFalse(session.isChanged());
+
+        session.putNumber("counter", 2);
+        session.removeField("user");
+        // nested changes are reported on the top level field
+        session.getObject("cart").getArray("items").addString("book");
+
+        assertTrue(session.isChanged());
+        assertFalse(session.isFullyChanged());
+        assertEquals(3, session.getChangedFields().size());
+
+        JsonObject changes = session.getChanges();
+        assertEquals(2, changes.size());
+        assertEquals(2, changes.getInteger("counter").intValue());
+        assertEquals("book", changes.getObject("cart").getArray("items").get(0));
+
+        assertEquals(1, session.getRemovedFields().size());
+        assertTrue(session.getRemovedFields().contains("user"));
+    }
+
+    @Test
+    public void testNewSession() {
+        SessionObject session = new SessionObject(new JsonObject().putString("id", "1"), true);
+
+        assertTrue(session.isChanged());
+        assertTrue(session.isFullyChanged());
+        assertTrue(session.getChangedFields().isEmpty());
+    }
+}
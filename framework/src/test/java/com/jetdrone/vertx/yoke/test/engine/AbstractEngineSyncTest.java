@@ -0,0 +1,205 @@
+package com.jetdrone.vertx.yoke.test.engine;
+
+import com.jetdrone.vertx.yoke.Middleware;
+import com.jetdrone.vertx.yoke.Yoke;
+import com.jetdrone.vertx.yoke.core.WorkerPool;
+import com.jetdrone.vertx.yoke.core.YokeAsyncResult;
+import com.jetdrone.vertx.yoke.core.YokeException;
+import com.jetdrone.vertx.yoke.engine.AbstractEngineSync;
+import com.jetdrone.vertx.yoke.middleware.ResponseWriter;
+import com.jetdrone.vertx.yoke.middleware.YokeRequest;
+import com.jetdrone.vertx.yoke.test.Response;
+import com.jetdrone.vertx.yoke.test.YokeTester;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.testtools.TestVerticle;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+import static org.vertx.testtools.VertxAssert.*;
+
+public class AbstractEngineSyncTest extends TestVerticle {
+
+    static class ThreadEngine extends AbstractEngineSync<Void> {
+        @Override
+        public String extension() {
+            return ".thread";
+        }
+
+        @Override
+        public void render(final String filename, final Map<String, Object> context, final Handler<AsyncResult<Buffer>> next) {
+            execute(new Callable<Buffer>() {
+                @Override
+                public Buffer call() throws Exception {
+                    return new Buffer(read(filename).replace("${thread}", Thread.currentThread().getName()));
+                }
+            }, next);
+        }
+    }
+
+    static class StreamEngine extends AbstractEngineSync<Void> {
+        @Override
+        public String extension() {
+            return ".stream";
+        }
+
+        @Override
+        public void render(final String filename, final Map<String, Object> context, final Handler<AsyncResult<Buffer>> next) {
+            next.handle(new YokeAsyncResult<Buffer>(new UnsupportedOperationException()));
+        }
+
+        @Override
+        public void render(final String filename, final Map<String, Object> context, final ResponseWriter writer, final Handler<AsyncResult<Void>> next) {
+            execute(writer, new StreamingTask() {
+                @Override
+                public void render(Writer out) throws Exception {
+                    int lines = (Integer) context.get("lines");
+                    for (int i = 0; i < lines; i++) {
+                        out.write("line " + i + "\n");
+                    }
+                }
+            }, next);
+        }
+    }
+
+    private static String lines(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append("line ").append(i).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private void testStreaming(final int lines, final boolean chunked) {
+        Yoke yoke = new Yoke(this);
+        yoke.engine(new StreamEngine().workers(2, 10));
+        yoke.use(new Middleware() {
+            @Override
+            public void handle(@NotNull YokeRequest request, @NotNull Handler<Object> next) {
+                request.put("lines", lines);
+                request.response().render("page.stream", next);
+            }
+        });
+
+        new YokeTester(yoke).request("GET", "/", new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+                assertEquals(chunked, resp.isChunked());
+                assertEquals(lines(lines), resp.body.toString());
+                testComplete();
+            }
+        });
+    }
+
+    @Test
+    public void testStreamingWorkers() {
+        // large outputs are sent in chunks as they are rendered
+        testStreaming(20000, true);
+    }
+
+    @Test
+    public void testStreamingSmall() {
+        // small outputs are sent at once
+        testStreaming(10, false);
+    }
+
+    @Test
+    public void testWorkers() throws Exception {
+        // create a temp template
+        File temp = File.createTempFile("template", ".thread");
+        FileOutputStream out = new FileOutputStream(temp);
+        out.write("rendered on ${thread}".getBytes());
+        out.close();
+        final String location = temp.getAbsolutePath();
+
+        final Thread eventLoop = Thread.currentThread();
+
+        Yoke yoke = new Yoke(this);
+        yoke.engine(new ThreadEngine().workers(2, 10));
+        yoke.use(new Middleware() {
+            @Override
+            public void handle(@NotNull YokeRequest request, @NotNull Handler<Object> next) {
+                request.response().render(location, next);
+            }
+        });
+
+        new YokeTester(yoke).request("GET", "/", new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                // completes back on the event loop
+                assertEquals(eventLoop, Thread.currentThread());
+                assertEquals(200, resp.getStatusCode());
+                assertEquals("rendered on yoke-ThreadEngine-1", resp.body.toString());
+                testComplete();
+            }
+        });
+    }
+
+    @Test
+    public void testRejected() {
+        final WorkerPool pool = new WorkerPool("test", 1, 0);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        pool.execute(vertx, new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                latch.await();
+                return null;
+            }
+        }, new Handler<AsyncResult<Object>>() {
+            @Override
+            public void handle(AsyncResult<Object> event) {
+                assertTrue(event.succeeded());
+                assertEquals(1, pool.rejected());
+                pool.shutdown();
+                testComplete();
+            }
+        });
+
+        // the only worker is busy and nothing may wait
+        pool.execute(vertx, new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                return null;
+            }
+        }, new Handler<AsyncResult<Object>>() {
+            @Override
+            public void handle(AsyncResult<Object> event) {
+                assertTrue(event.failed());
+                assertEquals(503, ((YokeException) event.cause()).getErrorCode().intValue());
+                latch.countDown();
+            }
+        });
+    }
+
+    @Test
+    public void testWorkerError() {
+        final WorkerPool pool = new WorkerPool("test", 1, 0);
+
+        pool.execute(vertx, new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                throw new AssertionError("boom");
+            }
+        }, new Handler<AsyncResult<Object>>() {
+            @Override
+            public void handle(AsyncResult<Object> event) {
+                // errors are delivered as failures and counted
+                assertTrue(event.failed());
+                assertTrue(event.cause() instanceof AssertionError);
+                assertEquals(1, pool.stats.errors());
+                pool.shutdown();
+                testComplete();
+            }
+        });
+    }
+}
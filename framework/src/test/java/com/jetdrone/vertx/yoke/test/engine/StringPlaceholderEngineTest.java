@@ -13,6 +13,8 @@ import org.vertx.testtools.TestVerticle;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Map;
 
 import static org.vertx.testtools.VertxAssert.*;
@@ -91,6 +93,289 @@ public class StringPlaceholderEngineTest extends TestVerticle {
         }
     }
 
+    private static void write(File file, String content) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(content.getBytes());
+        out.close();
+    }
+
+    private static Middleware render(final String location) {
+        return new Middleware() {
+            @Override
+            public void handle(@NotNull YokeRequest request, @NotNull Handler<Object> next) {
+                request.put("name", "Paulo");
+                request.response().render(location, next);
+            }
+        };
+    }
+
+    @Test
+    public void testEngineCheckInterval() {
+        try {
+            final File temp = File.createTempFile("template", ".shtml");
+            write(temp, "Hello ${name}!");
+            final String location = temp.getAbsolutePath();
+
+            Yoke yoke = new Yoke(this);
+            yoke.engine(new com.jetdrone.vertx.yoke.engine.StringPlaceholderEngine("").checkInterval(60000));
+            yoke.use(render(location));
+
+            final YokeTester tester = new YokeTester(yoke);
+            tester.request("GET", "/", new Handler<Response>() {
+                @Override
+                public void handle(Response resp) {
+                    assertEquals("Hello Paulo!", resp.body.toString());
+
+                    try {
+                        write(temp, "Bye ${name}!");
+                        assertTrue(temp.setLastModified(temp.lastModified() + 10000));
+                    } catch (IOException e) {
+                        fail(e.getMessage());
+                    }
+
+                    // the cached template is trusted for the check interval
+                    tester.request("GET", "/", new Handler<Response>() {
+                        @Override
+                        public void handle(Response resp) {
+                            assertEquals("Hello Paulo!", resp.body.toString());
+                            testComplete();
+                        }
+                    });
+                }
+            });
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testEngineWatch() {
+        try {
+            final File temp = File.createTempFile("template", ".shtml");
+            write(temp, "Hello ${name}!");
+            final String location = temp.getAbsolutePath();
+
+            Yoke yoke = new Yoke(this);
+            yoke.engine(new com.jetdrone.vertx.yoke.engine.StringPlaceholderEngine("").watch());
+            yoke.use(render(location));
+
+            final YokeTester tester = new YokeTester(yoke);
+            tester.request("GET", "/", new Handler<Response>() {
+                @Override
+                public void handle(Response resp) {
+                    assertEquals("Hello Paulo!", resp.body.toString());
+
+                    try {
+                        write(temp, "Bye ${name}!");
+                    } catch (IOException e) {
+                        fail(e.getMessage());
+                    }
+
+                    // the change is seen once the watcher reports it
+                    vertx.setPeriodic(100, new Handler<Long>() {
+                        @Override
+                        public void handle(final Long timerId) {
+                            tester.request("GET", "/", new Handler<Response>() {
+                                @Override
+                                public void handle(Response resp) {
+                                    if ("Bye Paulo!".equals(resp.body.toString())) {
+                                        vertx.cancelTimer(timerId);
+                                        testComplete();
+                                    }
+                                }
+                            });
+                        }
+                    });
+                }
+            });
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testEngineWatchAfterRegister() {
+        try {
+            final File temp = File.createTempFile("template", ".shtml");
+            write(temp, "Hello ${name}!");
+            final String location = temp.getAbsolutePath();
+
+            final com.jetdrone.vertx.yoke.engine.StringPlaceholderEngine engine = new com.jetdrone.vertx.yoke.engine.StringPlaceholderEngine("");
+            engine.checkInterval(60000);
+
+            Yoke yoke = new Yoke(this);
+            yoke.engine(engine);
+            yoke.use(render(location));
+
+            // the engine is already registered, the watcher starts now
+            engine.watch();
+
+            final YokeTester tester = new YokeTester(yoke);
+            tester.request("GET", "/", new Handler<Response>() {
+                @Override
+                public void handle(Response resp) {
+                    assertEquals("Hello Paulo!", resp.body.toString());
+
+                    try {
+                        write(temp, "Bye ${name}!");
+                    } catch (IOException e) {
+                        fail(e.getMessage());
+                    }
+
+                    // without the watcher the cached template would be trusted for a minute
+                    vertx.setPeriodic(100, new Handler<Long>() {
+                        @Override
+                        public void handle(final Long timerId) {
+                            tester.request("GET", "/", new Handler<Response>() {
+                                @Override
+                                public void handle(Response resp) {
+                                    if ("Bye Paulo!".equals(resp.body.toString())) {
+                                        vertx.cancelTimer(timerId);
+                                        testComplete();
+                                    }
+                                }
+                            });
+                        }
+                    });
+                }
+            });
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testEngineProduction() {
+        try {
+            final File views = Files.createTempDirectory("views").toFile();
+            final File temp = new File(views, "index.shtml");
+            write(temp, "Hello ${name}!");
+
+            Yoke yoke = new Yoke(this);
+            yoke.engine(new com.jetdrone.vertx.yoke.engine.StringPlaceholderEngine(views.getAbsolutePath()).production());
+            yoke.use(render("index.shtml"));
+
+            // preloaded at registration, the file system is not used anymore
+            assertTrue(temp.delete());
+
+            new YokeTester(yoke).request("GET", "/", new Handler<Response>() {
+                @Override
+                public void handle(Response resp) {
+                    assertEquals(200, resp.getStatusCode());
+                    assertEquals("Hello Paulo!", resp.body.toString());
+                    testComplete();
+                }
+            });
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testEnginePlaceholders() {
+        try {
+            File temp = File.createTempFile("template", ".shtml");
+            write(temp, "${greeting} ${my${var}}, ${missing} ${unclosed");
+            final String location = temp.getAbsolutePath();
+
+            Yoke yoke = new Yoke(this);
+            yoke.engine(new com.jetdrone.vertx.yoke.engine.StringPlaceholderEngine(""));
+            yoke.use(new Middleware() {
+                @Override
+                public void handle(@NotNull YokeRequest request, @NotNull Handler<Object> next) {
+                    // values containing placeholders are resolved too
+                    request.put("greeting", "Hello ${name}");
+                    request.put("name", "Paulo");
+                    request.put("var", "Name");
+                    request.put("myName", "Lopes");
+                    request.response().render(location, next);
+                }
+            });
+
+            final YokeTester tester = new YokeTester(yoke);
+            tester.request("GET", "/", new Handler<Response>() {
+                @Override
+                public void handle(Response resp) {
+                    assertEquals(200, resp.getStatusCode());
+                    assertEquals("Hello Paulo Lopes, ${missing} ${unclosed", resp.body.toString());
+                    // the second render uses the compiled template
+                    tester.request("GET", "/", new Handler<Response>() {
+                        @Override
+                        public void handle(Response resp) {
+                            assertEquals("Hello Paulo Lopes, ${missing} ${unclosed", resp.body.toString());
+                            testComplete();
+                        }
+                    });
+                }
+            });
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testEngineCircularPlaceholder() {
+        try {
+            File temp = File.createTempFile("template", ".shtml");
+            write(temp, "${a}");
+            final String location = temp.getAbsolutePath();
+
+            Yoke yoke = new Yoke(this);
+            yoke.engine(new com.jetdrone.vertx.yoke.engine.StringPlaceholderEngine(""));
+            yoke.use(new Middleware() {
+                @Override
+                public void handle(@NotNull YokeRequest request, @NotNull Handler<Object> next) {
+                    request.put("a", "${b}");
+                    request.put("b", "${a}");
+                    request.response().render(location, next);
+                }
+            });
+
+            new YokeTester(yoke).request("GET", "/", new Handler<Response>() {
+                @Override
+                public void handle(Response resp) {
+                    assertEquals(500, resp.getStatusCode());
+                    testComplete();
+                }
+            });
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testEngineStreaming() {
+        try {
+            final StringBuilder template = new StringBuilder();
+            final StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < 2000; i++) {
+                template.append("<li>${name} ").append(i).append("</li>\n");
+                expected.append("<li>Paulo ").append(i).append("</li>\n");
+            }
+
+            File temp = File.createTempFile("template", ".shtml");
+            write(temp, template.toString());
+
+            Yoke yoke = new Yoke(this);
+            yoke.engine(new com.jetdrone.vertx.yoke.engine.StringPlaceholderEngine(""));
+            yoke.use(render(temp.getAbsolutePath()));
+
+            new YokeTester(yoke).request("GET", "/", new Handler<Response>() {
+                @Override
+                public void handle(Response resp) {
+                    assertEquals(200, resp.getStatusCode());
+                    // the page is larger than the response writer buffer so it is streamed
+                    assertTrue(resp.isChunked());
+                    assertEquals("text/html;charset=UTF-8", resp.headers().get("content-type"));
+                    assertEquals(expected.toString(), resp.body.toString());
+                    testComplete();
+                }
+            });
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
 //    @Test
 //    public void testRG() {
 //        String funcName = "([a-zA-Z0-9]+)";
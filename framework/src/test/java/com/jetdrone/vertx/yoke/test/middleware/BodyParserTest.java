@@ -11,9 +11,14 @@ import org.vertx.java.core.http.CaseInsensitiveMultiMap;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.MultiMap;
 import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.json.JsonArray;
 import org.vertx.java.core.json.JsonObject;
 import org.vertx.testtools.TestVerticle;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import static org.vertx.testtools.VertxAssert.*;
 
 public class BodyParserTest extends TestVerticle {
@@ -50,6 +55,67 @@ public class BodyParserTest extends TestVerticle {
         });
     }
 
+    public static class Item {
+        public String key;
+        public int count;
+    }
+
+    @Test
+    public void testTypedBody() {
+
+        final JsonObject json = new JsonObject().putString("key", "value").putNumber("count", 3);
+
+        Yoke yoke = new Yoke(this);
+        yoke.use(new com.jetdrone.vertx.yoke.middleware.BodyParser());
+        yoke.use(new Handler<YokeRequest>() {
+            @Override
+            public void handle(YokeRequest request) {
+                // one wrapper shared by all the calls, backed by the parsed map
+                JsonObject body = request.body();
+                assertSame(body, request.body());
+
+                Item item = request.bodyAs(Item.class);
+                assertEquals("value", item.key);
+                assertEquals(3, item.count);
+
+                // changes made in place are seen by the other accessors
+                request.bodyAsMap().put("key", "changed");
+                assertEquals("changed", ((JsonObject) request.body()).getString("key"));
+                assertEquals("changed", request.bodyAs(Item.class).key);
+
+                // also when the map is changed after body() was read
+                final Map<String, Object> map = request.bodyAsMap();
+                assertEquals(3, ((JsonObject) request.body()).getInteger("count").intValue());
+                map.put("count", 4);
+                assertEquals(4, ((JsonObject) request.body()).getInteger("count").intValue());
+                assertEquals(4, request.bodyAs(Item.class).count);
+
+                // and the other way around, e.g.: MethodOverride removing its field
+                body.removeField("count");
+                assertFalse(request.bodyAsMap().containsKey("count"));
+                assertEquals(0, request.bodyAs(Item.class).count);
+
+                assertNull(request.bodyAsList());
+
+                request.response().end();
+            }
+        });
+
+        Buffer body = new Buffer(json.encode());
+
+        MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("content-type", "application/json");
+        headers.add("content-length", Integer.toString(body.length()));
+
+        new YokeTester(yoke).request("POST", "/upload", headers, body, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+                testComplete();
+            }
+        });
+    }
+
     @Test
     public void testMapBodyParser() {
 
@@ -237,4 +303,159 @@ public class BodyParserTest extends TestVerticle {
             }
         });
     }
+
+    @Test
+    public void testStreamingJsonBodyParser() {
+
+        final JsonObject json = new JsonObject().putString("key", "value").putArray("list", new JsonArray().addNumber(1).addBoolean(true));
+
+        Yoke yoke = new Yoke(this);
+        yoke.use(new com.jetdrone.vertx.yoke.middleware.BodyParser().streaming(true));
+        yoke.use(new Handler<YokeRequest>() {
+            @Override
+            public void handle(YokeRequest request) {
+                assertNotNull(request.body());
+                assertEquals(((JsonObject) request.body()).encode(), json.encode());
+                request.response().end();
+            }
+        });
+
+        Buffer body = new Buffer(json.encode());
+
+        MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("content-type", "application/json");
+        headers.add("content-length", Integer.toString(body.length()));
+
+        new YokeTester(yoke).request("POST", "/upload", headers, body, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+                testComplete();
+            }
+        });
+    }
+
+    @Test
+    public void testStreamingJsonElements() {
+
+        final List<Object> elements = new ArrayList<>();
+
+        Yoke yoke = new Yoke(this);
+        yoke.use(new com.jetdrone.vertx.yoke.middleware.BodyParser().jsonElementHandler(new com.jetdrone.vertx.yoke.middleware.BodyParser.JsonElementHandler() {
+            @Override
+            public void handle(YokeRequest request, Object element) {
+                elements.add(element);
+            }
+        }));
+        yoke.use(new Handler<YokeRequest>() {
+            @Override
+            public void handle(YokeRequest request) {
+                assertEquals(0, ((JsonArray) request.body()).size());
+                assertEquals(3, elements.size());
+                assertEquals("two", elements.get(1));
+                request.response().end();
+            }
+        });
+
+        Buffer body = new Buffer("[{\"one\":1}, \"two\", [3]]");
+
+        MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("content-type", "application/json");
+        headers.add("content-length", Integer.toString(body.length()));
+
+        new YokeTester(yoke).request("POST", "/upload", headers, body, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+                testComplete();
+            }
+        });
+    }
+
+    @Test
+    public void testStreamingJsonElementHandlerError() {
+
+        Yoke yoke = new Yoke(this);
+        yoke.use(new com.jetdrone.vertx.yoke.middleware.BodyParser().jsonElementHandler(new com.jetdrone.vertx.yoke.middleware.BodyParser.JsonElementHandler() {
+            @Override
+            public void handle(YokeRequest request, Object element) {
+                throw new RuntimeException("cannot handle " + element);
+            }
+        }));
+        yoke.use(new Handler<YokeRequest>() {
+            @Override
+            public void handle(YokeRequest request) {
+                fail("The element handler should have failed");
+            }
+        });
+
+        Buffer body = new Buffer("[{\"one\":1}, \"two\", [3]]");
+
+        MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("content-type", "application/json");
+        headers.add("content-length", Integer.toString(body.length()));
+
+        new YokeTester(yoke).request("POST", "/upload", headers, body, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(500, resp.getStatusCode());
+                testComplete();
+            }
+        });
+    }
+
+    @Test
+    public void testStreamingJsonInvalid() {
+
+        Yoke yoke = new Yoke(this);
+        yoke.use(new com.jetdrone.vertx.yoke.middleware.BodyParser().streaming(true));
+        yoke.use(new Handler<YokeRequest>() {
+            @Override
+            public void handle(YokeRequest request) {
+                fail("Body should have been invalid");
+            }
+        });
+
+        Buffer body = new Buffer("{\"key\" \"value\"}");
+
+        MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("content-type", "application/json");
+        headers.add("content-length", Integer.toString(body.length()));
+
+        new YokeTester(yoke).request("POST", "/upload", headers, body, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(400, resp.getStatusCode());
+                testComplete();
+            }
+        });
+    }
+
+    @Test
+    public void testStreamingJsonBodyLengthLimit() {
+
+        Yoke yoke = new Yoke(this);
+        yoke.use(new Limit(5L));
+        yoke.use(new com.jetdrone.vertx.yoke.middleware.BodyParser().streaming(true));
+        yoke.use(new Handler<YokeRequest>() {
+            @Override
+            public void handle(YokeRequest request) {
+                fail("Body should have been too long");
+            }
+        });
+
+        Buffer body = new Buffer("[1,2,3,4,5]");
+
+        MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("content-type", "application/json");
+        headers.add("transfer-encoding", "chunked");
+
+        new YokeTester(yoke).request("POST", "/upload", headers, body, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(413, resp.getStatusCode());
+                testComplete();
+            }
+        });
+    }
 }
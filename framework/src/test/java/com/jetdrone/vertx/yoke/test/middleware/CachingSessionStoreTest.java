@@ -0,0 +1,147 @@
+package com.jetdrone.vertx.yoke.test.middleware;
+
+import com.jetdrone.vertx.yoke.store.CachingSessionStore;
+import com.jetdrone.vertx.yoke.store.SharedDataSessionStore;
+import org.junit.Test;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.testtools.TestVerticle;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.vertx.testtools.VertxAssert.*;
+
+public class CachingSessionStoreTest extends TestVerticle {
+
+    @Test
+    public void testNearCache() {
+        final AtomicInteger reads = new AtomicInteger();
+
+        final SharedDataSessionStore backend = new SharedDataSessionStore(vertx, "caching.sessions") {
+            @Override
+            public void get(String sid, Handler<JsonObject> callback) {
+                reads.incrementAndGet();
+                super.get(sid, callback);
+            }
+        };
+
+        final CachingSessionStore store = new CachingSessionStore(backend, 100, 60000, 60000);
+
+        store.set("sid", new JsonObject().putString("id", "sid").putNumber("counter", 1), new Handler<Object>() {
+            @Override
+            public void handle(Object error) {
+                assertNull(error);
+
+                store.get("sid", new Handler<JsonObject>() {
+                    @Override
+                    public void handle(JsonObject sess) {
+                        // served from memory
+                        assertEquals(0, reads.get());
+                        assertEquals(1, sess.getInteger("counter").intValue());
+
+                        // the cached session is not affected by changes to the returned copy
+                        sess.putNumber("counter", 5);
+
+                        store.get("sid", new Handler<JsonObject>() {
+                            @Override
+                            public void handle(JsonObject sess) {
+                                assertEquals(1, sess.getInteger("counter").intValue());
+
+                                store.destroy("sid", new Handler<Object>() {
+                                    @Override
+                                    public void handle(Object error) {
+                                        store.get("sid", new Handler<JsonObject>() {
+                                            @Override
+                                            public void handle(JsonObject sess) {
+                                                assertNull(sess);
+                                                assertEquals(1, reads.get());
+                                                testComplete();
+                                            }
+                                        });
+                                    }
+                                });
+                            }
+                        });
+                    }
+                });
+            }
+        });
+    }
+
+    @Test
+    public void testInvalidation() {
+        final SharedDataSessionStore backend = new SharedDataSessionStore(vertx, "caching.invalidation");
+
+        final CachingSessionStore store1 = new CachingSessionStore(vertx, backend, 100, 60000, 60000, "caching.invalidate");
+        final CachingSessionStore store2 = new CachingSessionStore(vertx, backend, 100, 60000, 60000, "caching.invalidate");
+
+        store1.set("sid", new JsonObject().putNumber("counter", 1), new Handler<Object>() {
+            @Override
+            public void handle(Object error) {
+                // load it in the second instance cache
+                store2.get("sid", new Handler<JsonObject>() {
+                    @Override
+                    public void handle(JsonObject sess) {
+                        assertEquals(1, sess.getInteger("counter").intValue());
+
+                        store1.set("sid", new JsonObject().putNumber("counter", 2), new Handler<Object>() {
+                            @Override
+                            public void handle(Object error) {
+                                // the invalidation is delivered asynchronously
+                                vertx.setTimer(50, new Handler<Long>() {
+                                    @Override
+                                    public void handle(Long event) {
+                                        store2.get("sid", new Handler<JsonObject>() {
+                                            @Override
+                                            public void handle(JsonObject sess) {
+                                                assertEquals(2, sess.getInteger("counter").intValue());
+                                                testComplete();
+                                            }
+                                        });
+                                    }
+                                });
+                            }
+                        });
+                    }
+                });
+            }
+        });
+    }
+
+    @Test
+    public void testMaxAge() {
+        final AtomicInteger reads = new AtomicInteger();
+
+        final SharedDataSessionStore backend = new SharedDataSessionStore(vertx, "caching.maxage") {
+            @Override
+            public void get(String sid, Handler<JsonObject> callback) {
+                reads.incrementAndGet();
+                super.get(sid, callback);
+            }
+        };
+
+        // sessions expire long before the ttl
+        final CachingSessionStore store = new CachingSessionStore(backend, 100, 60000, 50);
+
+        store.set("sid", new JsonObject().putString("id", "sid"), new Handler<Object>() {
+            @Override
+            public void handle(Object error) {
+                assertNull(error);
+
+                vertx.setTimer(100, new Handler<Long>() {
+                    @Override
+                    public void handle(Long event) {
+                        store.get("sid", new Handler<JsonObject>() {
+                            @Override
+                            public void handle(JsonObject sess) {
+                                // the cached copy outlived the session max age and was not used
+                                assertEquals(1, reads.get());
+                                testComplete();
+                            }
+                        });
+                    }
+                });
+            }
+        });
+    }
+}
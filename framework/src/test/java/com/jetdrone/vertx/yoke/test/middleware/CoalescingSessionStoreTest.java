@@ -0,0 +1,92 @@
+package com.jetdrone.vertx.yoke.test.middleware;
+
+import com.jetdrone.vertx.yoke.store.BinarySessionCodec;
+import com.jetdrone.vertx.yoke.store.CoalescingSessionStore;
+import com.jetdrone.vertx.yoke.store.SharedDataSessionStore;
+import org.junit.Test;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.testtools.TestVerticle;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.vertx.testtools.VertxAssert.*;
+
+public class CoalescingSessionStoreTest extends TestVerticle {
+
+    @Test
+    public void testCoalesce() {
+        final AtomicInteger writes = new AtomicInteger();
+
+        final SharedDataSessionStore backend = new SharedDataSessionStore(vertx, "coalesce.sessions") {
+            @Override
+            public void update(String sid, JsonObject changes, java.util.Set<String> removed, Handler<Object> callback) {
+                writes.incrementAndGet();
+                super.update(sid, changes, removed, callback);
+            }
+        };
+
+        coalesce(backend, writes);
+    }
+
+    @Test
+    public void testCoalesceBinary() {
+        final AtomicInteger writes = new AtomicInteger();
+
+        final SharedDataSessionStore backend = new SharedDataSessionStore(vertx, "coalesce.binary", new BinarySessionCodec()) {
+            @Override
+            public void update(String sid, JsonObject changes, java.util.Set<String> removed, Handler<Object> callback) {
+                writes.incrementAndGet();
+                super.update(sid, changes, removed, callback);
+            }
+        };
+
+        coalesce(backend, writes);
+    }
+
+    private void coalesce(final SharedDataSessionStore backend, final AtomicInteger writes) {
+        backend.set("sid", new JsonObject().putString("id", "sid").putNumber("a", 1).putNumber("b", 1).putNumber("c", 1), new Handler<Object>() {
+            @Override
+            public void handle(Object error) {
+                final CoalescingSessionStore store = new CoalescingSessionStore(vertx, backend, 20);
+                final AtomicInteger callbacks = new AtomicInteger();
+
+                final Handler<Object> done = new Handler<Object>() {
+                    @Override
+                    public void handle(Object error) {
+                        assertNull(error);
+                        if (callbacks.incrementAndGet() == 2) {
+                            // both requests were written at once
+                            assertEquals(1, writes.get());
+
+                            backend.get("sid", new Handler<JsonObject>() {
+                                @Override
+                                public void handle(JsonObject sess) {
+                                    assertEquals(2, sess.getInteger("a").intValue());
+                                    assertEquals(2, sess.getInteger("b").intValue());
+                                    assertFalse(sess.containsField("c"));
+                                    testComplete();
+                                }
+                            });
+                        }
+                    }
+                };
+
+                // two concurrent requests changing different fields
+                store.update("sid", new JsonObject().putNumber("a", 2), Collections.<String>emptySet(), done);
+                store.update("sid", new JsonObject().putNumber("b", 2), Collections.singleton("c"), done);
+
+                // reads see the pending writes
+                store.get("sid", new Handler<JsonObject>() {
+                    @Override
+                    public void handle(JsonObject sess) {
+                        assertEquals(0, writes.get());
+                        assertEquals(2, sess.getInteger("a").intValue());
+                        assertFalse(sess.containsField("c"));
+                    }
+                });
+            }
+        });
+    }
+}
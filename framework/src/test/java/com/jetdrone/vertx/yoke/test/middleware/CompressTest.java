@@ -3,17 +3,30 @@ package com.jetdrone.vertx.yoke.test.middleware;
 import com.jetdrone.vertx.yoke.Middleware;
 import com.jetdrone.vertx.yoke.Yoke;
 import com.jetdrone.vertx.yoke.middleware.YokeRequest;
+import com.jetdrone.vertx.yoke.middleware.filters.DeflaterWriterFilter;
 import com.jetdrone.vertx.yoke.test.Response;
 import com.jetdrone.vertx.yoke.test.YokeTester;
 import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.MultiMap;
+import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.http.CaseInsensitiveMultiMap;
 import org.vertx.java.core.json.JsonObject;
 import org.vertx.testtools.TestVerticle;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
 import static org.vertx.testtools.VertxAssert.assertEquals;
+import static org.vertx.testtools.VertxAssert.assertNull;
+import static org.vertx.testtools.VertxAssert.assertTrue;
+import static org.vertx.testtools.VertxAssert.fail;
 import static org.vertx.testtools.VertxAssert.testComplete;
 
 public class CompressTest extends TestVerticle {
@@ -36,14 +49,173 @@ public class CompressTest extends TestVerticle {
           @Override
           public void handle(Response resp) {
               assertEquals(200, resp.getStatusCode());
-              for (int i = 0; i < resp.body.length(); i++) {
-//                  System.out.println((int) resp.body.getByte(i));
-              }
+              assertEquals("gzip", resp.headers.get("content-encoding"));
+              assertEquals("{\"hello\":\"world\"}", inflate(resp, true));
+              testComplete();
+          }
+      });
+  }
+
+  @Test
+  public void testDeflateCompress() {
+    Yoke yoke = new Yoke(this);
+    yoke.use(new com.jetdrone.vertx.yoke.middleware.Compress());
+    yoke.use(new Middleware() {
+      @Override
+      public void handle(@NotNull YokeRequest request, @NotNull Handler<Object> next) {
+        request.response().end(new JsonObject().putString("hello", "world"));
+      }
+    });
+
+    MultiMap headers = new CaseInsensitiveMultiMap();
+    headers.add("Accept-Encoding", "deflate");
+
+      new YokeTester(yoke).request("GET", "/", headers, new Handler<Response>() {
+          @Override
+          public void handle(Response resp) {
+              assertEquals(200, resp.getStatusCode());
+              assertEquals("deflate", resp.headers.get("content-encoding"));
+              assertEquals("{\"hello\":\"world\"}", inflate(resp, false));
+              testComplete();
+          }
+      });
+  }
+
+  @Test
+  public void testStreamingCompress() {
+    final StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      expected.append("hello").append(i).append('\n');
+    }
+
+    Yoke yoke = new Yoke(this);
+    yoke.use(new com.jetdrone.vertx.yoke.middleware.Compress());
+    yoke.use(new Middleware() {
+      @Override
+      public void handle(@NotNull YokeRequest request, @NotNull Handler<Object> next) {
+        request.response().setContentType("text/plain", "UTF-8");
+        for (int i = 0; i < 5000; i++) {
+          request.response().write("hello" + i + "\n");
+        }
+        request.response().end();
+      }
+    });
+
+    MultiMap headers = new CaseInsensitiveMultiMap();
+    headers.add("Accept-Encoding", "gzip");
+
+      new YokeTester(yoke).request("GET", "/", headers, new Handler<Response>() {
+          @Override
+          public void handle(Response resp) {
+              assertEquals(200, resp.getStatusCode());
+              assertEquals("gzip", resp.headers.get("content-encoding"));
+              // compressed chunks were written before the end of the response
+              assertTrue(resp.isChunked());
+              assertEquals(expected.toString(), inflate(resp, true));
               testComplete();
           }
       });
   }
 
+  @Test
+  public void testReleaseBeforeEnd() {
+    final DeflaterWriterFilter filter = new DeflaterWriterFilter(Pattern.compile("text"), DeflaterWriterFilter.Format.GZIP);
+    filter.setSink(new Handler<Buffer>() {
+      @Override
+      public void handle(Buffer buffer) {
+      }
+    });
+
+    filter.write("hello");
+    // the connection was closed before the response ended
+    filter.release();
+    filter.release();
+
+    try {
+      filter.end("world");
+      fail("a released filter cannot be written");
+    } catch (IllegalStateException e) {
+      testComplete();
+    }
+  }
+
+  @Test
+  public void testMinSize() {
+    Yoke yoke = new Yoke(this);
+    yoke.use(new com.jetdrone.vertx.yoke.middleware.Compress(Pattern.compile("json|text|javascript"), 6, 1024));
+    yoke.use(new Middleware() {
+      @Override
+      public void handle(@NotNull YokeRequest request, @NotNull Handler<Object> next) {
+        request.response().end(new JsonObject().putString("hello", "world"));
+      }
+    });
+
+    MultiMap headers = new CaseInsensitiveMultiMap();
+    headers.add("Accept-Encoding", "gzip");
+
+      new YokeTester(yoke).request("GET", "/", headers, new Handler<Response>() {
+          @Override
+          public void handle(Response resp) {
+              assertEquals(200, resp.getStatusCode());
+              assertNull(resp.headers.get("content-encoding"));
+              assertEquals("{\"hello\":\"world\"}", resp.body.toString());
+              testComplete();
+          }
+      });
+  }
+
+  @Test
+  public void testMinSizeInBytes() {
+    // 400 chars but 1200 UTF-8 bytes, over the 1024 bytes threshold
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 400; i++) {
+      sb.append('\u20ac');
+    }
+    final String text = sb.toString();
+
+    Yoke yoke = new Yoke(this);
+    yoke.use(new com.jetdrone.vertx.yoke.middleware.Compress(Pattern.compile("json|text|javascript"), 6, 1024));
+    yoke.use(new Middleware() {
+      @Override
+      public void handle(@NotNull YokeRequest request, @NotNull Handler<Object> next) {
+        request.response().setContentType("text/plain", "UTF-8");
+        request.response().end(text);
+      }
+    });
+
+    MultiMap headers = new CaseInsensitiveMultiMap();
+    headers.add("Accept-Encoding", "gzip");
+
+      new YokeTester(yoke).request("GET", "/", headers, new Handler<Response>() {
+          @Override
+          public void handle(Response resp) {
+              assertEquals(200, resp.getStatusCode());
+              assertEquals("gzip", resp.headers.get("content-encoding"));
+              assertEquals(text, inflate(resp, true));
+              testComplete();
+          }
+      });
+  }
+
+  private static String inflate(Response resp, boolean gzip) {
+    try {
+      final InputStream in = gzip ?
+          new GZIPInputStream(new ByteArrayInputStream(resp.body.getBytes())) :
+          new InflaterInputStream(new ByteArrayInputStream(resp.body.getBytes()));
+
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final byte[] buf = new byte[1024];
+      int n;
+      while ((n = in.read(buf)) != -1) {
+        out.write(buf, 0, n);
+      }
+      return out.toString("UTF-8");
+    } catch (IOException e) {
+      fail(e.getMessage());
+      return null;
+    }
+  }
+
 //  @Test
 //  public void testGZip() {
 //    Yoke yoke = new Yoke(vertx);
@@ -0,0 +1,125 @@
+package com.jetdrone.vertx.yoke.test.middleware;
+
+import com.jetdrone.vertx.yoke.Middleware;
+import com.jetdrone.vertx.yoke.Yoke;
+import com.jetdrone.vertx.yoke.YokeSecurity;
+import com.jetdrone.vertx.yoke.core.YokeCookie;
+import com.jetdrone.vertx.yoke.middleware.CookieParser;
+import com.jetdrone.vertx.yoke.middleware.YokeRequest;
+import com.jetdrone.vertx.yoke.test.Response;
+import com.jetdrone.vertx.yoke.test.YokeTester;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.MultiMap;
+import org.vertx.java.core.http.CaseInsensitiveMultiMap;
+import org.vertx.testtools.TestVerticle;
+
+import javax.crypto.Mac;
+
+import static org.vertx.testtools.VertxAssert.*;
+
+public class CookieParserTest extends TestVerticle {
+
+    private static MultiMap cookies(Mac hmac) {
+        final String signed = "s:" + YokeSecurity.sign("secret", hmac);
+
+        final MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("cookie", "_ga=GA1.2.3; id=" + signed + "; theme=dark; tampered=" + signed.replace("secret", "public"));
+        return headers;
+    }
+
+    @Test
+    public void testLazyCookies() {
+        final Yoke yoke = new Yoke(this);
+        yoke.secretSecurity("keyboard cat");
+
+        final Mac hmac = yoke.security().getMac("HmacSHA256");
+        yoke.use(new CookieParser(hmac).lazy(true));
+        yoke.use(new Middleware() {
+            @Override
+            public void handle(@NotNull YokeRequest request, @NotNull Handler<Object> next) {
+                YokeCookie id = request.getCookie("id");
+                assertNotNull(id);
+                assertTrue(id.isSigned());
+                assertEquals("secret", id.getUnsignedValue());
+
+                assertEquals("dark", request.getCookie("theme").getValue());
+                assertEquals(1, request.getAllCookies("theme").size());
+
+                // tampered cookies are ignored instead of failing the request
+                assertNull(request.getCookie("tampered"));
+                assertNull(request.getCookie("missing"));
+                assertEquals(0, request.getAllCookies("missing").size());
+
+                assertEquals(3, request.cookies().size());
+                request.response().end();
+            }
+        });
+
+        new YokeTester(yoke).request("GET", "/", cookies(hmac), new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+                testComplete();
+            }
+        });
+    }
+
+    @Test
+    public void testLazyQuotedCookies() {
+        final Yoke yoke = new Yoke(this);
+        yoke.secretSecurity("keyboard cat");
+
+        final Mac hmac = yoke.security().getMac("HmacSHA256");
+        yoke.use(new CookieParser(hmac).lazy(true));
+        yoke.use(new Middleware() {
+            @Override
+            public void handle(@NotNull YokeRequest request, @NotNull Handler<Object> next) {
+                // the ';' inside the quotes is part of the value
+                assertEquals("a;fake=1", request.getCookie("pref").getValue());
+                assertNull(request.getCookie("fake"));
+
+                // attributes stay with their cookie
+                assertEquals("/app", request.getCookie("theme").getPath());
+                assertNull(request.getCookie("$Path"));
+                request.response().end();
+            }
+        });
+
+        final MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("cookie", "$Version=1; pref=\"a;fake=1\"; theme=dark; $Path=/app");
+
+        new YokeTester(yoke).request("GET", "/", headers, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+                testComplete();
+            }
+        });
+    }
+
+    @Test
+    public void testEagerCookies() {
+        final Yoke yoke = new Yoke(this);
+        yoke.secretSecurity("keyboard cat");
+
+        final Mac hmac = yoke.security().getMac("HmacSHA256");
+        yoke.use(new CookieParser(hmac));
+        yoke.use(new Middleware() {
+            @Override
+            public void handle(@NotNull YokeRequest request, @NotNull Handler<Object> next) {
+                request.response().end();
+            }
+        });
+
+        // a tampered cookie fails the whole request
+        new YokeTester(yoke).request("GET", "/", cookies(hmac), new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(400, resp.getStatusCode());
+                testComplete();
+            }
+        });
+    }
+}
@@ -0,0 +1,127 @@
+package com.jetdrone.vertx.yoke.test.middleware;
+
+import com.jetdrone.vertx.yoke.store.BinarySessionCodec;
+import com.jetdrone.vertx.yoke.store.ExpiringSessionStore;
+import org.junit.Test;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.testtools.TestVerticle;
+
+import java.util.Collections;
+
+import static org.vertx.testtools.VertxAssert.*;
+
+public class ExpiringSessionStoreTest extends TestVerticle {
+
+    private static final Handler<Object> NOOP = new Handler<Object>() {
+        @Override
+        public void handle(Object error) {
+            assertNull(error);
+        }
+    };
+
+    @Test
+    public void testExpire() {
+        final ExpiringSessionStore store = new ExpiringSessionStore(vertx, 100, 200);
+
+        store.set("sid", new JsonObject().putNumber("counter", 1), NOOP);
+
+        store.get("sid", new Handler<JsonObject>() {
+            @Override
+            public void handle(JsonObject sess) {
+                assertEquals(1, sess.getInteger("counter").intValue());
+
+                vertx.setTimer(600, new Handler<Long>() {
+                    @Override
+                    public void handle(Long event) {
+                        // removed by the timer wheel, not on access
+                        store.length(new Handler<Integer>() {
+                            @Override
+                            public void handle(Integer length) {
+                                assertEquals(0, length.intValue());
+                                store.close();
+                                testComplete();
+                            }
+                        });
+                    }
+                });
+            }
+        });
+    }
+
+    @Test
+    public void testEvict() {
+        final ExpiringSessionStore store = new ExpiringSessionStore(vertx, 2, 60000);
+
+        store.set("a", new JsonObject(), NOOP);
+        store.set("b", new JsonObject(), NOOP);
+        store.set("c", new JsonObject(), NOOP);
+
+        store.get("a", new Handler<JsonObject>() {
+            @Override
+            public void handle(JsonObject sess) {
+                assertNull(sess);
+                store.length(new Handler<Integer>() {
+                    @Override
+                    public void handle(Integer length) {
+                        assertEquals(2, length.intValue());
+                        store.close();
+                        testComplete();
+                    }
+                });
+            }
+        });
+    }
+
+    @Test
+    public void testOffHeap() {
+        final ExpiringSessionStore store = new ExpiringSessionStore(vertx, 100, 60000, new BinarySessionCodec(), true);
+
+        store.set("sid", new JsonObject().putString("user", "paulo").putNumber("counter", 1), NOOP);
+        store.update("sid", new JsonObject().putNumber("counter", 2), Collections.singleton("user"), NOOP);
+
+        store.get("sid", new Handler<JsonObject>() {
+            @Override
+            public void handle(JsonObject sess) {
+                assertEquals(2, sess.getInteger("counter").intValue());
+                assertFalse(sess.containsField("user"));
+                store.close();
+                testComplete();
+            }
+        });
+    }
+
+    @Test
+    public void testOffHeapReuse() {
+        // evictions, rewrites and destroys give their blocks back
+        final ExpiringSessionStore store = new ExpiringSessionStore(vertx, 100, 60000, new BinarySessionCodec(), true);
+
+        for (int i = 0; i < 10000; i++) {
+            store.set("sid" + i, new JsonObject().putString("user", "paulo").putNumber("counter", i), NOOP);
+            store.update("sid" + i, new JsonObject().putNumber("counter", i + 1), Collections.<String>emptySet(), NOOP);
+        }
+        for (int i = 0; i < 10000; i++) {
+            store.destroy("sid" + i, NOOP);
+        }
+
+        // a single slab covers the live sessions
+        assertEquals(1024 * 1024, store.offHeapCapacity());
+
+        // large sessions stay on heap
+        final StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            large.append('x');
+        }
+        store.set("large", new JsonObject().putString("data", large.toString()), NOOP);
+
+        store.get("large", new Handler<JsonObject>() {
+            @Override
+            public void handle(JsonObject sess) {
+                assertEquals(20000, sess.getString("data").length());
+                assertEquals(1024 * 1024, store.offHeapCapacity());
+                store.close();
+                testComplete();
+            }
+        });
+    }
+}
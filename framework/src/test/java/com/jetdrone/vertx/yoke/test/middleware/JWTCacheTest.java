@@ -0,0 +1,156 @@
+package com.jetdrone.vertx.yoke.test.middleware;
+
+import com.jetdrone.vertx.yoke.Middleware;
+import com.jetdrone.vertx.yoke.Yoke;
+import com.jetdrone.vertx.yoke.middleware.JWT;
+import com.jetdrone.vertx.yoke.middleware.YokeRequest;
+import com.jetdrone.vertx.yoke.test.Response;
+import com.jetdrone.vertx.yoke.test.YokeTester;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.MultiMap;
+import org.vertx.java.core.http.CaseInsensitiveMultiMap;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.testtools.TestVerticle;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.vertx.testtools.VertxAssert.*;
+
+public class JWTCacheTest extends TestVerticle {
+
+    @Test
+    public void testCachedToken() throws Exception {
+        final Yoke yoke = new Yoke(this);
+        yoke.secretSecurity("keyboard cat");
+
+        final JWT jwt = new JWT().cache(100);
+        yoke.use(jwt);
+        yoke.use(new Middleware() {
+            @Override
+            public void handle(@NotNull YokeRequest request, @NotNull Handler<Object> next) {
+                JsonObject token = request.get("jwt");
+                // changes must not leak into the cached token
+                assertNull(token.getString("seen"));
+                token.putString("seen", "yes");
+                request.response().end(token.getString("name"));
+            }
+        });
+
+        final long now = System.currentTimeMillis() / 1000;
+        final String token = new com.jetdrone.vertx.yoke.security.JWT(yoke.security()).encode(new JsonObject()
+                .putString("name", "Paulo")
+                .putNumber("iat", now)
+                .putNumber("exp", now + 60));
+
+        final ObjectName objectName = new ObjectName("com.jetdrone.yoke:type=JWTCache@" + jwt.hashCode());
+        final YokeTester yokeAssert = new YokeTester(yoke);
+
+        final MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("authorization", "Bearer " + token);
+
+        yokeAssert.request("GET", "/", headers, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+                assertEquals("Paulo", resp.body.toString());
+
+                yokeAssert.request("GET", "/", headers, new Handler<Response>() {
+                    @Override
+                    public void handle(Response resp) {
+                        assertEquals(200, resp.getStatusCode());
+                        assertEquals("Paulo", resp.body.toString());
+
+                        try {
+                            assertEquals(1, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "size"));
+                            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "hits"));
+                        } catch (Exception e) {
+                            fail(e.getMessage());
+                        }
+                        testComplete();
+                    }
+                });
+            }
+        });
+    }
+
+    @Test
+    public void testTamperedToken() {
+        final Yoke yoke = new Yoke(this);
+        yoke.secretSecurity("keyboard cat");
+
+        yoke.use(new JWT().cache(100));
+        yoke.use(new Middleware() {
+            @Override
+            public void handle(@NotNull YokeRequest request, @NotNull Handler<Object> next) {
+                request.response().end();
+            }
+        });
+
+        final String token = new com.jetdrone.vertx.yoke.security.JWT(yoke.security()).encode(new JsonObject()
+                .putString("name", "Paulo"));
+
+        final YokeTester yokeAssert = new YokeTester(yoke);
+
+        final MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("authorization", "Bearer " + token);
+
+        yokeAssert.request("GET", "/", headers, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+
+                // same claims, different signature
+                final MultiMap tampered = new CaseInsensitiveMultiMap();
+                tampered.add("authorization", "Bearer " + token.substring(0, token.lastIndexOf('.') + 1) + "AAAA");
+
+                yokeAssert.request("GET", "/", tampered, new Handler<Response>() {
+                    @Override
+                    public void handle(Response resp) {
+                        assertEquals(401, resp.getStatusCode());
+                        testComplete();
+                    }
+                });
+            }
+        });
+    }
+
+    @Test
+    public void testHandlerErrorOnCachedToken() {
+        final Yoke yoke = new Yoke(this);
+        yoke.secretSecurity("keyboard cat");
+
+        yoke.use(new JWT(new JWT.JWTHandler() {
+            @Override
+            public void handle(JsonObject token, Handler<Object> result) {
+                throw new IllegalStateException("unknown user");
+            }
+        }).cache(100));
+
+        final String token = new com.jetdrone.vertx.yoke.security.JWT(yoke.security()).encode(new JsonObject()
+                .putString("name", "Paulo"));
+
+        final YokeTester yokeAssert = new YokeTester(yoke);
+
+        final MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("authorization", "Bearer " + token);
+
+        yokeAssert.request("GET", "/", headers, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(401, resp.getStatusCode());
+
+                // the token is now cached, the handler error is still a 401
+                yokeAssert.request("GET", "/", headers, new Handler<Response>() {
+                    @Override
+                    public void handle(Response resp) {
+                        assertEquals(401, resp.getStatusCode());
+                        testComplete();
+                    }
+                });
+            }
+        });
+    }
+}
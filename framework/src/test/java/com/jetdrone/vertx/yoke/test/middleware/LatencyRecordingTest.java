@@ -0,0 +1,78 @@
+package com.jetdrone.vertx.yoke.test.middleware;
+
+import com.jetdrone.vertx.yoke.Middleware;
+import com.jetdrone.vertx.yoke.Yoke;
+import com.jetdrone.vertx.yoke.middleware.Router;
+import com.jetdrone.vertx.yoke.middleware.YokeRequest;
+import com.jetdrone.vertx.yoke.test.Response;
+import com.jetdrone.vertx.yoke.test.YokeTester;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+import org.vertx.java.core.Handler;
+import org.vertx.testtools.TestVerticle;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+
+import static org.vertx.testtools.VertxAssert.*;
+
+public class LatencyRecordingTest extends TestVerticle {
+
+    private static long invocations(String pattern) throws Exception {
+        final MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        final Set<ObjectName> names = mbs.queryNames(new ObjectName(pattern), null);
+        assertEquals(1, names.size());
+        return (Long) mbs.getAttribute(names.iterator().next(), "invocations");
+    }
+
+    @Test
+    public void testRecordsMiddlewareAndRoute() {
+        final Yoke yoke = new Yoke(this);
+
+        final Middleware passThrough = new Middleware() {
+            @Override
+            public void handle(@NotNull YokeRequest request, @NotNull Handler<Object> next) {
+                next.handle(null);
+            }
+        };
+
+        final Router router = new Router().get("/hello", new Middleware() {
+            @Override
+            public void handle(@NotNull YokeRequest request, @NotNull Handler<Object> next) {
+                request.response().end("hello");
+            }
+        });
+
+        yoke.use(passThrough);
+        yoke.use(router);
+
+        final YokeTester yokeAssert = new YokeTester(yoke);
+
+        yokeAssert.request("GET", "/hello", new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+
+                yokeAssert.request("GET", "/hello", new Handler<Response>() {
+                    @Override
+                    public void handle(Response resp) {
+                        assertEquals(200, resp.getStatusCode());
+
+                        try {
+                            // timed until it called next
+                            assertEquals(2, invocations("com.jetdrone.yoke:type=Middleware@" + yoke.hashCode() + ",name=*" + passThrough.hashCode() + ",*"));
+                            // timed until the route ended the response
+                            assertEquals(2, invocations("com.jetdrone.yoke:type=Middleware@" + yoke.hashCode() + ",name=Router@" + router.hashCode() + ",*"));
+                            assertEquals(2, invocations("com.jetdrone.yoke:type=Route@" + router.hashCode() + ",method=GET,*"));
+                        } catch (Exception e) {
+                            fail(e.toString());
+                        }
+                        testComplete();
+                    }
+                });
+            }
+        });
+    }
+}
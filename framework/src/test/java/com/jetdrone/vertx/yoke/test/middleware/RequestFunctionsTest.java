@@ -10,6 +10,7 @@ import org.vertx.java.core.Handler;
 import org.vertx.java.core.MultiMap;
 import org.vertx.testtools.TestVerticle;
 
+import java.util.Arrays;
 import java.util.Locale;
 
 import static org.vertx.testtools.VertxAssert.*;
@@ -116,4 +117,60 @@ public class RequestFunctionsTest extends TestVerticle {
 
         new YokeTester(yoke).request("GET", "/", headers, null);
     }
+
+    @Test
+    public void testSortedHeader() {
+        Yoke yoke = new Yoke(this);
+        yoke.use(new Handler<YokeRequest>() {
+            @Override
+            public void handle(YokeRequest request) {
+                assertEquals(Arrays.asList("application/json", "text/xml", "text/html", "text/plain"), request.sortedHeader("accept"));
+                // same header, same parsed instance
+                assertSame(request.sortedHeader("accept"), request.sortedHeader("accept"));
+                assertEquals("text/html; q=0.8", request.accepts("text/html", "image/png"));
+                assertEquals("application/json", request.accepts("*/*"));
+                assertNull(request.accepts("image/png"));
+                request.response().end();
+            }
+        });
+
+        MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("accept", "text/plain; q=0.5, application/json, text/html; q=0.8, text/xml");
+
+        new YokeTester(yoke).request("GET", "/", headers, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+                testComplete();
+            }
+        });
+    }
+
+    @Test
+    public void testIs() {
+        Yoke yoke = new Yoke(this);
+        yoke.use(new Handler<YokeRequest>() {
+            @Override
+            public void handle(YokeRequest request) {
+                assertTrue(request.is("html"));
+                assertTrue(request.is("text/html"));
+                assertTrue(request.is("text/*"));
+                assertTrue(request.is("*/html"));
+                assertFalse(request.is("json"));
+                assertFalse(request.is("application/*"));
+                request.response().end();
+            }
+        });
+
+        MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("content-type", "text/html; charset=utf-8");
+
+        new YokeTester(yoke).request("GET", "/", headers, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+                testComplete();
+            }
+        });
+    }
 }
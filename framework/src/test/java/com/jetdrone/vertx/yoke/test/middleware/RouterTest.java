@@ -200,6 +200,145 @@ public class RouterTest extends TestVerticle {
         });
     }
 
+    private void testPrecedence(final boolean indexed) {
+        final Yoke yoke = new Yoke(this);
+        yoke.use(new com.jetdrone.vertx.yoke.middleware.Router() {{
+            indexed(indexed);
+            get("/api/:id/items", new Middleware() {
+                @Override
+                public void handle(@NotNull final YokeRequest request, @NotNull final Handler<Object> next) {
+                    request.put("trail", "a");
+                    next.handle(null);
+                }
+            });
+            get(Pattern.compile("/api/.*"), new Middleware() {
+                @Override
+                public void handle(@NotNull final YokeRequest request, @NotNull final Handler<Object> next) {
+                    request.put("trail", request.get("trail") + "b");
+                    next.handle(null);
+                }
+            });
+            get("/api/:name/:type", new Middleware() {
+                @Override
+                public void handle(@NotNull final YokeRequest request, @NotNull final Handler<Object> next) {
+                    request.put("trail", request.get("trail") + "c");
+                    next.handle(null);
+                }
+            });
+            get("/api/v1.0/items", new Middleware() {
+                @Override
+                public void handle(@NotNull final YokeRequest request, @NotNull final Handler<Object> next) {
+                    request.put("trail", request.get("trail") + "d");
+                    next.handle(null);
+                }
+            });
+            get("/api/:id/items/", new Middleware() {
+                @Override
+                public void handle(@NotNull final YokeRequest request, @NotNull final Handler<Object> next) {
+                    request.put("trail", request.get("trail") + "e");
+                    next.handle(null);
+                }
+            });
+        }});
+
+        yoke.use(new Middleware() {
+            @Override
+            public void handle(@NotNull final YokeRequest request, @NotNull final Handler<Object> next) {
+                request.response().end(request.get("trail") + ":" + request.params().get("id") + ":" + request.params().get("type"));
+            }
+        });
+
+        final YokeTester yokeAssert = new YokeTester(yoke);
+
+        yokeAssert.request("GET", "/api/v1.0/items", new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+                assertEquals("abcd:v1.0:items", resp.body.toString());
+
+                yokeAssert.request("GET", "/api/1/items/", new Handler<Response>() {
+                    @Override
+                    public void handle(Response resp) {
+                        assertEquals(200, resp.getStatusCode());
+                        assertEquals("abce:1:items", resp.body.toString());
+                        testComplete();
+                    }
+                });
+            }
+        });
+    }
+
+    @Test
+    public void testIndexedPrecedence() {
+        testPrecedence(true);
+    }
+
+    @Test
+    public void testNonIndexedPrecedence() {
+        testPrecedence(false);
+    }
+
+    @Test
+    public void testSyncDepth() {
+        final Yoke yoke = new Yoke(this);
+        yoke.use(new com.jetdrone.vertx.yoke.middleware.Router() {{
+            syncDepth(1);
+            get("/sync", new Middleware() {
+                @Override
+                public void handle(@NotNull final YokeRequest request, @NotNull final Handler<Object> next) {
+                    next.handle(null);
+                    // the next middleware ran on the same stack
+                    assertEquals(true, request.get("visited"));
+                }
+            }, new Middleware() {
+                @Override
+                public void handle(@NotNull final YokeRequest request, @NotNull final Handler<Object> next) {
+                    request.put("visited", true);
+                    next.handle(null);
+                }
+            }, new Middleware() {
+                @Override
+                public void handle(@NotNull final YokeRequest request, @NotNull final Handler<Object> next) {
+                    request.response().end("OK");
+                }
+            });
+            syncDepth("/sync", 3);
+            get("/yield", new Middleware() {
+                @Override
+                public void handle(@NotNull final YokeRequest request, @NotNull final Handler<Object> next) {
+                    next.handle(null);
+                    // depth 1 allows a single direct call, the next middleware was scheduled
+                    assertNull(request.get("visited"));
+                }
+            }, new Middleware() {
+                @Override
+                public void handle(@NotNull final YokeRequest request, @NotNull final Handler<Object> next) {
+                    request.put("visited", true);
+                    request.response().end("OK");
+                }
+            });
+        }});
+
+        final YokeTester yokeAssert = new YokeTester(yoke);
+
+        yokeAssert.request("GET", "/sync", new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+                assertEquals("OK", resp.body.toString());
+
+                yokeAssert.request("GET", "/yield", new Handler<Response>() {
+                    @Override
+                    public void handle(Response resp) {
+                        assertEquals(200, resp.getStatusCode());
+                        assertEquals("OK", resp.body.toString());
+                        testComplete();
+                    }
+                });
+            }
+        });
+    }
+
     public static class R2 {
 
         @RegExParam("userId")
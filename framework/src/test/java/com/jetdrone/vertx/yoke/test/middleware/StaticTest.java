@@ -7,13 +7,31 @@ import com.jetdrone.vertx.yoke.test.YokeTester;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.vertx.java.core.Handler;
+import org.vertx.java.core.MultiMap;
+import org.vertx.java.core.http.CaseInsensitiveMultiMap;
 import org.vertx.java.core.file.impl.PathAdjuster;
 import org.vertx.java.core.impl.VertxInternal;
 import org.vertx.testtools.TestVerticle;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import static org.vertx.testtools.VertxAssert.assertEquals;
+import static org.vertx.testtools.VertxAssert.assertFalse;
+import static org.vertx.testtools.VertxAssert.assertNull;
+import static org.vertx.testtools.VertxAssert.assertTrue;
+import static org.vertx.testtools.VertxAssert.fail;
 import static org.vertx.testtools.VertxAssert.testComplete;
 
 public class StaticTest extends TestVerticle {
@@ -61,4 +79,284 @@ public class StaticTest extends TestVerticle {
             }
         });
     }
+
+    @Test
+    public void testStaticPrecompressed() {
+        // the precompressed variant must not be older than the original
+        File original = new File(getClass().getResource("/static/assets/app.js").getFile());
+        File variant = new File(getClass().getResource("/static/assets/app.js.gz").getFile());
+        assertTrue(variant.setLastModified(original.lastModified() + 1000));
+
+        Yoke yoke = new Yoke(this);
+        yoke.use(new Static("static").precompressed(true));
+
+        MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("Accept-Encoding", "gzip, deflate");
+
+        new YokeTester(yoke).request("GET", "/assets/app.js", headers, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+                assertEquals("gzip", resp.headers.get("content-encoding"));
+                assertEquals("application/javascript", resp.headers.get("content-type").split(";")[0]);
+                assertTrue(gunzip(resp).startsWith("/* precompressed */"));
+                testComplete();
+            }
+        });
+    }
+
+    @Test
+    public void testStaticCompress() {
+        Yoke yoke = new Yoke(this);
+        yoke.use(new Static("static").compress(Pattern.compile("javascript"), 1024 * 1024, 16));
+
+        final MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("Accept-Encoding", "gzip");
+
+        final YokeTester tester = new YokeTester(yoke);
+
+        tester.request("GET", "/assets/plain.js", headers, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+                assertEquals("gzip", resp.headers.get("content-encoding"));
+                final String first = gunzip(resp);
+                assertTrue(first.startsWith("function f0()"));
+
+                // served from memory
+                tester.request("GET", "/assets/plain.js", headers, new Handler<Response>() {
+                    @Override
+                    public void handle(Response resp) {
+                        assertEquals(200, resp.getStatusCode());
+                        assertEquals("gzip", resp.headers.get("content-encoding"));
+                        assertEquals(first, gunzip(resp));
+
+                        // clients that do not accept gzip get the original file
+                        tester.request("GET", "/assets/plain.js", new Handler<Response>() {
+                            @Override
+                            public void handle(Response resp) {
+                                assertEquals(200, resp.getStatusCode());
+                                assertNull(resp.headers.get("content-encoding"));
+                                assertEquals(first, resp.body.toString());
+                                testComplete();
+                            }
+                        });
+                    }
+                });
+            }
+        });
+    }
+
+    @Test
+    public void testStaticCache() throws Exception {
+        final File file = new File(new File(getClass().getResource("/static/dir1").getFile()), "cached.txt");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("cached content".getBytes("UTF-8"));
+        }
+
+        final Static middleware = new Static("static").cache(60000, 16, 1024);
+
+        Yoke yoke = new Yoke(this);
+        yoke.use(middleware);
+
+        final YokeTester tester = new YokeTester(yoke);
+
+        tester.request("GET", "/dir1/cached.txt", new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+                assertEquals("cached content", resp.body.toString());
+                final String etag = resp.headers.get("etag");
+
+                // the content is now in memory
+                assertTrue(file.delete());
+
+                tester.request("GET", "/dir1/cached.txt", new Handler<Response>() {
+                    @Override
+                    public void handle(Response resp) {
+                        assertEquals(200, resp.getStatusCode());
+                        assertEquals("cached content", resp.body.toString());
+                        assertEquals(etag, resp.headers.get("etag"));
+
+                        try {
+                            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+                            Set<ObjectName> names = mbs.queryNames(new ObjectName("com.jetdrone.yoke:type=FileCache@" + middleware.hashCode() + ",*"), null);
+                            assertEquals(1, names.size());
+                            ObjectName name = names.iterator().next();
+                            assertEquals(1L, mbs.getAttribute(name, "hits"));
+                            assertEquals(1L, mbs.getAttribute(name, "misses"));
+                            assertEquals(1, mbs.getAttribute(name, "size"));
+                        } catch (Exception e) {
+                            fail(e.getMessage());
+                        }
+
+                        testComplete();
+                    }
+                });
+            }
+        });
+    }
+
+    @Test
+    public void testStaticRange() {
+        Yoke yoke = new Yoke(this);
+        yoke.use(new Static("static"));
+
+        final YokeTester tester = new YokeTester(yoke);
+
+        MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("Range", "bytes=2-5");
+
+        tester.request("GET", "/assets/range.txt", headers, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(206, resp.getStatusCode());
+                assertEquals("bytes", resp.headers.get("accept-ranges"));
+                assertEquals("bytes 2-5/20", resp.headers.get("content-range"));
+                assertEquals("4", resp.headers.get("content-length"));
+                assertEquals("2345", resp.body.toString());
+
+                MultiMap headers = new CaseInsensitiveMultiMap();
+                headers.add("Range", "bytes=-3");
+
+                tester.request("GET", "/assets/range.txt", headers, new Handler<Response>() {
+                    @Override
+                    public void handle(Response resp) {
+                        assertEquals(206, resp.getStatusCode());
+                        assertEquals("bytes 17-19/20", resp.headers.get("content-range"));
+                        assertEquals("hij", resp.body.toString());
+
+                        MultiMap headers = new CaseInsensitiveMultiMap();
+                        headers.add("Range", "bytes=50-");
+
+                        tester.request("GET", "/assets/range.txt", headers, new Handler<Response>() {
+                            @Override
+                            public void handle(Response resp) {
+                                assertEquals(416, resp.getStatusCode());
+                                assertEquals("bytes */20", resp.headers.get("content-range"));
+                                testComplete();
+                            }
+                        });
+                    }
+                });
+            }
+        });
+    }
+
+    @Test
+    public void testStaticMultipleRanges() {
+        Yoke yoke = new Yoke(this);
+        // ranges are sliced from the cached content
+        yoke.use(new Static("static").cache(60000, 16, 1024));
+
+        MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("Range", "bytes=0-1, 10-12");
+
+        new YokeTester(yoke).request("GET", "/assets/range.txt", headers, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(206, resp.getStatusCode());
+                final String contentType = resp.headers.get("content-type");
+                assertTrue(contentType.startsWith("multipart/byteranges; boundary="));
+                final String boundary = contentType.substring(contentType.indexOf('=') + 1);
+
+                final String body = resp.body.toString();
+                assertEquals(Integer.toString(resp.body.length()), resp.headers.get("content-length"));
+                assertTrue(body.startsWith("--" + boundary + "\r\n"));
+                assertTrue(body.contains("Content-Range: bytes 0-1/20\r\n\r\n01\r\n--" + boundary + "\r\n"));
+                assertTrue(body.contains("Content-Range: bytes 10-12/20\r\n\r\nabc\r\n--" + boundary + "--\r\n"));
+                testComplete();
+            }
+        });
+    }
+
+    @Test
+    public void testStaticIfRange() {
+        Yoke yoke = new Yoke(this);
+        yoke.use(new Static("static"));
+
+        MultiMap headers = new CaseInsensitiveMultiMap();
+        headers.add("Range", "bytes=2-5");
+        headers.add("If-Range", "\"stale-etag\"");
+
+        new YokeTester(yoke).request("GET", "/assets/range.txt", headers, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                // the validator does not match, the whole file is sent
+                assertEquals(200, resp.getStatusCode());
+                assertEquals("0123456789abcdefghij", resp.body.toString());
+                testComplete();
+            }
+        });
+    }
+
+    @Test
+    public void testStaticVariantEtag() {
+        Yoke yoke = new Yoke(this);
+        yoke.use(new Static("static").compress(Pattern.compile("javascript"), 1024 * 1024, 16));
+
+        final MultiMap gzip = new CaseInsensitiveMultiMap();
+        gzip.add("Accept-Encoding", "gzip");
+
+        final YokeTester tester = new YokeTester(yoke);
+
+        tester.request("GET", "/assets/plain.js", gzip, new Handler<Response>() {
+            @Override
+            public void handle(Response resp) {
+                assertEquals(200, resp.getStatusCode());
+                assertEquals("gzip", resp.headers.get("content-encoding"));
+                final String etag = resp.headers.get("etag");
+                assertTrue(etag.endsWith("-gz\""));
+
+                tester.request("GET", "/assets/plain.js", new Handler<Response>() {
+                    @Override
+                    public void handle(Response resp) {
+                        assertEquals(200, resp.getStatusCode());
+                        // the original file has a different etag
+                        assertFalse(etag.equals(resp.headers.get("etag")));
+
+                        final MultiMap headers = new CaseInsensitiveMultiMap();
+                        headers.add("Range", "bytes=2-5");
+                        headers.add("If-Range", etag);
+
+                        tester.request("GET", "/assets/plain.js", headers, new Handler<Response>() {
+                            @Override
+                            public void handle(Response resp) {
+                                // ranges of the original file are never spliced into a gzipped copy
+                                assertEquals(200, resp.getStatusCode());
+
+                                final MultiMap conditional = new CaseInsensitiveMultiMap();
+                                conditional.add("Accept-Encoding", "gzip");
+                                conditional.add("If-None-Match", etag);
+
+                                tester.request("GET", "/assets/plain.js", conditional, new Handler<Response>() {
+                                    @Override
+                                    public void handle(Response resp) {
+                                        assertEquals(304, resp.getStatusCode());
+                                        testComplete();
+                                    }
+                                });
+                            }
+                        });
+                    }
+                });
+            }
+        });
+    }
+
+    private static String gunzip(Response resp) {
+        try {
+            final InputStream in = new GZIPInputStream(new ByteArrayInputStream(resp.body.getBytes()));
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buf = new byte[1024];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                out.write(buf, 0, n);
+            }
+            return out.toString("UTF-8");
+        } catch (IOException e) {
+            fail(e.getMessage());
+            return null;
+        }
+    }
 }
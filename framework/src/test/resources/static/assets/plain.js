@@ -0,0 +1,200 @@
+function f0() { return 'hello world 0'; }
+function f1() { return 'hello world 1'; }
+function f2() { return 'hello world 2'; }
+function f3() { return 'hello world 3'; }
+function f4() { return 'hello world 4'; }
+function f5() { return 'hello world 5'; }
+function f6() { return 'hello world 6'; }
+function f7() { return 'hello world 7'; }
+function f8() { return 'hello world 8'; }
+function f9() { return 'hello world 9'; }
+function f10() { return 'hello world 10'; }
+function f11() { return 'hello world 11'; }
+function f12() { return 'hello world 12'; }
+function f13() { return 'hello world 13'; }
+function f14() { return 'hello world 14'; }
+function f15() { return 'hello world 15'; }
+function f16() { return 'hello world 16'; }
+function f17() { return 'hello world 17'; }
+function f18() { return 'hello world 18'; }
+function f19() { return 'hello world 19'; }
+function f20() { return 'hello world 20'; }
+function f21() { return 'hello world 21'; }
+function f22() { return 'hello world 22'; }
+function f23() { return 'hello world 23'; }
+function f24() { return 'hello world 24'; }
+function f25() { return 'hello world 25'; }
+function f26() { return 'hello world 26'; }
+function f27() { return 'hello world 27'; }
+function f28() { return 'hello world 28'; }
+function f29() { return 'hello world 29'; }
+function f30() { return 'hello world 30'; }
+function f31() { return 'hello world 31'; }
+function f32() { return 'hello world 32'; }
+function f33() { return 'hello world 33'; }
+function f34() { return 'hello world 34'; }
+function f35() { return 'hello world 35'; }
+function f36() { return 'hello world 36'; }
+function f37() { return 'hello world 37'; }
+function f38() { return 'hello world 38'; }
+function f39() { return 'hello world 39'; }
+function f40() { return 'hello world 40'; }
+function f41() { return 'hello world 41'; }
+function f42() { return 'hello world 42'; }
+function f43() { return 'hello world 43'; }
+function f44() { return 'hello world 44'; }
+function f45() { return 'hello world 45'; }
+function f46() { return 'hello world 46'; }
+function f47() { return 'hello world 47'; }
+function f48() { return 'hello world 48'; }
+function f49() { return 'hello world 49'; }
+function f50() { return 'hello world 50'; }
+function f51() { return 'hello world 51'; }
+function f52() { return 'hello world 52'; }
+function f53() { return 'hello world 53'; }
+function f54() { return 'hello world 54'; }
+function f55() { return 'hello world 55'; }
+function f56() { return 'hello world 56'; }
+function f57() { return 'hello world 57'; }
+function f58() { return 'hello world 58'; }
+function f59() { return 'hello world 59'; }
+function f60() { return 'hello world 60'; }
+function f61() { return 'hello world 61'; }
+function f62() { return 'hello world 62'; }
+function f63() { return 'hello world 63'; }
+function f64() { return 'hello world 64'; }
+function f65() { return 'hello world 65'; }
+function f66() { return 'hello world 66'; }
+function f67() { return 'hello world 67'; }
+function f68() { return 'hello world 68'; }
+function f69() { return 'hello world 69'; }
+function f70() { return 'hello world 70'; }
+function f71() { return 'hello world 71'; }
+function f72() { return 'hello world 72'; }
+function f73() { return 'hello world 73'; }
+function f74() { return 'hello world 74'; }
+function f75() { return 'hello world 75'; }
+function f76() { return 'hello world 76'; }
+function f77() { return 'hello world 77'; }
+function f78() { return 'hello world 78'; }
+function f79() { return 'hello world 79'; }
+function f80() { return 'hello world 80'; }
+function f81() { return 'hello world 81'; }
+function f82() { return 'hello world 82'; }
+function f83() { return 'hello world 83'; }
+function f84() { return 'hello world 84'; }
+function f85() { return 'hello world 85'; }
+function f86() { return 'hello world 86'; }
+function f87() { return 'hello world 87'; }
+function f88() { return 'hello world 88'; }
+function f89() { return 'hello world 89'; }
+function f90() { return 'hello world 90'; }
+function f91() { return 'hello world 91'; }
+function f92() { return 'hello world 92'; }
+function f93() { return 'hello world 93'; }
+function f94() { return 'hello world 94'; }
+function f95() { return 'hello world 95'; }
+function f96() { return 'hello world 96'; }
+function f97() { return 'hello world 97'; }
+function f98() { return 'hello world 98'; }
+function f99() { return 'hello world 99'; }
+function f100() { return 'hello world 100'; }
+function f101() { return 'hello world 101'; }
+function f102() { return 'hello world 102'; }
+function f103() { return 'hello world 103'; }
+function f104() { return 'hello world 104'; }
+function f105() { return 'hello world 105'; }
+function f106() { return 'hello world 106'; }
+function f107() { return 'hello world 107'; }
+function f108() { return 'hello world 108'; }
+function f109() { return 'hello world 109'; }
+function f110() { return 'hello world 110'; }
+function f111() { return 'hello world 111'; }
+function f112() { return 'hello world 112'; }
+function f113() { return 'hello world 113'; }
+function f114() { return 'hello world 114'; }
+function f115() { return 'hello world 115'; }
+function f116() { return 'hello world 116'; }
+function f117() { return 'hello world 117'; }
+function f118() { return 'hello world 118'; }
+function f119() { return 'hello world 119'; }
+function f120() { return 'hello world 120'; }
+function f121() { return 'hello world 121'; }
+function f122() { return 'hello world 122'; }
+function f123() { return 'hello world 123'; }
+function f124() { return 'hello world 124'; }
+function f125() { return 'hello world 125'; }
+function f126() { return 'hello world 126'; }
+function f127() { return 'hello world 127'; }
+function f128() { return 'hello world 128'; }
+function f129() { return 'hello world 129'; }
+function f130() { return 'hello world 130'; }
+function f131() { return 'hello world 131'; }
+function f132() { return 'hello world 132'; }
+function f133() { return 'hello world 133'; }
+function f134() { return 'hello world 134'; }
+function f135() { return 'hello world 135'; }
+function f136() { return 'hello world 136'; }
+function f137() { return 'hello world 137'; }
+function f138() { return 'hello world 138'; }
+function f139() { return 'hello world 139'; }
+function f140() { return 'hello world 140'; }
+function f141() { return 'hello world 141'; }
+function f142() { return 'hello world 142'; }
+function f143() { return 'hello world 143'; }
+function f144() { return 'hello world 144'; }
+function f145() { return 'hello world 145'; }
+function f146() { return 'hello world 146'; }
+function f147() { return 'hello world 147'; }
+function f148() { return 'hello world 148'; }
+function f149() { return 'hello world 149'; }
+function f150() { return 'hello world 150'; }
+function f151() { return 'hello world 151'; }
+function f152() { return 'hello world 152'; }
+function f153() { return 'hello world 153'; }
+function f154() { return 'hello world 154'; }
+function f155() { return 'hello world 155'; }
+function f156() { return 'hello world 156'; }
+function f157() { return 'hello world 157'; }
+function f158() { return 'hello world 158'; }
+function f159() { return 'hello world 159'; }
+function f160() { return 'hello world 160'; }
+function f161() { return 'hello world 161'; }
+function f162() { return 'hello world 162'; }
+function f163() { return 'hello world 163'; }
+function f164() { return 'hello world 164'; }
+function f165() { return 'hello world 165'; }
+function f166() { return 'hello world 166'; }
+function f167() { return 'hello world 167'; }
+function f168() { return 'hello world 168'; }
+function f169() { return 'hello world 169'; }
+function f170() { return 'hello world 170'; }
+function f171() { return 'hello world 171'; }
+function f172() { return 'hello world 172'; }
+function f173() { return 'hello world 173'; }
+function f174() { return 'hello world 174'; }
+function f175() { return 'hello world 175'; }
+function f176() { return 'hello world 176'; }
+function f177() { return 'hello world 177'; }
+function f178() { return 'hello world 178'; }
+function f179() { return 'hello world 179'; }
+function f180() { return 'hello world 180'; }
+function f181() { return 'hello world 181'; }
+function f182() { return 'hello world 182'; }
+function f183() { return 'hello world 183'; }
+function f184() { return 'hello world 184'; }
+function f185() { return 'hello world 185'; }
+function f186() { return 'hello world 186'; }
+function f187() { return 'hello world 187'; }
+function f188() { return 'hello world 188'; }
+function f189() { return 'hello world 189'; }
+function f190() { return 'hello world 190'; }
+function f191() { return 'hello world 191'; }
+function f192() { return 'hello world 192'; }
+function f193() { return 'hello world 193'; }
+function f194() { return 'hello world 194'; }
+function f195() { return 'hello world 195'; }
+function f196() { return 'hello world 196'; }
+function f197() { return 'hello world 197'; }
+function f198() { return 'hello world 198'; }
+function f199() { return 'hello world 199'; }
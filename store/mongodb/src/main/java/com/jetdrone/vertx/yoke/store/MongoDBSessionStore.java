@@ -9,13 +9,15 @@ import org.vertx.java.core.eventbus.Message;
 import org.vertx.java.core.json.JsonArray;
 import org.vertx.java.core.json.JsonObject;
 
+import java.util.Set;
+
 /** # MongoDBSessionStore
  *
  * mongo db collection *MUST* have a TTL index on updatedAt
  *
  *     db.collection.ensureIndex({updatedAt: 1}, {expireAfterSeconds: 3600});
  */
-public class MongoDBSessionStore implements SessionStore {
+public class MongoDBSessionStore implements PartialUpdateSessionStore {
 
     private final EventBus eventBus;
 
@@ -84,6 +86,45 @@ public class MongoDBSessionStore implements SessionStore {
         });
     }
 
+    @Override
+    public void update(final String sid, JsonObject changes, Set<String> removed, final Handler<Object> next) {
+        JsonObject set = changes.copy()
+                // force the session id
+                .putString("id", sid)
+                // updated at
+                .putObject("updatedAt", new JsonObject().putNumber("$date", System.currentTimeMillis()));
+
+        JsonObject objNew = new JsonObject().putObject("$set", set);
+
+        // mongo rejects an empty $unset
+        if (!removed.isEmpty()) {
+            JsonObject unset = new JsonObject();
+            for (String field : removed) {
+                unset.putString(field, "");
+            }
+            objNew.putObject("$unset", unset);
+        }
+
+        JsonObject mongo = new JsonObject()
+                .putString("action", "update")
+                .putString("collection", collection)
+                .putObject("criteria", new JsonObject().putString("id", sid))
+                .putObject("objNew", objNew)
+                .putBoolean("upsert", true)
+                .putBoolean("multi", false);
+
+        eventBus.send(mongoAddress, mongo, new Handler<Message<JsonObject>>() {
+            @Override
+            public void handle(Message<JsonObject> reply) {
+                if ("ok".equals(reply.body().getString("status"))) {
+                    next.handle(null);
+                } else {
+                    next.handle(reply.body().getString("message"));
+                }
+            }
+        });
+    }
+
     @Override
     public void destroy(String sid, final Handler<Object> next) {
         JsonObject mongo = new JsonObject()
@@ -3,13 +3,15 @@
  */
 package com.jetdrone.vertx.yoke.store;
 
-import com.jetdrone.vertx.yoke.util.AsyncIterator;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.eventbus.EventBus;
 import org.vertx.java.core.eventbus.Message;
 import org.vertx.java.core.json.JsonArray;
 import org.vertx.java.core.json.JsonObject;
 
+import java.util.HashSet;
+import java.util.Set;
+
 /** # RedisSessionStore */
 public class RedisSessionStore implements SessionStore {
 
@@ -19,6 +21,8 @@ public class RedisSessionStore implements SessionStore {
     private final String prefix;
     private final String redisAddress;
 
+    private int batchSize = 500;
+
     public RedisSessionStore(EventBus eventBus, String redisAddress, String prefix, Integer ttl) {
         this.redisAddress = redisAddress;
         this.prefix = prefix;
@@ -111,13 +115,119 @@ public class RedisSessionStore implements SessionStore {
         });
     }
 
-    @Override
-    public void all(final Handler<JsonArray> next) {
-        JsonObject redis = new JsonObject();
-        redis.putString("command", "keys");
-        redis.putArray("args", new JsonArray().add(prefix + "*"));
+    /**
+     * Number of keys requested per ```SCAN``` and sent per ```MGET``` or ```DEL```.
+     */
+    public RedisSessionStore batchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
 
-        final JsonArray results = new JsonArray();
+    /**
+     * Receives the keys of one ```SCAN``` page and calls ```next``` once they are processed, with an error to stop.
+     */
+    private interface KeyBatch {
+        void handle(JsonArray keys, Handler<Object> next);
+    }
+
+    /**
+     * Walks all the session keys with ```SCAN``` so Redis is never blocked like with ```KEYS```. The next page is
+     * requested while the current one is processed, so at most one scan and one batch are in flight. ```SCAN``` may
+     * return a key more than once (e.g. while the keyspace is rehashed), batches must tolerate repeats.
+     */
+    private final class Scan {
+
+        private final KeyBatch batch;
+        private final Handler<Object> done;
+
+        private int inFlight;
+        private String cursor;
+        private JsonArray keys;
+        private Object error;
+
+        Scan(KeyBatch batch, Handler<Object> done) {
+            this.batch = batch;
+            this.done = done;
+        }
+
+        void fetch(String from) {
+            inFlight++;
+
+            JsonObject redis = new JsonObject();
+            redis.putString("command", "scan");
+            redis.putArray("args", new JsonArray().add(from).add("MATCH").add(prefix + "*").add("COUNT").add(batchSize));
+
+            eventBus.send(redisAddress, redis, new Handler<Message<JsonObject>>() {
+                @Override
+                public void handle(Message<JsonObject> message) {
+                    if (!"ok".equals(message.body().getString("status"))) {
+                        error = message.body().getString("message");
+                    } else {
+                        // [next cursor, [keys]]
+                        JsonArray value = message.body().getArray("value");
+                        cursor = value.get(0);
+                        keys = value.get(1);
+                    }
+                    inFlight--;
+                    advance();
+                }
+            });
+        }
+
+        void advance() {
+            if (inFlight > 0) {
+                return;
+            }
+
+            if (error != null) {
+                done.handle(error);
+                return;
+            }
+
+            if (keys == null) {
+                // the last page was processed
+                done.handle(null);
+                return;
+            }
+
+            final JsonArray page = keys;
+            keys = null;
+
+            // a cursor of 0 means the scan is complete
+            if (!"0".equals(cursor)) {
+                fetch(cursor);
+            }
+
+            if (page.size() == 0) {
+                advance();
+                return;
+            }
+
+            inFlight++;
+            batch.handle(page, new Handler<Object>() {
+                @Override
+                public void handle(Object err) {
+                    if (err != null && error == null) {
+                        error = err;
+                    }
+                    inFlight--;
+                    advance();
+                }
+            });
+        }
+    }
+
+    private void scan(KeyBatch batch, Handler<Object> done) {
+        new Scan(batch, done).fetch("0");
+    }
+
+    /**
+     * Fetches the sessions of one batch of keys with a single ```MGET```, expired keys are skipped.
+     */
+    private void mget(JsonArray keys, final Handler<JsonArray> next) {
+        JsonObject redis = new JsonObject();
+        redis.putString("command", "mget");
+        redis.putArray("args", keys);
 
         eventBus.send(redisAddress, redis, new Handler<Message<JsonObject>>() {
             @Override
@@ -125,97 +235,131 @@ public class RedisSessionStore implements SessionStore {
                 if (!"ok".equals(message.body().getString("status"))) {
                     next.handle(null);
                 } else {
-                    JsonArray keys = message.body().getArray("value");
-
-                    new AsyncIterator<Object>(keys.iterator()) {
-                        @Override
-                        public void handle(Object key) {
-                            if (hasNext()) {
-                                JsonObject redis = new JsonObject();
-                                redis.putString("command", "get");
-                                redis.putArray("args", new JsonArray().add(key));
-
-                                eventBus.send(redisAddress, redis, new Handler<Message<JsonObject>>() {
-                                    @Override
-                                    public void handle(Message<JsonObject> message) {
-                                        if (!"ok".equals(message.body().getString("status"))) {
-                                            next.handle(null);
-                                        } else {
-                                            String value = message.body().getString("value");
-                                            if (value != null) {
-                                                results.add(new JsonObject(value));
-                                            }
-                                            next();
-                                        }
-                                    }
-                                });
-                            } else {
-                                next.handle(results);
-                            }
+                    JsonArray sessions = new JsonArray();
+                    for (Object value : message.body().getArray("value")) {
+                        if (value != null && !"".equals(value)) {
+                            sessions.add(new JsonObject((String) value));
                         }
-                    };
+                    }
+                    next.handle(sessions);
                 }
             }
         });
     }
 
     @Override
-    public void clear(final Handler<Object> next) {
-        JsonObject redis = new JsonObject();
-        redis.putString("command", "keys");
-        redis.putArray("args", new JsonArray().add(prefix + "*"));
+    public void all(final Handler<JsonArray> next) {
+        final JsonArray results = new JsonArray();
 
-        eventBus.send(redisAddress, redis, new Handler<Message<JsonObject>>() {
+        // the whole result is in memory anyway, so repeated keys are filtered
+        sessions(new HashSet<String>(), new Handler<JsonArray>() {
             @Override
-            public void handle(Message<JsonObject> message) {
-                if (!"ok".equals(message.body().getString("status"))) {
-                    next.handle(message.body().getString("status"));
-                } else {
-                    JsonArray keys = message.body().getArray("value");
-
-                    new AsyncIterator<Object>(keys.iterator()) {
-                        @Override
-                        public void handle(Object key) {
-                            if (hasNext()) {
-                                JsonObject redis = new JsonObject();
-                                redis.putString("command", "del");
-                                redis.putArray("args", new JsonArray().add(key));
-
-                                eventBus.send(redisAddress, redis, new Handler<Message<JsonObject>>() {
-                                    @Override
-                                    public void handle(Message<JsonObject> message) {
-                                        if (!"ok".equals(message.body().getString("status"))) {
-                                            next.handle(message.body().getString("status"));
-                                        } else {
-                                            next();
-                                        }
-                                    }
-                                });
-                            } else {
-                                next.handle(null);
-                            }
-                        }
-                    };
+            public void handle(JsonArray page) {
+                for (Object session : page) {
+                    results.add(session);
                 }
             }
+        }, new Handler<Object>() {
+            @Override
+            public void handle(Object error) {
+                next.handle(error == null ? results : null);
+            }
         });
     }
 
+    /**
+     * Streaming variant of ```all```, the sessions are delivered a page at a time instead of being collected in a
+     * single array. Keys seen so far are not remembered so memory stays bounded by the page size, which means a
+     * session may be delivered more than once if ```SCAN``` repeats its key.
+     *
+     * @param pageHandler called with each page of sessions, pages may be empty
+     * @param endHandler  called once with null when all pages were delivered or with the error that stopped the scan
+     */
+    public void all(final Handler<JsonArray> pageHandler, final Handler<Object> endHandler) {
+        sessions(null, pageHandler, endHandler);
+    }
+
+    /**
+     * Scans and fetches the sessions, skipping the keys already in ```seen``` unless it is null.
+     */
+    private void sessions(final Set<String> seen, final Handler<JsonArray> pageHandler, final Handler<Object> endHandler) {
+        scan(new KeyBatch() {
+            @Override
+            public void handle(JsonArray page, final Handler<Object> next) {
+                final JsonArray keys = seen == null ? page : unseen(seen, page);
+
+                if (keys.size() == 0) {
+                    next.handle(null);
+                    return;
+                }
+
+                mget(keys, new Handler<JsonArray>() {
+                    @Override
+                    public void handle(JsonArray sessions) {
+                        if (sessions == null) {
+                            next.handle("mget failed");
+                        } else {
+                            pageHandler.handle(sessions);
+                            next.handle(null);
+                        }
+                    }
+                });
+            }
+        }, endHandler);
+    }
+
+    @Override
+    public void clear(final Handler<Object> next) {
+        scan(new KeyBatch() {
+            @Override
+            public void handle(JsonArray keys, final Handler<Object> next) {
+                JsonObject redis = new JsonObject();
+                redis.putString("command", "del");
+                redis.putArray("args", keys);
+
+                eventBus.send(redisAddress, redis, new Handler<Message<JsonObject>>() {
+                    @Override
+                    public void handle(Message<JsonObject> message) {
+                        if (!"ok".equals(message.body().getString("status"))) {
+                            next.handle(message.body().getString("status"));
+                        } else {
+                            next.handle(null);
+                        }
+                    }
+                });
+            }
+        }, next);
+    }
+
+    private static JsonArray unseen(Set<String> seen, JsonArray keys) {
+        final JsonArray result = new JsonArray();
+
+        for (Object key : keys) {
+            if (seen.add((String) key)) {
+                result.add(key);
+            }
+        }
+
+        return result;
+    }
+
     @Override
     public void length(final Handler<Integer> next) {
-        JsonObject redis = new JsonObject();
-        redis.putString("command", "keys");
-        redis.putArray("args", new JsonArray().add(prefix + "*"));
+        // keys repeated by SCAN are counted once
+        final Set<String> keys = new HashSet<>();
 
-        eventBus.send(redisAddress, redis, new Handler<Message<JsonObject>>() {
+        scan(new KeyBatch() {
             @Override
-            public void handle(Message<JsonObject> message) {
-                if (!"ok".equals(message.body().getString("status"))) {
-                    next.handle(0);
-                } else {
-                    JsonArray keys = message.body().getArray("value");
-                    next.handle(keys.size());
+            public void handle(JsonArray page, Handler<Object> next) {
+                for (Object key : page) {
+                    keys.add((String) key);
                 }
+                next.handle(null);
+            }
+        }, new Handler<Object>() {
+            @Override
+            public void handle(Object error) {
+                next.handle(error == null ? keys.size() : 0);
             }
         });
     }
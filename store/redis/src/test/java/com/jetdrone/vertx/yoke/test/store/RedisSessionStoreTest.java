@@ -0,0 +1,177 @@
+package com.jetdrone.vertx.yoke.test.store;
+
+import com.jetdrone.vertx.yoke.store.RedisSessionStore;
+import org.junit.Test;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.testtools.TestVerticle;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.vertx.testtools.VertxAssert.*;
+
+public class RedisSessionStoreTest extends TestVerticle {
+
+    /**
+     * Answers SCAN and MGET like the redis module, a little later so requests overlap. Page "b" is returned twice.
+     */
+    private final class FakeRedis implements Handler<Message<JsonObject>> {
+
+        final boolean fail;
+
+        int scans;
+        int batches;
+        int maxScans;
+        int maxBatches;
+        int maxInFlight;
+
+        FakeRedis(boolean fail) {
+            this.fail = fail;
+        }
+
+        @Override
+        public void handle(final Message<JsonObject> message) {
+            final String command = message.body().getString("command");
+            final JsonArray args = message.body().getArray("args");
+            final JsonObject reply;
+
+            if ("scan".equals(command)) {
+                scans++;
+                final String cursor = args.get(0);
+
+                switch (cursor) {
+                    case "0":
+                        reply = ok(new JsonArray().add("7").add(new JsonArray().add("s:a").add("s:b")));
+                        break;
+                    case "7":
+                        reply = ok(new JsonArray().add("9").add(new JsonArray().add("s:b").add("s:c")));
+                        break;
+                    default:
+                        reply = fail ?
+                                new JsonObject().putString("status", "error").putString("message", "boom") :
+                                ok(new JsonArray().add("0").add(new JsonArray().add("s:d")));
+                        break;
+                }
+            } else if ("mget".equals(command)) {
+                batches++;
+                final JsonArray values = new JsonArray();
+                for (Object key : args) {
+                    values.add(new JsonObject().putString("id", ((String) key).substring(2)).encode());
+                }
+                reply = ok(values);
+            } else {
+                fail("Unexpected command " + command);
+                return;
+            }
+
+            maxScans = Math.max(maxScans, scans);
+            maxBatches = Math.max(maxBatches, batches);
+            maxInFlight = Math.max(maxInFlight, scans + batches);
+
+            vertx.setTimer(10, new Handler<Long>() {
+                @Override
+                public void handle(Long event) {
+                    if ("scan".equals(command)) {
+                        scans--;
+                    } else {
+                        batches--;
+                    }
+                    message.reply(reply);
+                }
+            });
+        }
+
+        private JsonObject ok(JsonArray value) {
+            return new JsonObject().putString("status", "ok").putArray("value", value);
+        }
+    }
+
+    @Test
+    public void testAll() {
+        final FakeRedis redis = new FakeRedis(false);
+        vertx.eventBus().registerHandler("redis.all", redis);
+
+        final RedisSessionStore store = new RedisSessionStore(vertx.eventBus(), "redis.all", "s:");
+
+        store.all(new Handler<JsonArray>() {
+            @Override
+            public void handle(JsonArray sessions) {
+                // the key repeated by SCAN is returned once
+                assertEquals(4, sessions.size());
+                // the next page is fetched while a batch is loaded, never more
+                assertEquals(1, redis.maxScans);
+                assertEquals(1, redis.maxBatches);
+                assertEquals(2, redis.maxInFlight);
+
+                store.length(new Handler<Integer>() {
+                    @Override
+                    public void handle(Integer length) {
+                        assertEquals(4, length.intValue());
+                        testComplete();
+                    }
+                });
+            }
+        });
+    }
+
+    @Test
+    public void testPagedAll() {
+        vertx.eventBus().registerHandler("redis.paged", new FakeRedis(false));
+
+        final RedisSessionStore store = new RedisSessionStore(vertx.eventBus(), "redis.paged", "s:");
+        final AtomicInteger sessions = new AtomicInteger();
+
+        store.all(new Handler<JsonArray>() {
+            @Override
+            public void handle(JsonArray page) {
+                sessions.addAndGet(page.size());
+            }
+        }, new Handler<Object>() {
+            @Override
+            public void handle(Object error) {
+                assertNull(error);
+                // pages are not deduplicated, the repeated key is delivered again
+                assertEquals(5, sessions.get());
+                testComplete();
+            }
+        });
+    }
+
+    @Test
+    public void testError() {
+        vertx.eventBus().registerHandler("redis.error", new FakeRedis(true));
+
+        final RedisSessionStore store = new RedisSessionStore(vertx.eventBus(), "redis.error", "s:");
+        final AtomicInteger ends = new AtomicInteger();
+
+        store.all(new Handler<JsonArray>() {
+            @Override
+            public void handle(JsonArray page) {
+            }
+        }, new Handler<Object>() {
+            @Override
+            public void handle(Object error) {
+                assertEquals("boom", error);
+                ends.incrementAndGet();
+
+                // the batch in flight when the scan failed must not end the scan a second time
+                vertx.setTimer(100, new Handler<Long>() {
+                    @Override
+                    public void handle(Long event) {
+                        assertEquals(1, ends.get());
+
+                        store.all(new Handler<JsonArray>() {
+                            @Override
+                            public void handle(JsonArray sessions) {
+                                assertNull(sessions);
+                                testComplete();
+                            }
+                        });
+                    }
+                });
+            }
+        });
+    }
+}